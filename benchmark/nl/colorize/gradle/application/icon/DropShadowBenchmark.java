@@ -0,0 +1,137 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.icon;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Kernel;
+import java.util.concurrent.TimeUnit;
+
+import static java.awt.RenderingHints.KEY_ANTIALIASING;
+import static java.awt.RenderingHints.VALUE_ANTIALIAS_ON;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+
+/**
+ * Measures the cost of drawing the drop shadow for a single maskable icon,
+ * for each icon size. Compares the original approach, which blurs the
+ * shadow using two {@code ConvolveOp} passes, with the
+ * {@link DropShadowRenderer}. Both benchmarks include copying the icon,
+ * since the renderer modifies the image. Run using {@code gradle jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DropShadowBenchmark {
+
+    @Param({"16", "32", "48", "64", "192", "256", "512", "1024"})
+    private int size;
+
+    private BufferedImage icon;
+    private DropShadowRenderer renderer;
+    private ConvolveOp horizontal;
+    private ConvolveOp vertical;
+
+    private static final Color SHADOW_COLOR = new Color(0, 0, 0, 80);
+    private static final int SHADOW_OFFSET = 1;
+    private static final int SHADOW_BLUR = 4;
+
+    @Setup
+    public void prepare() {
+        float factor = size / 512f;
+        int inset = Math.round(50 * factor);
+        int inner = Math.round(412 * factor);
+        int radius = Math.round(128 * factor);
+
+        icon = new BufferedImage(size, size, TYPE_INT_ARGB);
+        Graphics2D g2 = icon.createGraphics();
+        g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+        g2.setColor(new Color(220, 90, 40));
+        g2.fillRoundRect(inset, inset, inner, inner, radius, radius);
+        g2.dispose();
+
+        renderer = new DropShadowRenderer(SHADOW_COLOR, SHADOW_OFFSET, SHADOW_BLUR);
+
+        int kernelSize = SHADOW_BLUR * 2 + 1;
+        float[] data = calculateGaussianBlurData(SHADOW_BLUR, kernelSize);
+        horizontal = new ConvolveOp(new Kernel(kernelSize, 1, data), ConvolveOp.EDGE_NO_OP, null);
+        vertical = new ConvolveOp(new Kernel(1, kernelSize, data), ConvolveOp.EDGE_NO_OP, null);
+    }
+
+    @Benchmark
+    public BufferedImage convolveOp() {
+        BufferedImage image = copyIcon();
+
+        BufferedImage shadow = new BufferedImage(size, size, TYPE_INT_ARGB);
+        Graphics2D shadowG2 = shadow.createGraphics();
+        shadowG2.drawImage(image, SHADOW_OFFSET, SHADOW_OFFSET, null);
+        shadowG2.setComposite(AlphaComposite.SrcIn);
+        shadowG2.setColor(SHADOW_COLOR);
+        shadowG2.fillRect(0, 0, size, size);
+        shadowG2.dispose();
+
+        BufferedImage combined = horizontal.filter(shadow, new BufferedImage(size, size, TYPE_INT_ARGB));
+        combined = vertical.filter(combined, null);
+
+        Graphics2D combinedG2 = combined.createGraphics();
+        combinedG2.drawImage(image, 0, 0, null);
+        combinedG2.dispose();
+        return combined;
+    }
+
+    @Benchmark
+    public BufferedImage dropShadowRenderer() {
+        return renderer.apply(copyIcon());
+    }
+
+    private BufferedImage copyIcon() {
+        BufferedImage copy = new BufferedImage(size, size, TYPE_INT_ARGB);
+        int[] source = ((DataBufferInt) icon.getRaster().getDataBuffer()).getData();
+        int[] target = ((DataBufferInt) copy.getRaster().getDataBuffer()).getData();
+        System.arraycopy(source, 0, target, 0, source.length);
+        return copy;
+    }
+
+    private float[] calculateGaussianBlurData(int amount, int size) {
+        float[] data = new float[size];
+        float sigma = amount / 3f;
+        float sigmaTwoSquared = 2f * sigma * sigma;
+        float sigmaRoot = (float) Math.sqrt(sigmaTwoSquared * Math.PI);
+        float total = 0f;
+
+        for (int i = -amount; i <= amount; i++) {
+            float distance = i * i;
+            int index = i + amount;
+            data[index] = (float) Math.exp(-distance / sigmaTwoSquared / sigmaRoot);
+            total += data[index];
+        }
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] /= total;
+        }
+
+        return data;
+    }
+}
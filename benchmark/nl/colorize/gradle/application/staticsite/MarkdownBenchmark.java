@@ -0,0 +1,71 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of converting a single Markdown page to HTML. Compares
+ * the original approach, which creates a new parser and renderer for every
+ * page, with the shared {@link MarkdownConverter}. Run using
+ * {@code gradle jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MarkdownBenchmark {
+
+    private String markdown;
+    private MarkdownConverter converter;
+
+    @Setup
+    public void prepare() {
+        StringBuilder page = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            page.append("## Section ").append(i).append("\n\n");
+            page.append("Some *emphasized* text with a [link](https://www.colorize.nl) ");
+            page.append("and some `inline code`, followed by a list:\n\n");
+            page.append("- First item\n- Second item\n- Third item\n\n");
+            page.append("```\nint value = ").append(i).append(";\n```\n\n");
+        }
+
+        markdown = page.toString();
+        converter = new MarkdownConverter();
+    }
+
+    @Benchmark
+    public String convertWithNewInstances() {
+        Parser parser = Parser.builder().build();
+        Node document = parser.parse(markdown);
+        HtmlRenderer renderer = HtmlRenderer.builder().build();
+        return renderer.render(document);
+    }
+
+    @Benchmark
+    public String convertWithSharedConverter() throws IOException {
+        return converter.convert(new StringReader(markdown));
+    }
+}
@@ -0,0 +1,75 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+import java.awt.AWTEvent;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.event.WindowEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Starts an application and reports when the main method is reached, and
+ * when the application opens its first window. The application is stopped
+ * once its first window has been opened. Applications that cannot open a
+ * window are stopped once their main method returns. This class is
+ * compiled by the startup benchmark for the Java version of the runtime
+ * being measured, and is not part of the plugin itself.
+ */
+public class StartupMarker {
+
+    private static final String PREFIX = "[startup-marker] ";
+
+    public static void main(String[] args) throws Throwable {
+        report("main");
+
+        // The window listener is only installed if the runtime includes
+        // AWT, so that the marker also works with a minimal runtime.
+        boolean watchFrames = ModuleLayer.boot().findModule("java.desktop").isPresent() &&
+            FrameWatcher.start();
+
+        Class<?> mainClass = Class.forName(args[0]);
+        Method main = mainClass.getMethod("main", String[].class);
+
+        try {
+            main.invoke(null, (Object) Arrays.copyOfRange(args, 1, args.length));
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        // Without a window there is nothing left to measure, so the
+        // application is stopped even if it started other threads.
+        if (!watchFrames) {
+            System.exit(0);
+        }
+    }
+
+    private static void report(String event) {
+        Instant now = Instant.now();
+        long timestamp = now.getEpochSecond() * 1_000_000L + now.getNano() / 1000L;
+        System.out.println(PREFIX + event + " " + timestamp);
+        System.out.flush();
+    }
+
+    private static class FrameWatcher {
+
+        public static boolean start() {
+            if (GraphicsEnvironment.isHeadless()) {
+                return false;
+            }
+
+            Toolkit.getDefaultToolkit().addAWTEventListener(event -> {
+                if (event.getID() == WindowEvent.WINDOW_OPENED) {
+                    report("frame");
+                    System.exit(0);
+                }
+            }, AWTEvent.WINDOW_EVENT_MASK);
+            return true;
+        }
+    }
+}
@@ -4,23 +4,245 @@
 
 const CACHE_NAME = "{{cacheName}}";
 
-const RESOURCE_FILES = [
-    "/",
-    {{resourceFiles}}
+const PRECACHE_MANIFEST = [
+    {{precacheManifest}}
 ];
 
+const ROUTES = [
+    {{routes}}
+];
+
+const RUNTIME_CACHE_PREFIX = CACHE_NAME + "-runtime-";
+
+// Files are stored using their revision as part of the cache key, so a
+// new version of the service worker only needs to download the files
+// that have actually changed since the previous version.
+const PRECACHE_KEYS = new Map(PRECACHE_MANIFEST.map(entry => {
+    const path = new URL(entry.url, self.location).pathname;
+    return [path, path + "?__revision=" + entry.revision];
+}));
+
 self.addEventListener("install", event => {
     event.waitUntil(
-        caches.open(CACHE_NAME).then(cache => {
-            return cache.addAll(RESOURCE_FILES);
-        })
+        caches.open(CACHE_NAME)
+            .then(cache => Promise.all(Array.from(PRECACHE_KEYS, ([path, cacheKey]) => {
+                return precache(cache, path, cacheKey);
+            })))
+            .then(() => self.skipWaiting())
     );
 });
 
-self.addEventListener("fetch", event => {
-    event.respondWith(
-        fetch(event.request).catch(() => {
-            return caches.match(event.request);
-        })
+self.addEventListener("activate", event => {
+    const currentKeys = new Set(Array.from(PRECACHE_KEYS.values(), cacheKey => {
+        return new URL(cacheKey, self.location).href;
+    }));
+
+    const currentRuntimeCaches = new Set(ROUTES.flatMap(route => {
+        return [getRuntimeCacheName(route), getTimestampCacheName(route)];
+    }));
+
+    event.waitUntil(
+        caches.open(CACHE_NAME)
+            .then(cache => cache.keys().then(requests => Promise.all(requests
+                .filter(request => !currentKeys.has(request.url))
+                .map(request => cache.delete(request)))))
+            .then(() => caches.keys())
+            .then(cacheNames => Promise.all(cacheNames
+                .filter(name => name.startsWith(RUNTIME_CACHE_PREFIX))
+                .filter(name => !currentRuntimeCaches.has(name))
+                .map(name => caches.delete(name))))
+            .then(() => self.clients.claim())
     );
 });
+
+self.addEventListener("fetch", event => {
+    const cacheKey = lookupPrecacheKey(event.request);
+    const route = cacheKey ? null : lookupRoute(event.request);
+
+    if (cacheKey) {
+        event.respondWith(
+            caches.open(CACHE_NAME)
+                .then(cache => cache.match(cacheKey))
+                .then(response => response || fetch(event.request))
+        );
+    } else if (route) {
+        event.respondWith(handleRoute(route, event));
+    } else {
+        event.respondWith(
+            fetch(event.request).catch(() => {
+                return caches.match(event.request);
+            })
+        );
+    }
+});
+
+function precache(cache, path, cacheKey) {
+    return cache.match(cacheKey).then(cached => {
+        if (cached) {
+            return;
+        }
+
+        return fetch(path, {cache: "reload"}).then(response => {
+            if (!response.ok) {
+                throw new Error("Failed to precache " + path + ": " + response.status);
+            }
+            return cache.put(cacheKey, response);
+        });
+    });
+}
+
+function lookupPrecacheKey(request) {
+    const url = new URL(request.url);
+
+    if (request.method !== "GET" || url.origin !== self.location.origin) {
+        return null;
+    }
+
+    const path = url.pathname.endsWith("/") ? url.pathname + "index.html" : url.pathname;
+    return PRECACHE_KEYS.get(path);
+}
+
+function lookupRoute(request) {
+    if (request.method !== "GET") {
+        return null;
+    }
+    return ROUTES.find(route => route.pattern.test(request.url));
+}
+
+function handleRoute(route, event) {
+    switch (route.strategy) {
+        case "cache-first":
+            return cacheFirst(route, event.request);
+        case "stale-while-revalidate":
+            return staleWhileRevalidate(route, event);
+        case "network-first":
+            return networkFirst(route, event.request);
+        default:
+            return fetch(event.request);
+    }
+}
+
+function cacheFirst(route, request) {
+    return readRuntimeCache(route, request).then(cached => {
+        return cached || fetchAndCache(route, request);
+    });
+}
+
+function staleWhileRevalidate(route, event) {
+    const update = fetchAndCache(route, event.request);
+    event.waitUntil(update.catch(() => null));
+
+    return readRuntimeCache(route, event.request).then(cached => {
+        return cached || update;
+    });
+}
+
+function networkFirst(route, request) {
+    const network = fetchAndCache(route, request);
+    const fallback = () => readRuntimeCache(route, request).then(cached => {
+        return cached || Response.error();
+    });
+
+    if (route.timeout <= 0) {
+        return network.catch(fallback);
+    }
+
+    // When the network is slow, the cached response is used once the
+    // timeout expires. The request continues in the background, so the
+    // cache is still updated once the response arrives.
+    const timeout = new Promise(resolve => setTimeout(resolve, route.timeout * 1000))
+        .then(() => readRuntimeCache(route, request))
+        .then(cached => cached || network);
+
+    return Promise.race([network, timeout]).catch(fallback);
+}
+
+function fetchAndCache(route, request) {
+    return fetch(request).then(response => {
+        if (response.ok || response.type === "opaque") {
+            const copy = response.clone();
+            writeRuntimeCache(route, request, copy);
+        }
+        return response;
+    });
+}
+
+function readRuntimeCache(route, request) {
+    return caches.open(getRuntimeCacheName(route))
+        .then(cache => cache.match(request))
+        .then(cached => {
+            if (!cached || route.maxAge <= 0) {
+                return cached;
+            }
+
+            return readTimestamp(route, request.url).then(timestamp => {
+                return isExpired(route, timestamp) ? undefined : cached;
+            });
+        });
+}
+
+function writeRuntimeCache(route, request, response) {
+    const timestamp = new Response(String(Date.now()));
+
+    return caches.open(getRuntimeCacheName(route))
+        .then(cache => cache.put(request, response))
+        .then(() => caches.open(getTimestampCacheName(route)))
+        .then(cache => cache.put(request.url, timestamp))
+        .then(() => evictRuntimeCache(route))
+        .catch(() => null);
+}
+
+/**
+ * Removes entries that are older than the route's maximum age. If the cache
+ * still contains more entries than the route's maximum, the least recently
+ * updated entries are removed.
+ */
+function evictRuntimeCache(route) {
+    if (route.maxEntries <= 0 && route.maxAge <= 0) {
+        return Promise.resolve();
+    }
+
+    return caches.open(getTimestampCacheName(route))
+        .then(cache => cache.keys())
+        .then(requests => Promise.all(requests.map(request => {
+            return readTimestamp(route, request.url).then(timestamp => {
+                return {url: request.url, timestamp: timestamp};
+            });
+        })))
+        .then(entries => {
+            entries.sort((a, b) => b.timestamp - a.timestamp);
+
+            const evicted = entries.filter((entry, index) => {
+                const overLimit = route.maxEntries > 0 && index >= route.maxEntries;
+                return overLimit || isExpired(route, entry.timestamp);
+            });
+
+            return Promise.all(evicted.map(entry => deleteRuntimeCacheEntry(route, entry.url)));
+        });
+}
+
+function deleteRuntimeCacheEntry(route, url) {
+    return caches.open(getRuntimeCacheName(route))
+        .then(cache => cache.delete(url))
+        .then(() => caches.open(getTimestampCacheName(route)))
+        .then(cache => cache.delete(url));
+}
+
+function readTimestamp(route, url) {
+    return caches.open(getTimestampCacheName(route))
+        .then(cache => cache.match(url))
+        .then(response => response ? response.text() : "0")
+        .then(text => parseInt(text));
+}
+
+function isExpired(route, timestamp) {
+    return route.maxAge > 0 && Date.now() - timestamp > route.maxAge * 1000;
+}
+
+function getRuntimeCacheName(route) {
+    return RUNTIME_CACHE_PREFIX + route.id;
+}
+
+function getTimestampCacheName(route) {
+    return RUNTIME_CACHE_PREFIX + route.id + "-timestamps";
+}
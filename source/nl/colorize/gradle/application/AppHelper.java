@@ -7,17 +7,28 @@
 package nl.colorize.gradle.application;
 
 import org.gradle.api.Project;
-import org.gradle.api.UnknownTaskException;
-import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.provider.Provider;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -31,8 +42,12 @@ public class AppHelper {
     private AppHelper() {
     }
 
+    public static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("windows");
+    }
+
     public static void requireWindows() {
-        if (!System.getProperty("os.name").toLowerCase().contains("windows")) {
+        if (!isWindows()) {
             throw new UnsupportedOperationException("This task can only be used on Windows");
         }
     }
@@ -48,8 +63,22 @@ public class AppHelper {
     }
 
     public static File getLibsDir(Project project) {
+        return getLibsDir(project.getBuildDir());
+    }
+
+    public static File getLibsDir(File buildDir) {
         // Gradle 7 and higher no longer have the libsDir property.
-        return new File(project.getBuildDir(), "libs");
+        return new File(buildDir, "libs");
+    }
+
+    /**
+     * Returns true if the file is a JAR file that should be included in the
+     * application's class path. Source and documentation JAR files that are
+     * produced by the build are excluded.
+     */
+    public static boolean isClassPathEntry(File file) {
+        String name = file.getName();
+        return name.endsWith(".jar") && !name.endsWith("-sources.jar") && !name.endsWith("-javadoc.jar");
     }
 
     public static void check(boolean condition, String message) {
@@ -77,9 +106,18 @@ public class AppHelper {
     }
 
     public static File getOutputDir(Project project, String name) {
-        File outputDir = new File(project.getBuildDir().getAbsolutePath() + "/" + name);
-        if (!project.getBuildDir().exists()) {
-            project.getBuildDir().mkdir();
+        return getOutputDir(project.getBuildDir(), name);
+    }
+
+    /**
+     * Returns the output directory with the specified name, creating it if it
+     * does not exist yet. This version takes the build directory rather than
+     * the project, so that it can be used while executing tasks.
+     */
+    public static File getOutputDir(File buildDir, String name) {
+        File outputDir = new File(buildDir.getAbsolutePath() + "/" + name);
+        if (!buildDir.exists()) {
+            buildDir.mkdir();
         }
         if (!outputDir.exists()) {
             outputDir.mkdir();
@@ -147,13 +185,182 @@ public class AppHelper {
         return template;
     }
 
-    public static boolean hasShadowJarPlugin(Project project) {
-        TaskContainer tasks = project.getTasks();
+    /**
+     * Returns the SHA-256 hash of the specified contents, as a hex string.
+     * Used for detecting changes to files between builds.
+     */
+    public static String hash(byte[] contents) {
         try {
-            tasks.getByName("shadowJar");
-            return true;
-        } catch (UnknownTaskException e) {
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contents));
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException("SHA-256 not supported", e);
         }
     }
+
+    public static String hash(String contents) {
+        return hash(contents.getBytes(UTF_8));
+    }
+
+    /**
+     * Returns the SHA-256 hash of the file's contents. The file is streamed
+     * through the digest, so it does not need to be loaded into memory.
+     */
+    public static String hash(File file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int length = stream.read(buffer);
+            while (length != -1) {
+                digest.update(buffer, 0, length);
+                length = stream.read(buffer);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException("SHA-256 not supported", e);
+        }
+    }
+
+    /**
+     * Applies the specified task to every item, using a pool with the
+     * specified number of worker threads. The results are returned in the
+     * same order as the items, regardless of the order in which the workers
+     * finish. If the task fails for one or more items, the failures are
+     * collected and reported together once all items have been processed.
+     */
+    public static <T, R> List<R> mapParallel(List<T> items, int workers, ParallelTask<T, R> task) {
+        check(workers >= 1, "Invalid number of workers: " + workers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, items.size() + 1));
+        List<Future<R>> futures = new ArrayList<>();
+        List<R> results = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        List<Throwable> causes = new ArrayList<>();
+
+        try {
+            for (T item : items) {
+                futures.add(executor.submit(() -> task.apply(item)));
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    failures.add(items.get(i) + ": " + e.getCause().getMessage());
+                    causes.add(e.getCause());
+                    results.add(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for workers", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        reportFailures(failures, causes, items.size());
+        return results;
+    }
+
+    /**
+     * Applies the specified task to every item, similar to
+     * {@link #mapParallel(List, int, ParallelTask)}, but without holding all
+     * items and results in memory. Items are only requested from the iterator
+     * once a worker is available, with at most two items per worker in
+     * progress at the same time. The results are passed to the consumer on
+     * the calling thread, in the order in which the workers finish.
+     */
+    public static <T, R> void forEachParallel(Iterator<T> items, int workers, ParallelTask<T, R> task,
+                                              BiConsumer<T, R> consumer) {
+        check(workers >= 1, "Invalid number of workers: " + workers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CompletionService<Completion<T, R>> completionService = new ExecutorCompletionService<>(executor);
+        int maxInProgress = workers * 2;
+        int inProgress = 0;
+        int count = 0;
+        List<String> failures = new ArrayList<>();
+        List<Throwable> causes = new ArrayList<>();
+
+        try {
+            while (items.hasNext() || inProgress > 0) {
+                if (items.hasNext() && inProgress < maxInProgress) {
+                    T item = items.next();
+                    completionService.submit(() -> {
+                        try {
+                            return new Completion<>(item, task.apply(item), null);
+                        } catch (Exception e) {
+                            return new Completion<>(item, null, e);
+                        }
+                    });
+                    inProgress++;
+                    count++;
+                } else {
+                    Completion<T, R> completion = completionService.take().get();
+                    inProgress--;
+
+                    if (completion.error() == null) {
+                        consumer.accept(completion.item(), completion.result());
+                    } else {
+                        failures.add(completion.item() + ": " + completion.error().getMessage());
+                        causes.add(completion.error());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for workers", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        reportFailures(failures, causes, count);
+    }
+
+    private static void reportFailures(List<String> failures, List<Throwable> causes, int total) {
+        if (!causes.isEmpty()) {
+            String message = failures.size() + " of " + total + " failed:\n    " +
+                String.join("\n    ", failures);
+            RuntimeException error = new RuntimeException(message, causes.getFirst());
+            causes.stream().skip(1).forEach(error::addSuppressed);
+            throw error;
+        }
+    }
+
+    /**
+     * Returns a provider for the specified configuration section, which will
+     * validate the configuration when the provider is queried. Tasks derive
+     * their properties from this provider, so the configuration is validated
+     * once the task's inputs are needed, rather than when the plugin is
+     * applied and the configuration is not yet complete.
+     */
+    public static <T extends Validatable> Provider<T> validated(Project project, T config) {
+        return project.provider(() -> {
+            config.validate();
+            return config;
+        });
+    }
+
+    /**
+     * Returns true if the project contains a {@code shadowJar} task. This only
+     * checks the task names, so that it does not cause the tasks to be created
+     * when they have been registered lazily.
+     */
+    public static boolean hasShadowJarPlugin(Project project) {
+        return project.getTasks().getNames().contains("shadowJar");
+    }
+
+    /**
+     * Work performed for a single item by {@link #mapParallel(List, int, ParallelTask)}.
+     */
+    @FunctionalInterface
+    public interface ParallelTask<T, R> {
+
+        public R apply(T item) throws Exception;
+    }
+
+    private record Completion<T, R>(T item, R result, Exception error) {
+    }
 }
@@ -6,6 +6,8 @@
 
 package nl.colorize.gradle.application;
 
+import nl.colorize.gradle.application.benchmark.BenchmarkStartupTask;
+import nl.colorize.gradle.application.benchmark.StartupBenchmarkExt;
 import nl.colorize.gradle.application.icon.AppIconExt;
 import nl.colorize.gradle.application.icon.GenerateAppIconsTask;
 import nl.colorize.gradle.application.macapplicationbundle.CreateApplicationBundleTask;
@@ -14,7 +16,9 @@ import nl.colorize.gradle.application.macapplicationbundle.PackageApplicationBun
 import nl.colorize.gradle.application.macapplicationbundle.SignApplicationBundleTask;
 import nl.colorize.gradle.application.pwa.GeneratePwaTask;
 import nl.colorize.gradle.application.pwa.PwaExt;
+import nl.colorize.gradle.application.staticsite.DryRunStaticSiteTask;
 import nl.colorize.gradle.application.staticsite.GenerateStaticSiteTask;
+import nl.colorize.gradle.application.staticsite.ServeStaticSiteTask;
 import nl.colorize.gradle.application.staticsite.StaticSiteExt;
 import nl.colorize.gradle.application.windowsexe.PackageWindowsStandaloneTask;
 import nl.colorize.gradle.application.windowsexe.WindowsStandaloneExt;
@@ -24,8 +28,10 @@ import nl.colorize.gradle.application.xcode.XcodeGenExt;
 import nl.colorize.gradle.application.xcode.XcodeGenTask;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
 
 /**
  * Main entry poin for the plugin. This is essentially different plugins rolled
@@ -37,6 +43,7 @@ public class ApplicationPlugin implements Plugin<Project> {
     public void apply(Project project) {
         configureMacApplicationBundle(project);
         configureWindows(project);
+        configureStartupBenchmark(project);
         configureXcodeGen(project);
         configurePWA(project);
         configureStaticSite(project);
@@ -45,68 +52,105 @@ public class ApplicationPlugin implements Plugin<Project> {
 
     private void configureMacApplicationBundle(Project project) {
         ExtensionContainer ext = project.getExtensions();
-        ext.create("macApplicationBundle", MacApplicationBundleExt.class);
+        MacApplicationBundleExt config = ext.create("macApplicationBundle", MacApplicationBundleExt.class);
 
         TaskContainer tasks = project.getTasks();
-        tasks.create("createApplicationBundle", CreateApplicationBundleTask.class);
-        tasks.create("signApplicationBundle", SignApplicationBundleTask.class);
-        tasks.create("packageApplicationBundle", PackageApplicationBundleTask.class);
-
-        tasks.getByName("signApplicationBundle").dependsOn(tasks.getByName("createApplicationBundle"));
-        tasks.getByName("createApplicationBundle").dependsOn("jar");
-        tasks.getByName("packageApplicationBundle").dependsOn("jar");
-        if (AppHelper.hasShadowJarPlugin(project)) {
-            tasks.getByName("createApplicationBundle").dependsOn("shadowJar");
-            tasks.getByName("packageApplicationBundle").dependsOn("shadowJar");
-        }
+        TaskProvider<CreateApplicationBundleTask> createApplicationBundle = tasks.register(
+            "createApplicationBundle", CreateApplicationBundleTask.class, task -> {
+                task.configure(project, config);
+                dependOnJar(project, task);
+            });
+
+        tasks.register("signApplicationBundle", SignApplicationBundleTask.class, task -> {
+            task.configure(project, config);
+            task.dependsOn(createApplicationBundle);
+        });
+
+        tasks.register("packageApplicationBundle", PackageApplicationBundleTask.class, task -> {
+            task.configure(project, config);
+            dependOnJar(project, task);
+        });
     }
 
     private void configureWindows(Project project) {
         ExtensionContainer ext = project.getExtensions();
-        ext.create("msi", WindowsInstallerExt.class);
-        ext.create("exe", WindowsStandaloneExt.class);
+        MacApplicationBundleExt macConfig = ext.getByType(MacApplicationBundleExt.class);
+        WindowsInstallerExt msiConfig = ext.create("msi", WindowsInstallerExt.class);
+        WindowsStandaloneExt exeConfig = ext.create("exe", WindowsStandaloneExt.class);
 
         TaskContainer tasks = project.getTasks();
-        tasks.create("packageMSI", PackageMSITask.class);
-        tasks.create("packageEXE", PackageWindowsStandaloneTask.class);
 
-        tasks.getByName("packageMSI").dependsOn("jar");
-        tasks.getByName("packageEXE").dependsOn("jar");
-        if (AppHelper.hasShadowJarPlugin(project)) {
-            tasks.getByName("packageMSI").dependsOn("shadowJar");
-            tasks.getByName("packageEXE").dependsOn("shadowJar");
-        }
+        tasks.register("packageMSI", PackageMSITask.class, task -> {
+            task.configure(project, msiConfig, macConfig);
+            dependOnJar(project, task);
+        });
+
+        tasks.register("packageEXE", PackageWindowsStandaloneTask.class, task -> {
+            task.configure(project, exeConfig, macConfig);
+            dependOnJar(project, task);
+        });
+    }
+
+    private void configureStartupBenchmark(Project project) {
+        ExtensionContainer ext = project.getExtensions();
+        MacApplicationBundleExt macConfig = ext.getByType(MacApplicationBundleExt.class);
+        WindowsStandaloneExt exeConfig = ext.getByType(WindowsStandaloneExt.class);
+        StartupBenchmarkExt config = ext.create("startupBenchmark", StartupBenchmarkExt.class);
+
+        TaskContainer tasks = project.getTasks();
+        tasks.register("benchmarkStartup", BenchmarkStartupTask.class, task -> {
+            task.configure(project, config, macConfig, exeConfig);
+            dependOnJar(project, task);
+        });
     }
 
     private void configureXcodeGen(Project project) {
         ExtensionContainer ext = project.getExtensions();
-        ext.create("xcode", XcodeGenExt.class);
+        XcodeGenExt config = ext.create("xcode", XcodeGenExt.class);
 
         TaskContainer tasks = project.getTasks();
-        tasks.create("xcodeGen", XcodeGenTask.class);
+        tasks.register("xcodeGen", XcodeGenTask.class, task -> task.configure(project, config));
     }
 
     private void configurePWA(Project project) {
         ExtensionContainer ext = project.getExtensions();
-        ext.create("pwa", PwaExt.class);
+        PwaExt config = ext.create("pwa", PwaExt.class);
 
         TaskContainer tasks = project.getTasks();
-        tasks.create("generatePWA", GeneratePwaTask.class);
+        tasks.register("generatePWA", GeneratePwaTask.class, task -> task.configure(project, config));
     }
 
     private void configureStaticSite(Project project) {
         ExtensionContainer ext = project.getExtensions();
-        ext.create("staticSite", StaticSiteExt.class);
+        StaticSiteExt config = ext.create("staticSite", StaticSiteExt.class);
 
         TaskContainer tasks = project.getTasks();
-        tasks.create("generateStaticSite", GenerateStaticSiteTask.class);
+        tasks.register("generateStaticSite", GenerateStaticSiteTask.class,
+            task -> task.configure(project, config));
+        tasks.register("serveStaticSite", ServeStaticSiteTask.class,
+            task -> task.configure(project, config));
+        tasks.register("dryRunStaticSite", DryRunStaticSiteTask.class,
+            task -> task.configure(project, config));
     }
 
     private void configureAppIcon(Project project) {
         ExtensionContainer ext = project.getExtensions();
-        ext.create("appIcon", AppIconExt.class);
+        AppIconExt config = ext.create("appIcon", AppIconExt.class);
 
         TaskContainer tasks = project.getTasks();
-        tasks.create("generateAppIcons", GenerateAppIconsTask.class);
+        tasks.register("generateAppIcons", GenerateAppIconsTask.class,
+            task -> task.configure(project, config));
+    }
+
+    /**
+     * Packaging tasks depend on the JAR file, or on the shadow JAR if the
+     * project uses the Shadow plugin. This is checked when the task is
+     * created, since the Shadow plugin might be applied after this plugin.
+     */
+    private void dependOnJar(Project project, Task task) {
+        task.dependsOn("jar");
+        if (AppHelper.hasShadowJarPlugin(project)) {
+            task.dependsOn("shadowJar");
+        }
     }
 }
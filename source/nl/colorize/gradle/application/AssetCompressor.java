@@ -0,0 +1,305 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Writes precompressed variants of the files in a generated website, so
+ * that web servers and CDNs can serve the compressed files directly instead
+ * of compressing every response. The variants are stored next to the
+ * original file, e.g. {@code index.html.gz} and {@code index.html.br}.
+ * Only text formats are compressed, and files that are too small to benefit
+ * from compression are skipped. A variant is also not written if it would
+ * not be smaller than the original. This decision can be recorded in a state
+ * file, so that the file is not compressed again until it has changed.
+ * <p>
+ * gzip compression is done in-process, and the result is always the same
+ * for the same input. The JDK does not include a Brotli encoder, so Brotli
+ * compression uses the {@code brotli} command line tool, which needs to be
+ * available from the {@code PATH}.
+ */
+public class AssetCompressor {
+
+    private List<String> formats;
+    private int minSize;
+    private int workers;
+
+    public static final List<String> FORMATS = List.of("gzip", "brotli");
+
+    private static final List<String> TEXT_EXTENSIONS = List.of(
+        "html", "css", "js", "json", "svg", "txt", "xml", "webmanifest");
+    private static final String SEPARATOR = "\t";
+
+    private static final String BROTLI_COMMAND = "brotli";
+
+    public AssetCompressor(List<String> formats, int minSize, int workers) {
+        formats.forEach(format -> AppHelper.check(FORMATS.contains(format),
+            "Unknown compression format: " + format));
+
+        this.formats = List.copyOf(formats);
+        this.minSize = minSize;
+        this.workers = workers;
+    }
+
+    /**
+     * Writes precompressed variants for all files in the specified directory,
+     * and returns the number of variants that were written. Variants that are
+     * newer than the original file are retained, so unchanged files are not
+     * compressed again during incremental builds. Variants for formats that
+     * are no longer enabled are removed.
+     */
+    public int compress(File dir) throws IOException {
+        return compress(dir, null);
+    }
+
+    /**
+     * Writes precompressed variants for all files in the specified directory,
+     * and records which variants were not written because they would not be
+     * smaller than the original. Those files are not compressed again until
+     * they have been modified. The state file can be {@code null}, in which
+     * case nothing is recorded.
+     */
+    public int compress(File dir, File stateFile) throws IOException {
+        if (formats.contains("brotli")) {
+            checkBrotli();
+        }
+
+        Map<String, Long> previous = loadState(stateFile);
+        Map<String, Long> skipped = new ConcurrentHashMap<>();
+
+        List<File> files = AppHelper.walk(dir, file -> file.isFile() && isCompressible(file));
+        List<Integer> written = AppHelper.mapParallel(files, workers, file -> {
+            String path = dir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+            return compressFile(file, path, previous, skipped);
+        });
+
+        saveState(stateFile, skipped);
+        return written.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private int compressFile(File file, String path, Map<String, Long> previous, Map<String, Long> skipped)
+            throws IOException {
+        int written = 0;
+
+        for (String format : FORMATS) {
+            File variant = getVariantFile(file, format);
+            String key = path + SEPARATOR + format;
+
+            if (!formats.contains(format) || file.length() < minSize) {
+                Files.deleteIfExists(variant.toPath());
+            } else if (previous.getOrDefault(key, -1L) == file.lastModified()) {
+                skipped.put(key, file.lastModified());
+            } else if (!isUpToDate(file, variant)) {
+                boolean smaller = format.equals("gzip") ?
+                    writeGzip(file, variant) : writeBrotli(file, variant);
+                if (smaller) {
+                    written++;
+                } else {
+                    skipped.put(key, file.lastModified());
+                }
+            }
+        }
+
+        return written;
+    }
+
+    private Map<String, Long> loadState(File stateFile) throws IOException {
+        Map<String, Long> state = new HashMap<>();
+        if (stateFile == null || !stateFile.exists()) {
+            return state;
+        }
+
+        for (String line : Files.readAllLines(stateFile.toPath(), UTF_8)) {
+            String[] fields = line.split(SEPARATOR, -1);
+            if (fields.length == 3) {
+                state.put(fields[0] + SEPARATOR + fields[1], Long.parseLong(fields[2]));
+            }
+        }
+
+        return state;
+    }
+
+    private void saveState(File stateFile, Map<String, Long> skipped) throws IOException {
+        if (stateFile == null) {
+            return;
+        }
+
+        List<String> lines = new TreeMap<>(skipped).entrySet().stream()
+            .map(entry -> entry.getKey() + SEPARATOR + entry.getValue())
+            .toList();
+        Files.createDirectories(stateFile.getParentFile().toPath());
+        Files.write(stateFile.toPath(), lines, UTF_8);
+    }
+
+    private boolean writeGzip(File file, File variant) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new BestCompressionGZIPOutputStream(buffer)) {
+            Files.copy(file.toPath(), gzip);
+        }
+
+        if (buffer.size() >= file.length()) {
+            Files.deleteIfExists(variant.toPath());
+            return false;
+        }
+
+        Files.write(variant.toPath(), buffer.toByteArray());
+        return true;
+    }
+
+    private boolean writeBrotli(File file, File variant) throws IOException {
+        Path tempFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+
+        try {
+            exec(BROTLI_COMMAND, "--force", "--quality=11", "--output=" + tempFile, file.getAbsolutePath());
+
+            if (Files.size(tempFile) >= file.length()) {
+                Files.deleteIfExists(variant.toPath());
+                return false;
+            }
+
+            Files.move(tempFile, variant.toPath(), REPLACE_EXISTING);
+            return true;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns a description of the external tools that are used for the
+     * formats provided by {@code formats}. Different versions of those tools
+     * can produce different output, so tasks should consider this as an
+     * input. gzip compression is done in-process, so it does not contribute.
+     * If Brotli compression is enabled but the {@code brotli} tool cannot be
+     * found, the description is empty. This does not fail the build until
+     * the task actually needs to compress files.
+     */
+    public static Provider<String> getToolVersion(ProviderFactory providers,
+                                                  Provider<List<String>> formats) {
+        Provider<String> brotliVersion = providers.of(BrotliVersionSource.class, spec -> {});
+        Provider<String> none = providers.provider(() -> "");
+        return formats.flatMap(list -> list.contains("brotli") ? brotliVersion : none);
+    }
+
+    /**
+     * Checks that the external tools required by the specified formats are
+     * available, using the tool version description obtained from
+     * {@link #getToolVersion(ProviderFactory, Provider)}.
+     *
+     * @throws IllegalArgumentException if a required tool is not available.
+     */
+    public static void checkToolVersion(List<String> formats, String toolVersion, String property) {
+        AppHelper.check(!formats.contains("brotli") || !toolVersion.isEmpty(),
+            property + " contains brotli, but the brotli command line tool is not available");
+    }
+
+    private static void checkBrotli() {
+        try {
+            exec(BROTLI_COMMAND, "--version");
+        } catch (IOException e) {
+            throw new IllegalStateException("Brotli compression requires the brotli command line tool", e);
+        }
+    }
+
+    private static String exec(String... command) throws IOException {
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .start();
+
+        try {
+            String output = new String(process.getInputStream().readAllBytes(), UTF_8);
+            if (process.waitFor() != 0) {
+                throw new IOException(command[0] + " failed: " + output.trim());
+            }
+            return output.trim();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + command[0], e);
+        }
+    }
+
+    private boolean isCompressible(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        String extension = name.contains(".") ? name.substring(name.lastIndexOf('.') + 1) : "";
+        return TEXT_EXTENSIONS.contains(extension);
+    }
+
+    private boolean isUpToDate(File file, File variant) {
+        return variant.exists() && variant.lastModified() >= file.lastModified();
+    }
+
+    public static File getVariantFile(File file, String format) {
+        String extension = format.equals("gzip") ? ".gz" : ".br";
+        return new File(file.getParentFile(), file.getName() + extension);
+    }
+
+    /**
+     * Obtains the version of the {@code brotli} command line tool. This is
+     * done through Gradle so that it is compatible with the configuration
+     * cache. Returns an empty string if the tool is not available.
+     */
+    public abstract static class BrotliVersionSource
+            implements ValueSource<String, ValueSourceParameters.None> {
+
+        @Inject
+        protected abstract ExecOperations getExecOperations();
+
+        @Override
+        public String obtain() {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            try {
+                ExecResult result = getExecOperations().exec(spec -> {
+                    spec.commandLine(BROTLI_COMMAND, "--version");
+                    spec.setStandardOutput(output);
+                    spec.setErrorOutput(OutputStream.nullOutputStream());
+                    spec.setIgnoreExitValue(true);
+                });
+                return result.getExitValue() == 0 ? output.toString(UTF_8).trim() : "";
+            } catch (GradleException e) {
+                return "";
+            }
+        }
+    }
+
+    /**
+     * gzip stream that uses the highest compression level, since the file is
+     * compressed once and then served many times.
+     */
+    private static class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+
+        public BestCompressionGZIPOutputStream(OutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
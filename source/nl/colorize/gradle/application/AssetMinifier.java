@@ -0,0 +1,391 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Removes comments and redundant whitespace from HTML, CSS, and JavaScript.
+ * The minification is intentionally conservative: it only removes characters
+ * that can never change how the browser interprets the file. Whitespace in
+ * HTML is collapsed but not removed between inline elements, and line breaks
+ * in JavaScript are retained so that automatic semicolon insertion keeps
+ * working. This does not compete with dedicated minifiers, but avoids
+ * sending indentation and comments to every visitor without the risk of
+ * breaking the site.
+ * <p>
+ * Instances can be shared between worker threads. The number of bytes saved
+ * is accumulated for all files that were minified using the same instance.
+ */
+public class AssetMinifier {
+
+    private AtomicLong bytesSaved;
+
+    private static final Set<String> PRESERVE_WHITESPACE_TAGS = Set.of("pre", "textarea", "script", "style");
+    private static final Set<String> SCRIPT_TYPES = Set.of("", "text/javascript", "application/javascript",
+        "module");
+    private static final Set<String> REGEX_KEYWORDS = Set.of("return", "typeof", "instanceof", "in", "of",
+        "new", "delete", "void", "throw", "case", "do", "else", "yield", "await");
+    private static final String REGEX_PRECEDING_CHARS = "(,=:[!&|?{};+-*%<>~^";
+    private static final String CSS_PUNCTUATION = "{};,>";
+
+    public AssetMinifier() {
+        this.bytesSaved = new AtomicLong(0L);
+    }
+
+    /**
+     * Returns true if files with the specified name can be minified. Files
+     * that have already been minified by another tool are skipped.
+     */
+    public boolean isMinifiable(String fileName) {
+        if (fileName.endsWith(".min.js") || fileName.endsWith(".min.css")) {
+            return false;
+        }
+        return fileName.endsWith(".html") || fileName.endsWith(".css") || fileName.endsWith(".js");
+    }
+
+    /**
+     * Minifies the contents of a file, using the file name to determine the
+     * file type. Returns the original contents for unsupported file types.
+     */
+    public String minify(String fileName, String contents) {
+        String minified = contents;
+
+        if (!isMinifiable(fileName)) {
+            return contents;
+        } else if (fileName.endsWith(".html")) {
+            minified = minifyHTML(contents);
+        } else if (fileName.endsWith(".css")) {
+            minified = minifyCSS(contents);
+        } else if (fileName.endsWith(".js")) {
+            minified = minifyJS(contents);
+        }
+
+        bytesSaved.addAndGet(contents.getBytes(UTF_8).length - minified.getBytes(UTF_8).length);
+        return minified;
+    }
+
+    /**
+     * Minifies all supported files in the specified directory, using the
+     * specified number of worker threads.
+     */
+    public void minifyDirectory(File dir, int workers) {
+        List<File> files = AppHelper.walk(dir, file -> file.isFile() && isMinifiable(file.getName()));
+        AppHelper.mapParallel(files, workers, file -> {
+            minifyFile(file);
+            return file;
+        });
+    }
+
+    public void minifyFile(File file) throws IOException {
+        String contents = Files.readString(file.toPath(), UTF_8);
+        Files.writeString(file.toPath(), minify(file.getName(), contents), UTF_8);
+    }
+
+    /**
+     * Minifies an HTML document. Documents that do not contain the
+     * {@code <html>} element are treated as fragments, so that they are not
+     * wrapped in a complete document during minification.
+     */
+    private String minifyHTML(String html) {
+        if (!html.contains("<html")) {
+            Document fragment = Jsoup.parseBodyFragment(html);
+            minifyHTML(fragment);
+            return fragment.body().html();
+        }
+
+        Document document = Jsoup.parse(html);
+        minifyHTML(document);
+        return document.outerHtml();
+    }
+
+    /**
+     * Minifies a Jsoup document in place, and disables pretty printing so
+     * that the minified document can be serialized as-is.
+     */
+    public void minifyHTML(Document document) {
+        List<Node> removed = new ArrayList<>();
+        collectRedundantNodes(document, removed);
+        removed.forEach(Node::remove);
+
+        for (Element element : document.select("style")) {
+            element.dataNodes().forEach(node -> node.setWholeData(minifyCSS(node.getWholeData())));
+        }
+
+        for (Element element : document.select("script:not([src])")) {
+            if (SCRIPT_TYPES.contains(element.attr("type").toLowerCase())) {
+                element.dataNodes().forEach(node -> node.setWholeData(minifyJS(node.getWholeData())));
+            }
+        }
+
+        document.outputSettings()
+            .charset(UTF_8)
+            .prettyPrint(false)
+            .outline(false);
+    }
+
+    private void collectRedundantNodes(Node parent, List<Node> removed) {
+        for (Node node : parent.childNodes()) {
+            if (node instanceof Comment comment && !comment.getData().startsWith("[if")) {
+                removed.add(node);
+            } else if (node instanceof TextNode text) {
+                collapseWhitespace(text, removed);
+            } else if (node instanceof Element element &&
+                    !PRESERVE_WHITESPACE_TAGS.contains(element.normalName())) {
+                collectRedundantNodes(element, removed);
+            }
+        }
+    }
+
+    /**
+     * Collapses whitespace in a text node into a single space. Whitespace-only
+     * text nodes are removed entirely when they are outside of the body, or
+     * when they are not adjacent to inline content, since in both cases they
+     * would not be rendered by the browser.
+     */
+    private void collapseWhitespace(TextNode text, List<Node> removed) {
+        String collapsed = text.getWholeText().replaceAll("[ \t\r\n\f]+", " ");
+        String parentTag = text.parent() instanceof Element parent ? parent.normalName() : "";
+
+        if (collapsed.equals(" ") && (text.parent() instanceof Document || parentTag.equals("html") ||
+                parentTag.equals("head"))) {
+            removed.add(text);
+        } else if (collapsed.equals(" ") && isBlockBoundary(text.previousSibling()) &&
+                isBlockBoundary(text.nextSibling()) && isBlockBoundary(text.parent())) {
+            removed.add(text);
+        } else {
+            text.text(collapsed);
+        }
+    }
+
+    private boolean isBlockBoundary(Node node) {
+        if (node == null || node instanceof Document || node instanceof Comment) {
+            return true;
+        }
+        return node instanceof Element element && element.tag().isBlock() &&
+            !element.normalName().equals("script") && !element.normalName().equals("style");
+    }
+
+    /**
+     * Removes comments and redundant whitespace from a CSS stylesheet.
+     * Whitespace is only removed around punctuation, whitespace between
+     * other tokens is reduced to a single space, since it can be significant
+     * (e.g. descendant selectors, or {@code and (} in media queries).
+     */
+    public String minifyCSS(String css) {
+        StringBuilder buffer = new StringBuilder(css.length());
+        boolean pendingSpace = false;
+        int i = 0;
+
+        while (i < css.length()) {
+            char c = css.charAt(i);
+
+            if (c == '/' && css.startsWith("/*", i)) {
+                int end = css.indexOf("*/", i + 2);
+                i = end == -1 ? css.length() : end + 2;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+            } else {
+                char last = buffer.isEmpty() ? '{' : buffer.charAt(buffer.length() - 1);
+                if (pendingSpace && CSS_PUNCTUATION.indexOf(last) == -1 && last != ':' &&
+                        CSS_PUNCTUATION.indexOf(c) == -1) {
+                    buffer.append(' ');
+                }
+                if (c == '}' && last == ';') {
+                    buffer.setLength(buffer.length() - 1);
+                }
+                pendingSpace = false;
+                i = (c == '"' || c == '\'') ? copyString(css, i, buffer) : append(c, i, buffer);
+            }
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Removes comments, indentation, and blank lines from JavaScript. Line
+     * breaks are retained, since removing them could change the meaning of
+     * the code when it relies on automatic semicolon insertion. Strings,
+     * template literals, and regular expression literals are copied as-is.
+     */
+    public String minifyJS(String js) {
+        StringBuilder buffer = new StringBuilder(js.length());
+        boolean pendingSpace = false;
+        boolean pendingNewline = false;
+        int i = 0;
+
+        while (i < js.length()) {
+            char c = js.charAt(i);
+
+            if (c == '/' && js.startsWith("//", i)) {
+                int end = js.indexOf('\n', i);
+                i = end == -1 ? js.length() : end;
+            } else if (c == '/' && js.startsWith("/*", i)) {
+                int end = js.indexOf("*/", i + 2);
+                end = end == -1 ? js.length() : end + 2;
+                pendingNewline |= js.substring(i, end).indexOf('\n') != -1;
+                pendingSpace = true;
+                i = end;
+            } else if (c == '\n' || c == '\r') {
+                pendingNewline = true;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+            } else {
+                if (!buffer.isEmpty() && pendingNewline) {
+                    buffer.append('\n');
+                } else if (!buffer.isEmpty() && pendingSpace && requiresSpace(buffer, c)) {
+                    buffer.append(' ');
+                }
+                pendingSpace = false;
+                pendingNewline = false;
+
+                if (c == '"' || c == '\'') {
+                    i = copyString(js, i, buffer);
+                } else if (c == '`') {
+                    i = copyTemplateLiteral(js, i, buffer);
+                } else if (c == '/' && isRegexAllowed(buffer)) {
+                    i = copyRegex(js, i, buffer);
+                } else {
+                    i = append(c, i, buffer);
+                }
+            }
+        }
+
+        return buffer.toString();
+    }
+
+    private boolean requiresSpace(StringBuilder buffer, char next) {
+        char last = buffer.charAt(buffer.length() - 1);
+        return (isIdentifierChar(last) && isIdentifierChar(next)) ||
+            (Character.isDigit(last) && next == '.') ||
+            (last == '+' && next == '+') ||
+            (last == '-' && next == '-') ||
+            (last == '/' && (next == '/' || next == '*'));
+    }
+
+    /**
+     * Determines whether a slash starts a regular expression literal or is
+     * a division operator, based on the code that precedes it.
+     */
+    private boolean isRegexAllowed(StringBuilder buffer) {
+        if (buffer.isEmpty()) {
+            return true;
+        }
+
+        char last = buffer.charAt(buffer.length() - 1);
+        if (REGEX_PRECEDING_CHARS.indexOf(last) != -1 || last == '\n') {
+            return true;
+        }
+
+        int start = buffer.length();
+        while (start > 0 && isIdentifierChar(buffer.charAt(start - 1))) {
+            start--;
+        }
+        return REGEX_KEYWORDS.contains(buffer.substring(start));
+    }
+
+    private boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '\\' || c > 127;
+    }
+
+    private int append(char c, int i, StringBuilder buffer) {
+        buffer.append(c);
+        return i + 1;
+    }
+
+    private int copyString(String source, int start, StringBuilder buffer) {
+        char quote = source.charAt(start);
+        int i = start + 1;
+
+        while (i < source.length() && source.charAt(i) != quote) {
+            i += source.charAt(i) == '\\' ? 2 : 1;
+        }
+
+        int end = Math.min(i + 1, source.length());
+        buffer.append(source, start, end);
+        return end;
+    }
+
+    /**
+     * Copies a template literal. Expressions within the template can contain
+     * nested strings and template literals, which are also copied as-is.
+     */
+    private int copyTemplateLiteral(String source, int start, StringBuilder buffer) {
+        int i = start + 1;
+        int depth = 0;
+
+        while (i < source.length()) {
+            char c = source.charAt(i);
+
+            if (c == '\\') {
+                i += 2;
+            } else if (depth == 0 && c == '`') {
+                break;
+            } else if (depth == 0 && source.startsWith("${", i)) {
+                depth = 1;
+                i += 2;
+            } else if (depth > 0 && (c == '"' || c == '\'' || c == '`')) {
+                StringBuilder nested = new StringBuilder();
+                i = c == '`' ? copyTemplateLiteral(source, i, nested) : copyString(source, i, nested);
+            } else {
+                depth += (depth > 0 && c == '{') ? 1 : 0;
+                depth -= (depth > 0 && c == '}') ? 1 : 0;
+                i++;
+            }
+        }
+
+        int end = Math.min(i + 1, source.length());
+        buffer.append(source, start, end);
+        return end;
+    }
+
+    private int copyRegex(String source, int start, StringBuilder buffer) {
+        int i = start + 1;
+        boolean characterClass = false;
+
+        while (i < source.length() && source.charAt(i) != '\n') {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                characterClass = true;
+            } else if (c == ']') {
+                characterClass = false;
+            } else if (c == '/' && !characterClass) {
+                break;
+            }
+            i++;
+        }
+
+        int end = Math.min(i + 1, source.length());
+        buffer.append(source, start, end);
+        return end;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+}
@@ -0,0 +1,266 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+
+/**
+ * Creates a class data sharing (CDS) archive for an application, which is
+ * then included with the packaged application to improve startup time. The
+ * archive is created by running the application once in training mode. On
+ * Java 25 and newer this creates an AOT cache, which also includes profiling
+ * information. On older versions it creates a dynamic CDS archive, which
+ * requires the runtime to contain the default CDS archive for the JDK.
+ * <p>
+ * The archive is only valid for the exact runtime it was created with, so
+ * training needs to use the runtime that is included with the application.
+ * The runtime needs to be able to run on the platform that is running the
+ * build. The application needs to exit by itself once training is complete,
+ * since the archive is only written when the JVM exits normally.
+ * <p>
+ * The JVM silently ignores the archive if the class path does not match the
+ * class path used during training. Training should therefore use the same
+ * layout and class path order as the packaged application. After training,
+ * the application is started again with the archive, and the JVM is
+ * instructed to fail if the archive cannot be used.
+ */
+public class ClassDataSharing {
+
+    private File runtime;
+    private List<String> trainingArgs;
+    private int timeout;
+
+    private static final int AOT_CACHE_VERSION = 25;
+    private static final int DEFAULT_TIMEOUT = 120;
+
+    public ClassDataSharing(File runtime, List<String> trainingArgs) {
+        this.runtime = runtime;
+        this.trainingArgs = trainingArgs;
+        this.timeout = DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Runs the application in training mode, and writes the archive to the
+     * specified file. The launch arguments specify how the application
+     * should be started, e.g. {@code -cp app.jar com.example.Main}. If the
+     * runtime does not include the {@code java} launcher, it is temporarily
+     * copied from {@code launcherJDK}, which should be the JDK that was used
+     * to create the runtime. The archive is verified after training, see
+     * {@link #verify(File, List, List, File)}.
+     */
+    public void train(File workDir, List<String> jvmOptions, List<String> launchArgs, File archive,
+                      File launcherJDK) throws IOException {
+        File launcher = getLauncher(runtime);
+        boolean copyLauncher = !launcher.exists();
+
+        if (copyLauncher) {
+            File source = getLauncher(launcherJDK);
+            AppHelper.check(source.exists(), "Java launcher not found: " + source.getAbsolutePath());
+            Files.createDirectories(launcher.getParentFile().toPath());
+            Files.copy(source.toPath(), launcher.toPath(), COPY_ATTRIBUTES);
+        }
+
+        try {
+            Files.deleteIfExists(archive.toPath());
+            run(workDir, getTrainingCommand(launcher, jvmOptions, launchArgs, archive), "Training run");
+            AppHelper.check(archive.exists(), "Training run did not create " + archive.getAbsolutePath());
+            verify(workDir, jvmOptions, launchArgs, archive);
+        } catch (IOException e) {
+            // The JVM also writes the archive when the application exits
+            // with an error, but that archive should not be used.
+            Files.deleteIfExists(archive.toPath());
+            throw e;
+        } finally {
+            if (copyLauncher) {
+                Files.deleteIfExists(launcher.toPath());
+            }
+        }
+    }
+
+    /**
+     * Starts the application using the archive, with the same options and
+     * launch arguments that were used for training. The JVM is instructed to
+     * fail if it cannot use the archive, so this throws an exception if the
+     * archive would be rejected when starting the packaged application.
+     */
+    public void verify(File workDir, List<String> jvmOptions, List<String> launchArgs, File archive)
+            throws IOException {
+        run(workDir, getVerificationCommand(getLauncher(runtime), jvmOptions, launchArgs, archive),
+            "Verification run");
+    }
+
+    /**
+     * Runs the application in training mode for an application image that
+     * was created by {@code jpackage}. The class path, main class, and
+     * options are read from the launcher configuration file in the image's
+     * app directory, so that they match how the launcher will start the
+     * application. The archive is written to the app directory, and the
+     * location of the archive is returned.
+     */
+    public File trainAppImage(File appDir, File launcherJDK) throws IOException {
+        File[] configFiles = appDir.listFiles(file -> file.getName().endsWith(".cfg"));
+        AppHelper.check(configFiles != null && configFiles.length == 1,
+            "Cannot locate launcher configuration in " + appDir.getAbsolutePath());
+
+        List<String> classPath = new ArrayList<>();
+        List<String> jvmOptions = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        String mainClass = null;
+
+        for (String line : Files.readAllLines(configFiles[0].toPath(), UTF_8)) {
+            String value = line.substring(line.indexOf('=') + 1).replace("$APPDIR", appDir.getAbsolutePath());
+
+            if (line.startsWith("app.classpath=")) {
+                classPath.add(value);
+            } else if (line.startsWith("app.mainclass=")) {
+                mainClass = value;
+            } else if (line.startsWith("java-options=") && !isRuntimeOption(value)) {
+                jvmOptions.add(value);
+            } else if (line.startsWith("arguments=")) {
+                args.add(value);
+            }
+        }
+
+        AppHelper.check(mainClass != null, "Missing main class in " + configFiles[0].getAbsolutePath());
+
+        List<String> launchArgs = new ArrayList<>();
+        launchArgs.add("-cp");
+        launchArgs.add(String.join(File.pathSeparator, classPath));
+        launchArgs.add(mainClass);
+        launchArgs.addAll(args);
+
+        File archive = new File(appDir, getArchiveFileName());
+        train(appDir, jvmOptions, launchArgs, archive, launcherJDK);
+        return archive;
+    }
+
+    private boolean isRuntimeOption(String option) {
+        return option.startsWith("-XX:AOTCache=") || option.startsWith("-XX:SharedArchiveFile=");
+    }
+
+    protected List<String> getTrainingCommand(File launcher, List<String> jvmOptions, List<String> launchArgs,
+                                              File archive) {
+        List<String> command = new ArrayList<>();
+        command.add(launcher.getAbsolutePath());
+        command.addAll(jvmOptions);
+        if (isAOTCacheSupported()) {
+            command.add("-XX:AOTCacheOutput=" + archive.getAbsolutePath());
+        } else {
+            command.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+        }
+        command.addAll(launchArgs);
+        command.addAll(trainingArgs);
+        return command;
+    }
+
+    protected List<String> getVerificationCommand(File launcher, List<String> jvmOptions,
+                                                  List<String> launchArgs, File archive) {
+        List<String> command = new ArrayList<>();
+        command.add(launcher.getAbsolutePath());
+        command.addAll(jvmOptions);
+        command.add(getRuntimeOption(archive.getAbsolutePath()));
+        command.add(isAOTCacheSupported() ? "-XX:AOTMode=on" : "-Xshare:on");
+        command.addAll(launchArgs);
+        command.addAll(trainingArgs);
+        return command;
+    }
+
+    private void run(File workDir, List<String> command, String description) throws IOException {
+        File log = File.createTempFile("cds-training-", ".log");
+
+        try {
+            Process process = new ProcessBuilder(command)
+                .directory(workDir)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+
+            if (!process.waitFor(timeout, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException(description + " did not exit within " + timeout + " seconds");
+            }
+
+            if (process.exitValue() != 0) {
+                String output = Files.readString(log.toPath(), UTF_8).trim();
+                throw new IOException(description + " failed:\n" + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during " + description.toLowerCase(Locale.ROOT), e);
+        } finally {
+            log.delete();
+        }
+    }
+
+    /**
+     * Returns the JVM option that instructs the application to use the
+     * archive at the specified location. The location can include variables
+     * that are expanded by the application launcher.
+     */
+    public String getRuntimeOption(String archivePath) {
+        if (isAOTCacheSupported()) {
+            return "-XX:AOTCache=" + archivePath;
+        } else {
+            return "-XX:SharedArchiveFile=" + archivePath;
+        }
+    }
+
+    public String getArchiveFileName() {
+        return isAOTCacheSupported() ? "app.aot" : "app.jsa";
+    }
+
+    /**
+     * Returns true if the runtime supports creating an AOT cache, otherwise
+     * a dynamic CDS archive is created instead.
+     */
+    public boolean isAOTCacheSupported() {
+        return getJavaVersion(runtime) >= AOT_CACHE_VERSION;
+    }
+
+    /**
+     * Returns the Java feature version of the specified runtime, based on the
+     * runtime's {@code release} file. Returns the version of the JVM running
+     * the build if the runtime does not contain a {@code release} file.
+     */
+    public static int getJavaVersion(File runtime) {
+        File releaseFile = new File(runtime, "release");
+        if (!releaseFile.exists()) {
+            return Runtime.version().feature();
+        }
+
+        try {
+            for (String line : Files.readAllLines(releaseFile.toPath(), UTF_8)) {
+                if (line.startsWith("JAVA_VERSION=")) {
+                    String version = line.substring(line.indexOf('=') + 1).replace("\"", "").trim();
+                    return Runtime.Version.parse(version).feature();
+                }
+            }
+            return Runtime.version().feature();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read " + releaseFile.getAbsolutePath(), e);
+        }
+    }
+
+    private static File getLauncher(File javaHome) {
+        File launcher = new File(javaHome, "bin/java");
+        File windowsLauncher = new File(javaHome, "bin/java.exe");
+        return windowsLauncher.exists() || AppHelper.isWindows() ? windowsLauncher : launcher;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+}
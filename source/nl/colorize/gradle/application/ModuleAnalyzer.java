@@ -0,0 +1,175 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.spi.ToolProvider;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Determines the minimal set of JDK modules that is needed to run an
+ * application, so that the embedded Java runtime does not include modules
+ * that are never used. This uses the {@code jdeps} tool that is included
+ * with the JDK, which analyzes the application's class files.
+ * <p>
+ * {@code jdeps} cannot detect modules that are only used through
+ * reflection or the service loader, such as {@code jdk.crypto.ec}. Those
+ * modules still need to be added to the list of additional modules.
+ */
+public class ModuleAnalyzer {
+
+    private File jdk;
+
+    private static final String JDEPS_TOOL = "jdeps";
+
+    public ModuleAnalyzer(File jdk) {
+        this.jdk = jdk;
+    }
+
+    /**
+     * Returns the JDK modules required by the main JAR file in the specified
+     * directory. The other JAR files in the directory are used as the class
+     * path, so that dependencies of the main JAR are also analyzed.
+     */
+    public List<String> findRequiredModules(File libsDir, String mainJarName) {
+        File mainJar = new File(libsDir, mainJarName);
+        List<File> classPath = AppHelper.walk(libsDir,
+            file -> AppHelper.isClassPathEntry(file) && !file.equals(mainJar));
+        return findRequiredModules(mainJar, classPath);
+    }
+
+    /**
+     * Returns the JDK modules required by the main JAR file, using the other
+     * JAR files on the class path to resolve the main JAR's dependencies.
+     */
+    public List<String> findRequiredModules(File mainJar, List<File> classPath) {
+        AppHelper.check(mainJar.exists(), "Main JAR file not found: " + mainJar.getAbsolutePath());
+
+        ToolProvider jdeps = ToolProvider.findFirst(JDEPS_TOOL)
+            .orElseThrow(() -> new UnsupportedOperationException("jdeps is not available"));
+
+        List<String> args = new ArrayList<>();
+        args.add("--print-module-deps");
+        args.add("--ignore-missing-deps");
+        args.add("--multi-release");
+        args.add(String.valueOf(Runtime.version().feature()));
+        if (!classPath.isEmpty()) {
+            args.add("--class-path");
+            args.add(classPath.stream()
+                .map(File::getAbsolutePath)
+                .collect(Collectors.joining(File.pathSeparator)));
+        }
+        args.add(mainJar.getAbsolutePath());
+
+        StringWriter output = new StringWriter();
+        StringWriter errors = new StringWriter();
+        int exitCode = jdeps.run(new PrintWriter(output), new PrintWriter(errors),
+            args.toArray(String[]::new));
+
+        if (exitCode != 0) {
+            throw new RuntimeException("jdeps failed: " + errors.toString().trim());
+        }
+
+        return Arrays.stream(output.toString().trim().split(","))
+            .map(String::trim)
+            .filter(module -> !module.isEmpty())
+            .sorted()
+            .toList();
+    }
+
+    /**
+     * Describes the difference between the configured list of modules and
+     * the modules that are actually required, including the approximate
+     * size of the modules that are no longer included. Sizes are based on
+     * the contents of the modules in the JDK's runtime image.
+     */
+    public String describeSavings(List<String> configured, List<String> required) {
+        List<String> excluded = configured.stream()
+            .filter(module -> !required.contains(module))
+            .distinct()
+            .sorted()
+            .toList();
+
+        if (excluded.isEmpty()) {
+            return "Required modules: " + String.join(", ", required);
+        }
+
+        Map<String, Long> sizes = getModuleSizes(excluded);
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+
+        return "Required modules: " + String.join(", ", required) + "\n" +
+            "Excluded modules: " + excluded.stream()
+                .map(module -> module + " (" + formatSize(sizes.get(module)) + ")")
+                .collect(Collectors.joining(", ")) + "\n" +
+            "Runtime size reduced by " + formatSize(total);
+    }
+
+    /**
+     * Returns the size of each module in the JDK's runtime image. This uses
+     * the {@code jrt} file system of the configured JDK, or of the JDK that
+     * is running the build if the configured JDK cannot be opened.
+     */
+    protected Map<String, Long> getModuleSizes(List<String> modules) {
+        try (FileSystem jrt = openRuntimeImage()) {
+            return modules.stream()
+                .collect(Collectors.toMap(module -> module, module -> getModuleSize(jrt, module)));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read JDK runtime image", e);
+        }
+    }
+
+    private FileSystem openRuntimeImage() throws IOException {
+        try {
+            return FileSystems.newFileSystem(URI.create("jrt:/"), Map.of("java.home", jdk.getAbsolutePath()));
+        } catch (IOException | RuntimeException e) {
+            return FileSystems.newFileSystem(URI.create("jrt:/"), Map.of());
+        }
+    }
+
+    private long getModuleSize(FileSystem jrt, String module) {
+        Path moduleDir = jrt.getPath("/modules", module);
+        if (!Files.exists(moduleDir)) {
+            return 0L;
+        }
+
+        try (Stream<Path> files = Files.walk(moduleDir)) {
+            return files
+                .filter(Files::isRegularFile)
+                .mapToLong(file -> {
+                    try {
+                        return Files.size(file);
+                    } catch (IOException e) {
+                        return 0L;
+                    }
+                })
+                .sum();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read module " + module, e);
+        }
+    }
+
+    private String formatSize(long bytes) {
+        if (bytes >= 1024L * 1024L) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / 1024.0 / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%d KB", bytes / 1024L);
+    }
+}
@@ -0,0 +1,254 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.benchmark;
+
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.ClassDataSharing;
+import nl.colorize.gradle.application.macapplicationbundle.MacApplicationBundleExt;
+import nl.colorize.gradle.application.macapplicationbundle.RuntimeImageCache;
+import nl.colorize.gradle.application.windowsexe.WindowsStandaloneExt;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.process.ExecOperations;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the startup time of the application, using the same JVM options
+ * as the packaged application. The application runs using a Java runtime
+ * that is created by {@code jlink} from the JDK running the build, so that
+ * the benchmark can run on the build platform rather than the platform the
+ * application is packaged for. This makes it possible to compare
+ * configurations as part of a regular (Linux) build.
+ */
+public class BenchmarkStartupTask extends DefaultTask {
+
+    private ExecOperations execService;
+    private StartupBenchmarkExt config;
+    private MacApplicationBundleExt macConfig;
+    private WindowsStandaloneExt exeConfig;
+    private Provider<Directory> buildDir;
+    private File runtimeCacheDir;
+
+    private static final String RUNTIME_CACHE_DIR = "caches/colorize-application-plugin/benchmark-runtime";
+    private static final String REPORT_FILE = "startup-benchmark.txt";
+    private static final List<String> JLINK_ARGS = List.of("--strip-debug", "--no-man-pages",
+        "--no-header-files");
+
+    @Inject
+    public BenchmarkStartupTask(ExecOperations execService) {
+        this.execService = execService;
+    }
+
+    public void configure(Project project, StartupBenchmarkExt config, MacApplicationBundleExt macConfig,
+                          WindowsStandaloneExt exeConfig) {
+        this.config = config;
+        this.macConfig = macConfig;
+        this.exeConfig = exeConfig;
+        this.buildDir = project.getLayout().getBuildDirectory();
+        this.runtimeCacheDir = new File(project.getGradle().getGradleUserHomeDir(), RUNTIME_CACHE_DIR);
+    }
+
+    @TaskAction
+    public void run() {
+        config.validate();
+        run(config, getApplication(config));
+    }
+
+    protected void run(StartupBenchmarkExt config, Application app) {
+        File outputDir = config.getOutputDir(getBuildDir());
+        AppHelper.cleanDirectory(outputDir);
+
+        File jdk = new File(config.getJdkPath());
+        int javaVersion = ClassDataSharing.getJavaVersion(jdk);
+        StartupBenchmark benchmark = new StartupBenchmark(config.getRuns(), config.getTimeout());
+        Map<String, List<StartupBenchmark.Sample>> results = new LinkedHashMap<>();
+
+        try {
+            File markerJar = StartupBenchmark.createMarkerJar(outputDir, javaVersion);
+
+            for (StartupVariant variant : getVariants(config)) {
+                File variantDir = AppHelper.mkdir(new File(outputDir, "variant-" + results.size()));
+                File runtime = createRuntime(jdk, getModules(config, variant), variant, variantDir);
+                List<String> options = getOptions(app, variant);
+
+                if (variant.isCds()) {
+                    options.add(createClassDataSharingArchive(app, runtime, markerJar, options, variantDir));
+                }
+
+                getLogger().lifecycle("Measuring startup time for {}", variant.getName());
+                List<String> command = getLaunchCommand(app, runtime, markerJar, options);
+                results.put(variant.getName(), benchmark.run(variantDir, command));
+            }
+
+            String report = benchmark.formatReport(results);
+            Files.writeString(new File(outputDir, REPORT_FILE).toPath(), report, UTF_8);
+            getLogger().lifecycle(report);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to measure startup time", e);
+        }
+    }
+
+    /**
+     * Returns the application that should be measured, based on either the
+     * Mac application bundle configuration or the Windows EXE configuration.
+     */
+    protected Application getApplication(StartupBenchmarkExt config) {
+        File libsDir = AppHelper.getLibsDir(getBuildDir());
+
+        if (config.getInherit().equals("exe")) {
+            if (exeConfig.isInherit()) {
+                exeConfig.inherit(macConfig);
+            }
+            File mainJar = new File(libsDir, exeConfig.getMainJarName());
+            return new Application(libsDir, mainJar, readMainClass(mainJar),
+                List.of("-Xmx" + exeConfig.getMemory() + "m"), exeConfig.getArgs(),
+                exeConfig.getCdsTrainingArgs());
+        }
+
+        File contentDir = macConfig.getContentDir() != null ? new File(macConfig.getContentDir()) : libsDir;
+        return new Application(contentDir, new File(contentDir, macConfig.getMainJarName()),
+            macConfig.getMainClassName(), macConfig.getOptions(), macConfig.getArgs(),
+            macConfig.getCdsTrainingArgs());
+    }
+
+    private String readMainClass(File mainJar) {
+        try (JarFile jar = new JarFile(mainJar)) {
+            String mainClass = jar.getManifest() == null ? null :
+                jar.getManifest().getMainAttributes().getValue("Main-Class");
+            AppHelper.check(mainClass != null, "Missing Main-Class in " + mainJar.getAbsolutePath());
+            return mainClass;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read " + mainJar.getAbsolutePath(), e);
+        }
+    }
+
+    private List<StartupVariant> getVariants(StartupBenchmarkExt config) {
+        if (config.getVariants().isEmpty()) {
+            StartupVariant defaultVariant = new StartupVariant();
+            defaultVariant.setName("default");
+            return List.of(defaultVariant);
+        }
+        return config.getVariants();
+    }
+
+    /**
+     * Returns the modules that should be included in the runtime. Variants
+     * can replace the modules, otherwise the modules from the benchmark
+     * configuration or the Mac application bundle configuration are used.
+     */
+    private List<String> getModules(StartupBenchmarkExt config, StartupVariant variant) {
+        if (!variant.getModules().isEmpty()) {
+            return variant.getModules();
+        }
+
+        if (config.getModules() != null) {
+            return config.getModules();
+        }
+
+        List<String> modules = new ArrayList<>();
+        modules.addAll(macConfig.getModules());
+        modules.addAll(macConfig.getAdditionalModules());
+        return modules.stream().distinct().toList();
+    }
+
+    /**
+     * Creates the Java runtime for a variant. The runtime is taken from the
+     * {@link RuntimeImageCache}, so {@code jlink} only needs to run when the
+     * JDK or the list of modules has changed.
+     */
+    private File createRuntime(File jdk, List<String> modules, StartupVariant variant, File variantDir)
+            throws IOException {
+        List<String> jlinkArgs = new ArrayList<>(JLINK_ARGS);
+        if (variant.isCds() && !new ClassDataSharing(jdk, List.of()).isAOTCacheSupported()) {
+            jlinkArgs.add("--generate-cds-archive");
+        }
+
+        RuntimeImageCache runtimeCache = new RuntimeImageCache(runtimeCacheDir);
+        runtimeCache.copyRuntime(jdk, modules, jlinkArgs, variantDir, dir -> {
+            List<String> command = new ArrayList<>();
+            command.add(new File(jdk, "bin/jlink").getAbsolutePath());
+            command.add("--add-modules");
+            command.add(String.join(",", modules));
+            command.add("--output");
+            command.add(new File(dir, "runtime").getAbsolutePath());
+            command.addAll(jlinkArgs);
+            execService.exec(exec -> exec.commandLine(command));
+        });
+
+        return new File(variantDir, "runtime");
+    }
+
+    private List<String> getOptions(Application app, StartupVariant variant) {
+        List<String> options = new ArrayList<>();
+        options.addAll(app.options());
+        options.addAll(variant.getOptions());
+        return options;
+    }
+
+    /**
+     * Creates the class data sharing archive for a variant, and returns the
+     * JVM option for using it. The training run also starts the application
+     * through the marker class, which stops GUI applications after their
+     * first window has been opened.
+     */
+    private String createClassDataSharingArchive(Application app, File runtime, File markerJar,
+                                                 List<String> options, File variantDir) throws IOException {
+        ClassDataSharing cds = new ClassDataSharing(runtime, app.cdsTrainingArgs());
+        File archive = new File(variantDir, cds.getArchiveFileName());
+        List<String> launchArgs = getLaunchCommand(app, runtime, markerJar, List.of());
+        cds.train(variantDir, options, launchArgs.subList(1, launchArgs.size()), archive, runtime);
+        return cds.getRuntimeOption(archive.getAbsolutePath());
+    }
+
+    protected List<String> getLaunchCommand(Application app, File runtime, File markerJar,
+                                            List<String> options) {
+        List<String> classPath = new ArrayList<>();
+        classPath.add(markerJar.getAbsolutePath());
+        classPath.add(app.mainJar().getAbsolutePath());
+        AppHelper.walk(app.libsDir(), file -> AppHelper.isClassPathEntry(file) && !file.equals(app.mainJar()))
+            .stream()
+            .map(File::getAbsolutePath)
+            .sorted()
+            .forEach(classPath::add);
+
+        List<String> command = new ArrayList<>();
+        command.add(new File(runtime, "bin/java").getAbsolutePath());
+        command.addAll(options);
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classPath));
+        command.add(StartupBenchmark.MARKER_CLASS);
+        command.add(app.mainClass());
+        command.addAll(app.args());
+        return command;
+    }
+
+    private File getBuildDir() {
+        return buildDir.get().getAsFile();
+    }
+
+    /**
+     * The application that is measured, using the main JAR file, options,
+     * and arguments from the configuration of the packaged application.
+     */
+    protected record Application(File libsDir, File mainJar, String mainClass, List<String> options,
+                                 List<String> args, List<String> cdsTrainingArgs) {
+    }
+}
@@ -0,0 +1,234 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.benchmark;
+
+import nl.colorize.gradle.application.AppHelper;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures how long it takes for an application to start, by launching it
+ * a number of times and measuring the time until the main method is reached
+ * and the time until the first window is opened. The application is started
+ * through a marker class, which reports both events and then stops the
+ * application. Runs where the application is still running when the
+ * timeout expires are reported separately.
+ * <p>
+ * Launches are performed one after another, since running them in parallel
+ * would influence the results.
+ */
+class StartupBenchmark {
+
+    private int runs;
+    private int timeout;
+
+    public static final String MARKER_CLASS = "StartupMarker";
+    private static final String MARKER_PREFIX = "[startup-marker] ";
+    private static final List<Integer> PERCENTILES = List.of(50, 90, 99);
+
+    public StartupBenchmark(int runs, int timeout) {
+        this.runs = runs;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Compiles the marker class for the specified Java version, and returns
+     * a JAR file containing the marker class. The marker is compiled during
+     * the build, so that it can also be used with runtimes that are older
+     * than the Java version used by the plugin.
+     */
+    public static File createMarkerJar(File dir, int javaVersion) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        AppHelper.check(compiler != null, "Startup benchmark requires Gradle to run using a JDK");
+
+        File sourceDir = AppHelper.mkdir(new File(dir, "marker"));
+        File sourceFile = new File(sourceDir, MARKER_CLASS + ".java");
+        Files.writeString(sourceFile.toPath(), AppHelper.loadResourceFile(MARKER_CLASS + ".java"), UTF_8);
+
+        int exitCode = compiler.run(null, null, null, "--release", String.valueOf(javaVersion),
+            "-d", sourceDir.getAbsolutePath(), sourceFile.getAbsolutePath());
+        AppHelper.check(exitCode == 0, "Unable to compile startup marker for Java " + javaVersion);
+
+        File jarFile = new File(dir, "startup-marker.jar");
+        List<File> classFiles = AppHelper.walk(sourceDir, file -> file.getName().endsWith(".class"));
+
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            for (File classFile : classFiles) {
+                jar.putNextEntry(new JarEntry(classFile.getName()));
+                jar.write(Files.readAllBytes(classFile.toPath()));
+                jar.closeEntry();
+            }
+        }
+
+        return jarFile;
+    }
+
+    /**
+     * Launches the application using the specified command, which should
+     * start the marker class, and returns the measured startup times for
+     * every run.
+     */
+    public List<Sample> run(File workDir, List<String> command) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            samples.add(measure(workDir, command));
+        }
+        return samples;
+    }
+
+    private Sample measure(File workDir, List<String> command) throws IOException {
+        File log = File.createTempFile("startup-", ".log");
+
+        try {
+            long startTime = getTimestamp();
+            Process process = new ProcessBuilder(command)
+                .directory(workDir)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+
+            boolean exited = process.waitFor(timeout, TimeUnit.SECONDS);
+            if (!exited) {
+                process.destroyForcibly().waitFor();
+            }
+
+            // The application's own output can use any encoding, but the
+            // marker's output only contains ASCII characters.
+            List<String> output = Files.readAllLines(log.toPath(), ISO_8859_1);
+            long mainTime = findEvent(output, "main");
+            long frameTime = findEvent(output, "frame");
+
+            if (mainTime == -1L || (exited && process.exitValue() != 0)) {
+                throw new IOException("Application failed to start:\n" + String.join("\n", output).trim());
+            }
+
+            return new Sample(mainTime - startTime, frameTime == -1L ? -1L : frameTime - startTime, !exited);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while measuring startup time", e);
+        } finally {
+            log.delete();
+        }
+    }
+
+    private long findEvent(List<String> output, String event) {
+        return output.stream()
+            .filter(line -> line.startsWith(MARKER_PREFIX + event + " "))
+            .mapToLong(line -> Long.parseLong(line.substring(line.lastIndexOf(' ') + 1).trim()))
+            .findFirst()
+            .orElse(-1L);
+    }
+
+    /**
+     * Returns the current time in microseconds, using the same clock as the
+     * marker class so that timestamps can be compared between processes.
+     */
+    private static long getTimestamp() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1000L;
+    }
+
+    /**
+     * Describes the results for all configurations. Each configuration is
+     * compared to the first configuration, based on the median.
+     */
+    public String formatReport(Map<String, List<Sample>> results) {
+        StringBuilder report = new StringBuilder();
+        report.append("Startup time over ").append(runs).append(" runs\n");
+
+        List<Long> baselineMain = null;
+        List<Long> baselineFrame = null;
+
+        for (Map.Entry<String, List<Sample>> entry : results.entrySet()) {
+            List<Long> main = entry.getValue().stream()
+                .map(Sample::timeToMain)
+                .toList();
+            List<Long> frame = entry.getValue().stream()
+                .map(Sample::timeToFirstFrame)
+                .filter(time -> time >= 0L)
+                .toList();
+
+            report.append("\n").append(entry.getKey()).append("\n");
+            report.append(formatPercentiles("Time to main:       ", main, baselineMain));
+            report.append(formatPercentiles("Time to first frame:", frame, baselineFrame));
+            report.append(formatTimeouts(entry.getValue()));
+
+            if (baselineMain == null) {
+                baselineMain = main;
+                baselineFrame = frame;
+            }
+        }
+
+        return report.toString();
+    }
+
+    private String formatPercentiles(String label, List<Long> times, List<Long> baseline) {
+        if (times.isEmpty()) {
+            return "    " + label + " not detected\n";
+        }
+
+        StringBuilder line = new StringBuilder("    " + label);
+        for (int percentile : PERCENTILES) {
+            double time = percentile(times, percentile);
+            line.append(String.format(Locale.ROOT, " p%d %.1f ms", percentile, time));
+        }
+
+        if (baseline != null && !baseline.isEmpty()) {
+            double median = percentile(times, 50);
+            double baselineMedian = percentile(baseline, 50);
+            double change = (median - baselineMedian) / baselineMedian * 100.0;
+            line.append(String.format(Locale.ROOT, " (%+.1f%%)", change));
+        }
+
+        return line.append("\n").toString();
+    }
+
+    private String formatTimeouts(List<Sample> samples) {
+        long timeouts = samples.stream()
+            .filter(Sample::timedOut)
+            .count();
+
+        if (timeouts == 0L) {
+            return "";
+        }
+        return "    Timed out:           " + timeouts + " of " + samples.size() + " runs\n";
+    }
+
+    /**
+     * Returns the specified percentile of the measured times in
+     * milliseconds, using the nearest-rank method.
+     */
+    protected static double percentile(List<Long> times, int percentile) {
+        List<Long> sorted = times.stream().sorted().toList();
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank - 1, 0)) / 1000.0;
+    }
+
+    /**
+     * Startup times for a single run, in microseconds. The time to the first
+     * frame is -1 if the application did not open a window. Runs that timed
+     * out were stopped before the application opened a window or exited.
+     */
+    public record Sample(long timeToMain, long timeToFirstFrame, boolean timedOut) {
+    }
+}
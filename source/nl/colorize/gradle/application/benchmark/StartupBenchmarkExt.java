@@ -0,0 +1,66 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.Validatable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class StartupBenchmarkExt implements Validatable {
+
+    private String inherit;
+    private String jdkPath;
+    private List<String> modules;
+    private int runs;
+    private int timeout;
+    private List<StartupVariant> variants;
+    private String outputDir;
+
+    public static final List<String> INHERIT_OPTIONS = List.of("mac", "exe");
+
+    public StartupBenchmarkExt() {
+        this.inherit = "mac";
+        this.jdkPath = System.getProperty("java.home");
+        this.runs = 10;
+        this.timeout = 30;
+        this.variants = new ArrayList<>();
+        this.outputDir = "startup-benchmark";
+    }
+
+    /**
+     * Adds a configuration that should be measured. Configurations are
+     * compared against the first configuration. If no configurations are
+     * added, the application is only measured using its own options.
+     */
+    public void variant(Map<String, ?> options) {
+        variants.add(new StartupVariant(options));
+    }
+
+    public File getOutputDir(File buildDir) {
+        return AppHelper.getOutputDir(buildDir, outputDir);
+    }
+
+    @Override
+    public void validate() {
+        AppHelper.check(INHERIT_OPTIONS.contains(inherit), "Invalid startupBenchmark.inherit: " + inherit);
+        AppHelper.check(jdkPath != null, "Missing startupBenchmark.jdkPath");
+        AppHelper.check(runs >= 1, "startupBenchmark.runs must be at least 1");
+        AppHelper.check(timeout >= 1, "startupBenchmark.timeout must be at least 1");
+
+        variants.forEach(StartupVariant::validate);
+        AppHelper.check(variants.stream().map(StartupVariant::getName).distinct().count() == variants.size(),
+            "startupBenchmark.variant names must be unique");
+    }
+}
@@ -0,0 +1,78 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.Validatable;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One configuration of the application that is measured by the startup
+ * benchmark. The JVM options are added to the application's own options.
+ * The list of modules is optional, and replaces the modules that would
+ * otherwise be included in the runtime.
+ */
+@Getter
+@Setter
+public class StartupVariant implements Validatable, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private List<String> options;
+    private List<String> modules;
+    private boolean cds;
+
+    public StartupVariant() {
+        this.options = Collections.emptyList();
+        this.modules = Collections.emptyList();
+        this.cds = false;
+    }
+
+    /**
+     * Creates a variant from named options, which is intended to be used
+     * from the Gradle build script, e.g.
+     * {@code variant name: "small heap", options: ["-Xmx256m"], cds: true}.
+     */
+    public StartupVariant(Map<String, ?> options) {
+        this();
+
+        for (Map.Entry<String, ?> option : options.entrySet()) {
+            Object value = option.getValue();
+
+            switch (option.getKey()) {
+                case "name" -> name = String.valueOf(value);
+                case "options" -> this.options = toList(value);
+                case "modules" -> modules = toList(value);
+                case "cds" -> cds = Boolean.parseBoolean(String.valueOf(value));
+                default -> throw new IllegalArgumentException(
+                    "Unknown startupBenchmark.variant option: " + option.getKey());
+            }
+        }
+    }
+
+    private static List<String> toList(Object value) {
+        if (value instanceof Collection<?> values) {
+            return values.stream()
+                .map(String::valueOf)
+                .toList();
+        }
+        return List.of(String.valueOf(value));
+    }
+
+    @Override
+    public void validate() {
+        AppHelper.check(name != null && !name.isBlank(), "Missing startupBenchmark.variant name");
+    }
+}
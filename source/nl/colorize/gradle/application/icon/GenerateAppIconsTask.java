@@ -8,7 +8,18 @@ package nl.colorize.gradle.application.icon;
 
 import nl.colorize.gradle.application.AppHelper;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 
@@ -18,11 +29,14 @@ import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
-import java.awt.image.Kernel;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.awt.RenderingHints.KEY_ANTIALIASING;
 import static java.awt.RenderingHints.KEY_INTERPOLATION;
@@ -32,10 +46,26 @@ import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
 import static java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON;
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 
-public class GenerateAppIconsTask extends DefaultTask {
+@CacheableTask
+public abstract class GenerateAppIconsTask extends DefaultTask {
 
     private ExecOperations execService;
 
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getOriginal();
+
+    /**
+     * The Mac icon set can only be generated on Mac, so the platform is
+     * considered as an input to prevent reusing cached output that was
+     * generated on a different platform.
+     */
+    @Input
+    public abstract Property<Boolean> getMacIconSet();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
     private static final List<IconVariant> MAC_ICONS = List.of(
         new IconVariant("icon_16x16.png", 16, true),
         new IconVariant("icon_16x16@2x.png", 32, true),
@@ -75,82 +105,103 @@ public class GenerateAppIconsTask extends DefaultTask {
         this.execService = execService;
     }
 
-    @TaskAction
-    public void run() {
-        ExtensionContainer ext = getProject().getExtensions();
-        AppIconExt config = ext.getByType(AppIconExt.class);
-        run(config);
+    /**
+     * Derives this task's properties from the {@code appIcon} configuration.
+     * The configuration is only read once the properties are queried.
+     */
+    public void configure(Project project, AppIconExt config) {
+        ProjectLayout layout = project.getLayout();
+        Provider<AppIconExt> ext = AppHelper.validated(project, config);
+
+        getOriginal().convention(layout.getProjectDirectory().file(ext.map(AppIconExt::getOriginal)));
+        getMacIconSet().convention(AppHelper.isMac());
+        getOutputDir().convention(layout.getBuildDirectory().dir(ext.map(AppIconExt::getOutputDir)));
     }
 
-    protected void run(AppIconExt config) {
-        File outputDir = AppHelper.getOutputDir(getProject(), config.getOutputDir());
+    @TaskAction
+    public void run() {
+        File outputDir = getOutputDir().get().getAsFile();
         AppHelper.cleanDirectory(outputDir);
+        outputDir.mkdirs();
 
         try {
-            BufferedImage original = ImageIO.read(new File(config.getOriginal()));
+            BufferedImage original = ImageIO.read(getOriginal().get().getAsFile());
             generateIcons(original, outputDir);
         } catch (IOException e) {
             throw new RuntimeException("Failed to generate icon", e);
         }
     }
 
-    private void generateIcons(BufferedImage original, File outputDir) throws IOException {
-        if (AppHelper.isMac()) {
-            generateMacIconSet(original, outputDir);
-        }
-        generateAppIconSet(original, outputDir);
-        for (IconVariant pwaIcon : PWA_ICONS) {
-            generateIcon(original, pwaIcon, outputDir);
-        }
-        generateIcon(original, WINDOWS_ICON, outputDir);
-        generateIcon(original, FAVICON, outputDir);
-        generateIcon(original, APPLE_FAVICON, outputDir);
+    protected void run(AppIconExt config) {
+        configure(getProject(), config);
+        run();
     }
 
-    private void generateMacIconSet(BufferedImage original, File outputDir) throws IOException {
-        File iconSet = new File(outputDir, "icon.iconset");
-        iconSet.mkdir();
+    private void generateIcons(BufferedImage original, File outputDir) throws IOException {
+        Map<IconImage, List<File>> icons = new LinkedHashMap<>();
 
-        for (IconVariant variant : MAC_ICONS) {
-            BufferedImage image = generateIconVariant(original, variant);
-            ImageIO.write(image, "png", new File(iconSet, variant.name));
+        File macIconSet = new File(outputDir, "icon.iconset");
+        if (getMacIconSet().get()) {
+            macIconSet.mkdir();
+            addIcons(icons, MAC_ICONS, macIconSet);
         }
 
-        execService.exec(exec -> {
-            exec.workingDir(outputDir);
-            exec.commandLine("iconutil", "-c", "icns", "icon.iconset");
+        File appIconSet = new File(outputDir, "AppIcon.appiconset");
+        appIconSet.mkdir();
+        addIcons(icons, IOS_ICONS, appIconSet);
+        addIcons(icons, PWA_ICONS, outputDir);
+        addIcons(icons, List.of(WINDOWS_ICON, FAVICON, APPLE_FAVICON), outputDir);
+
+        MipChain mipChain = new MipChain(original);
+        ThreadLocal<DropShadowRenderer> shadow = ThreadLocal.withInitial(() ->
+            new DropShadowRenderer(SHADOW_COLOR, SHADOW_OFFSET, SHADOW_BLUR));
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        AppHelper.mapParallel(List.copyOf(icons.keySet()), workers, icon -> {
+            byte[] png = encodePNG(generateIconImage(mipChain, icon, shadow.get()));
+            for (File file : icons.get(icon)) {
+                Files.write(file.toPath(), png);
+            }
+            return icon;
         });
-    }
 
-    private void generateAppIconSet(BufferedImage original, File outputDir) throws IOException {
-        File iconSet = new File(outputDir, "AppIcon.appiconset");
-        iconSet.mkdir();
-
-        for (IconVariant variant : IOS_ICONS) {
-            BufferedImage image = generateIconVariant(original, variant);
-            ImageIO.write(image, "png", new File(iconSet, variant.name));
+        if (getMacIconSet().get()) {
+            execService.exec(exec -> {
+                exec.workingDir(outputDir);
+                exec.commandLine("iconutil", "-c", "icns", macIconSet.getName());
+            });
         }
     }
 
-    private BufferedImage generateIconVariant(BufferedImage original, IconVariant variant) {
-        if (variant.maskable) {
-            return generateMaskIcon(original, variant);
-        } else {
-            return generateRegularIcon(original, variant);
+    /**
+     * Groups icon variants by their image, since several variants share the
+     * same size. Each image only needs to be rendered and encoded once,
+     * after which it is written to all files that use it.
+     */
+    private void addIcons(Map<IconImage, List<File>> icons, List<IconVariant> variants, File dir) {
+        for (IconVariant variant : variants) {
+            IconImage icon = new IconImage(variant.size, variant.maskable);
+            icons.computeIfAbsent(icon, key -> new ArrayList<>()).add(new File(dir, variant.name));
         }
     }
 
-    private BufferedImage generateRegularIcon(BufferedImage original, IconVariant variant) {
-        return progressiveScaleImage(original, variant.size, variant.size);
+    private BufferedImage generateIconImage(MipChain mipChain, IconImage icon,
+                                            DropShadowRenderer shadow) {
+        if (icon.maskable) {
+            return generateMaskIcon(mipChain, icon.size, shadow);
+        } else {
+            return mipChain.scale(icon.size, icon.size);
+        }
     }
 
-    private BufferedImage generateMaskIcon(BufferedImage original, IconVariant variant) {
-        float factor = variant.size / 512f;
+    private BufferedImage generateMaskIcon(MipChain mipChain, int iconSize,
+                                           DropShadowRenderer shadow) {
+        float factor = iconSize / 512f;
         int inset = Math.round(50 * factor);
         int size = Math.round(412 * factor);
         int radius = Math.round(128 * factor);
 
-        BufferedImage image = new BufferedImage(variant.size, variant.size, TYPE_INT_ARGB);
+        BufferedImage image = new BufferedImage(iconSize, iconSize, TYPE_INT_ARGB);
         Graphics2D g2 = image.createGraphics();
         g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
         g2.setRenderingHint(KEY_TEXT_ANTIALIASING, VALUE_TEXT_ANTIALIAS_ON);
@@ -158,97 +209,16 @@ public class GenerateAppIconsTask extends DefaultTask {
         g2.setColor(Color.WHITE);
         g2.fillRoundRect(inset, inset, size, size, radius, radius);
         g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_IN, 1f));
-        g2.drawImage(progressiveScaleImage(original, size, size), inset, inset, null);
+        g2.drawImage(mipChain.scale(size, size), inset, inset, null);
         g2.dispose();
 
-        return applyDropShadow(image, SHADOW_COLOR, SHADOW_OFFSET, SHADOW_BLUR);
+        return shadow.apply(image);
     }
 
-    private void generateIcon(BufferedImage original, IconVariant variant, File outputDir)
-            throws IOException {
-        BufferedImage image = generateIconVariant(original, variant);
-        ImageIO.write(image, "png", new File(outputDir, variant.name));
-    }
-
-    private BufferedImage progressiveScaleImage(BufferedImage original, int width, int height) {
-        BufferedImage current = original;
-        int currentWidth = current.getWidth(null);
-        int currentHeight = current.getHeight(null);
-
-        while (currentWidth >= width * 2 || currentHeight >= height * 2) {
-            currentWidth = currentWidth / 2;
-            currentHeight = currentHeight / 2;
-            current = scaleImage(current, currentWidth, currentHeight);
-        }
-
-        return scaleImage(current, width, height);
-    }
-
-    private BufferedImage scaleImage(BufferedImage original, int width, int height) {
-        BufferedImage result = new BufferedImage(width, height, TYPE_INT_ARGB);
-        Graphics2D g2 = result.createGraphics();
-        g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
-        g2.setRenderingHint(KEY_TEXT_ANTIALIASING, VALUE_TEXT_ANTIALIAS_ON);
-        g2.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
-        g2.drawImage(original, 0, 0, width, height, null);
-        g2.dispose();
-        return result;
-    }
-
-    private BufferedImage applyDropShadow(BufferedImage image, Color color, int size, int blur) {
-        BufferedImage shadow = new BufferedImage(image.getWidth(), image.getHeight(), TYPE_INT_ARGB);
-        Graphics2D shadowG2 = shadow.createGraphics();
-        shadowG2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
-        shadowG2.setRenderingHint(KEY_TEXT_ANTIALIASING, VALUE_TEXT_ANTIALIAS_ON);
-        shadowG2.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
-        shadowG2.drawImage(image, size, size, null);
-        shadowG2.setComposite(AlphaComposite.SrcIn);
-        shadowG2.setColor(color);
-        shadowG2.fillRect(0, 0, shadow.getWidth(), shadow.getHeight());
-        shadowG2.dispose();
-
-        BufferedImage combined = applyGaussianBlur(shadow, blur);
-        Graphics2D combinedG2 = combined.createGraphics();
-        combinedG2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
-        combinedG2.setRenderingHint(KEY_TEXT_ANTIALIASING, VALUE_TEXT_ANTIALIAS_ON);
-        combinedG2.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
-        combinedG2.drawImage(image, 0, 0, null);
-        combinedG2.dispose();
-        return combined;
-    }
-
-    private BufferedImage applyGaussianBlur(BufferedImage original, int amount) {
-        int size = amount * 2 + 1;
-        float[] data = calculateGaussianBlurData(amount, size);
-        ConvolveOp horizontal = new ConvolveOp(new Kernel(size, 1, data), ConvolveOp.EDGE_NO_OP, null);
-        ConvolveOp vertical = new ConvolveOp(new Kernel(1, size, data), ConvolveOp.EDGE_NO_OP, null);
-
-        BufferedImage blurredImage = new BufferedImage(original.getWidth(), original.getHeight(),
-            TYPE_INT_ARGB);
-        blurredImage = horizontal.filter(original, blurredImage);
-        blurredImage = vertical.filter(blurredImage, null);
-        return blurredImage;
-    }
-
-    private float[] calculateGaussianBlurData(int amount, int size) {
-        float[] data = new float[size];
-        float sigma = amount / 3f;
-        float sigmaTwoSquared = 2f * sigma * sigma;
-        float sigmaRoot = (float) Math.sqrt(sigmaTwoSquared * Math.PI);
-        float total = 0f;
-
-        for (int i = -amount; i <= amount; i++) {
-            float distance = i * i;
-            int index = i + amount;
-            data[index] = (float) Math.exp(-distance / sigmaTwoSquared / sigmaRoot);
-            total += data[index];
-        }
-
-        for (int i = 0; i < data.length; i++) {
-            data[i] /= total;
-        }
-
-        return data;
+    private byte[] encodePNG(BufferedImage image) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", buffer);
+        return buffer.toByteArray();
     }
 
     /**
@@ -259,4 +229,10 @@ public class GenerateAppIconsTask extends DefaultTask {
      */
     private record IconVariant(String name, int size, boolean maskable) {
     }
+
+    /**
+     * The image that is shared by all icon variants with the same size.
+     */
+    private record IconImage(int size, boolean maskable) {
+    }
 }
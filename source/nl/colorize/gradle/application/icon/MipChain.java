@@ -0,0 +1,81 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.icon;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.awt.RenderingHints.KEY_ANTIALIASING;
+import static java.awt.RenderingHints.KEY_INTERPOLATION;
+import static java.awt.RenderingHints.KEY_TEXT_ANTIALIASING;
+import static java.awt.RenderingHints.VALUE_ANTIALIAS_ON;
+import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+import static java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+
+/**
+ * Sequence of progressively smaller versions of an image, where every level
+ * is half the size of the previous level. Scaling an image down in multiple
+ * steps gives better results than scaling it in a single step. Building the
+ * chain once means these steps do not need to be repeated for every size
+ * that is derived from the same image.
+ * <p>
+ * The levels are not modified after the chain has been created, so the
+ * chain can be used to produce multiple sizes in parallel.
+ */
+public class MipChain {
+
+    private List<BufferedImage> levels;
+
+    public MipChain(BufferedImage original) {
+        this.levels = new ArrayList<>();
+
+        BufferedImage current = original;
+        levels.add(current);
+
+        while (current.getWidth() >= 2 && current.getHeight() >= 2) {
+            current = scaleImage(current, current.getWidth() / 2, current.getHeight() / 2);
+            levels.add(current);
+        }
+    }
+
+    /**
+     * Returns a version of the image with the specified size. This starts
+     * from the smallest level that is less than twice the requested size,
+     * which produces the same result as halving the original image until
+     * that point.
+     */
+    public BufferedImage scale(int width, int height) {
+        BufferedImage level = levels.getFirst();
+
+        for (BufferedImage next : levels) {
+            level = next;
+            if (next.getWidth() < width * 2 && next.getHeight() < height * 2) {
+                break;
+            }
+        }
+
+        return scaleImage(level, width, height);
+    }
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    private static BufferedImage scaleImage(BufferedImage original, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, TYPE_INT_ARGB);
+        Graphics2D g2 = result.createGraphics();
+        g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(KEY_TEXT_ANTIALIASING, VALUE_TEXT_ANTIALIAS_ON);
+        g2.setRenderingHint(KEY_INTERPOLATION, VALUE_INTERPOLATION_BILINEAR);
+        g2.drawImage(original, 0, 0, width, height, null);
+        g2.dispose();
+        return result;
+    }
+}
@@ -13,16 +13,22 @@ import com.oracle.appbundler.JLink;
 import com.oracle.appbundler.JMod;
 import com.oracle.appbundler.Option;
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.ClassDataSharing;
+import nl.colorize.gradle.application.ModuleAnalyzer;
 import org.apache.tools.ant.types.FileSet;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskAction;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Creates a Mac application bundle that includes both the application and
@@ -31,6 +37,26 @@ import java.util.List;
  */
 public class CreateApplicationBundleTask extends DefaultTask {
 
+    private MacApplicationBundleExt config;
+    private Provider<Directory> buildDir;
+    private Provider<Boolean> shadowJar;
+    private File runtimeCacheDir;
+
+    private static final String RUNTIME_CACHE_DIR = "caches/colorize-application-plugin/mac-runtime";
+    private static final String CDS_ARCHIVE_DIR = "Contents/Resources";
+
+    /**
+     * Provides the task with the configuration and project layout it needs
+     * during execution, so that it does not need to access the project
+     * while the task is running.
+     */
+    public void configure(Project project, MacApplicationBundleExt config) {
+        this.config = config;
+        this.buildDir = project.getLayout().getBuildDirectory();
+        this.shadowJar = project.provider(() -> AppHelper.hasShadowJarPlugin(project));
+        this.runtimeCacheDir = new File(project.getGradle().getGradleUserHomeDir(), RUNTIME_CACHE_DIR);
+    }
+
     @TaskAction
     public void run() {
         AppHelper.requireMac();
@@ -42,8 +68,6 @@ public class CreateApplicationBundleTask extends DefaultTask {
         System.setProperty("javax.xml.stream.XMLOutputFactory",
             "com.sun.xml.internal.stream.XMLOutputFactoryImpl");
 
-        ExtensionContainer ext = getProject().getExtensions();
-        MacApplicationBundleExt config = ext.getByType(MacApplicationBundleExt.class);
         run(config);
     }
 
@@ -51,18 +75,53 @@ public class CreateApplicationBundleTask extends DefaultTask {
         config.validate();
 
         File jdk = new File(config.getJdkPath());
-        File outputDir = config.getOutputDir(getProject());
+        File outputDir = config.getOutputDir(getBuildDir());
         AppHelper.cleanDirectory(outputDir);
         bundle(config, jdk, outputDir);
 
         for (String binary : config.getAdditionalBinaries()) {
             copyBinaryFile(new File(binary), config);
         }
+
+        if (config.isCds()) {
+            createClassDataSharingArchive(config, jdk);
+        }
+    }
+
+    /**
+     * Creates the class data sharing archive by running the application
+     * with the embedded runtime. The class path needs to match the class
+     * path used by the application launcher, so training uses the JAR files
+     * in the application bundle, in the same order as the class path that
+     * is pinned in the bundle's {@code Info.plist}.
+     */
+    private void createClassDataSharingArchive(MacApplicationBundleExt config, File jdk) {
+        File appBundle = config.locateApplicationBundle(getBuildDir());
+        File runtime = new File(config.locateEmbeddedJDK(appBundle), "Contents/Home");
+        ClassDataSharing cds = new ClassDataSharing(runtime, config.getCdsTrainingArgs());
+        File archive = new File(appBundle, CDS_ARCHIVE_DIR + "/" + cds.getArchiveFileName());
+
+        String classPath = getClassPath(config).stream()
+            .map(jar -> new File(appBundle, "Contents/Java/" + jar).getAbsolutePath())
+            .collect(Collectors.joining(File.pathSeparator));
+
+        List<String> launchArgs = new ArrayList<>();
+        launchArgs.add("-cp");
+        launchArgs.add(classPath);
+        launchArgs.add(config.getMainClassName());
+        launchArgs.addAll(config.getArgs());
+
+        try {
+            cds.train(new File(appBundle, "Contents"), config.getOptions(), launchArgs, archive, jdk);
+            getLogger().lifecycle("Created class data sharing archive {}", archive.getName());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create class data sharing archive", e);
+        }
     }
 
     private void bundle(MacApplicationBundleExt config, File jdk, File outputDir) {
         AppBundlerTask task = new AppBundlerTask();
-        task.setProject(getProject().getAnt().getAntProject());
+        task.setProject(createAntProject());
         task.setOutputDirectory(outputDir);
         task.setName(config.getName());
         task.setDisplayName(getDisplayName(config));
@@ -77,35 +136,81 @@ public class CreateApplicationBundleTask extends DefaultTask {
         task.setMainClassName(config.getMainClassName());
         config.getArchitectures().forEach(arch -> task.addConfiguredArch(toArch(arch)));
         task.addConfiguredClassPath(createClassPath(config));
+        if (config.isCds()) {
+            task.setPlistClassPaths(getClassPath(config).stream()
+                .map(jar -> "$APP_ROOT/Contents/Java/" + jar)
+                .collect(Collectors.joining(",")));
+        }
         getCombinedOptions(config).forEach(option -> task.addConfiguredOption(createOption(option)));
         config.getArgs().forEach(arg -> task.addConfiguredArgument(createArg(arg)));
         task.addConfiguredJLink(createJLink(config, jdk));
         task.perform();
     }
 
+    /**
+     * Creates a stand-alone Ant project for running the {@code appbundler}
+     * Ant task, rather than using the Ant project provided by Gradle, which
+     * is not available without accessing the Gradle project.
+     */
+    private org.apache.tools.ant.Project createAntProject() {
+        org.apache.tools.ant.Project antProject = new org.apache.tools.ant.Project();
+        antProject.init();
+        return antProject;
+    }
+
     private List<String> getCombinedOptions(MacApplicationBundleExt config) {
         List<String> combinedOptions = new ArrayList<>();
         combinedOptions.add("-Xdock:name='" + getDisplayName(config) + "'");
         combinedOptions.add("-Xdock:icon='Contents/Resources/icon.icns'");
         combinedOptions.addAll(config.getOptions());
+        if (config.isCds()) {
+            ClassDataSharing cds = new ClassDataSharing(new File(config.getJdkPath()), List.of());
+            String archivePath = "$APP_ROOT/" + CDS_ARCHIVE_DIR + "/" + cds.getArchiveFileName();
+            combinedOptions.add(cds.getRuntimeOption(archivePath));
+        }
         return combinedOptions;
     }
 
     private FileSet createClassPath(MacApplicationBundleExt config) {
         FileSet classPath = new FileSet();
         classPath.setDir(getContentDir(config));
-        if (AppHelper.hasShadowJarPlugin(getProject())) {
+        if (shadowJar.get()) {
             classPath.setIncludes("*-all.jar,*-shadow.jar");
         }
         classPath.setExcludes("*-sources.jar,*-javadoc.jar");
         return classPath;
     }
 
+    /**
+     * Returns the names of the JAR files that are included in the application
+     * bundle's class path, in class path order. Without an explicit class
+     * path, the launcher includes the JAR files in the order they are listed
+     * by the file system, which is not guaranteed to be the same on every
+     * machine. Class data sharing requires the class path order to match the
+     * order during training, so in that case the class path is pinned.
+     */
+    protected List<String> getClassPath(MacApplicationBundleExt config) {
+        File[] files = getContentDir(config).listFiles(file -> {
+            String name = file.getName();
+            boolean shadow = name.endsWith("-all.jar") || name.endsWith("-shadow.jar");
+            return file.isFile() && AppHelper.isClassPathEntry(file) && (shadow || !shadowJar.get());
+        });
+
+        if (files == null) {
+            return List.of();
+        }
+
+        return Arrays.stream(files)
+            .map(File::getName)
+            .sorted()
+            .toList();
+    }
+
     private File getContentDir(MacApplicationBundleExt config) {
         if (config.getContentDir() != null) {
             return new File(config.getContentDir());
         } else {
-            return AppHelper.getLibsDir(getProject());
+            return AppHelper.getLibsDir(getBuildDir());
         }
     }
 
@@ -121,13 +226,33 @@ public class CreateApplicationBundleTask extends DefaultTask {
         return arg;
     }
 
+    /**
+     * Creates the {@code jlink} configuration for {@code appbundler}. The
+     * runtime image is taken from the {@link RuntimeImageCache} if it has
+     * been created by a previous build, in which case {@code jlink} does not
+     * need to run.
+     */
     private JLink createJLink(MacApplicationBundleExt config, File jdk) {
-        JLink jLink = new JLink();
-        jLink.setRuntime(jdk.getAbsolutePath());
+        List<String> combinedModules = getCombinedModules(config, jdk);
 
-        List<String> combinedModules = new ArrayList<>();
-        combinedModules.addAll(config.getModules());
-        combinedModules.addAll(config.getAdditionalModules());
+        List<String> jlinkArgs = new ArrayList<>();
+        jlinkArgs.add("--compress=2");
+        jlinkArgs.add("--release-info=" + jdk.getAbsolutePath() + "/release");
+
+        // Dynamic CDS archives are created on top of the JDK's default
+        // CDS archive, which jlink does not include by default.
+        if (config.isCds() && !new ClassDataSharing(jdk, List.of()).isAOTCacheSupported()) {
+            jlinkArgs.add("--generate-cds-archive");
+        }
+
+        RuntimeImageCache runtimeCache = new RuntimeImageCache(runtimeCacheDir);
+        JLink jLink = new JLink() {
+            @Override
+            public void copyTo(File plugInsDir) throws IOException {
+                runtimeCache.copyRuntime(jdk, combinedModules, jlinkArgs, plugInsDir, super::copyTo);
+            }
+        };
+        jLink.setRuntime(jdk.getAbsolutePath());
 
         for (String module : combinedModules) {
             JMod jModule = new JMod();
@@ -135,12 +260,32 @@ public class CreateApplicationBundleTask extends DefaultTask {
             jLink.addConfiguredJMod(jModule);
         }
 
-        jLink.addConfiguredArgument(createArg("--compress=2"));
-        jLink.addConfiguredArgument(createArg("--release-info=" + jdk.getAbsolutePath() + "/release"));
-
+        jlinkArgs.forEach(arg -> jLink.addConfiguredArgument(createArg(arg)));
         return jLink;
     }
 
+    /**
+     * Returns the list of modules that should be included in the embedded
+     * Java runtime. If module detection is enabled, the configured modules
+     * are replaced by the modules the application actually requires.
+     */
+    private List<String> getCombinedModules(MacApplicationBundleExt config, File jdk) {
+        List<String> combinedModules = new ArrayList<>();
+
+        if (config.isDetectModules()) {
+            ModuleAnalyzer analyzer = new ModuleAnalyzer(jdk);
+            List<String> required = analyzer.findRequiredModules(getContentDir(config),
+                config.getMainJarName());
+            getLogger().lifecycle(analyzer.describeSavings(config.getModules(), required));
+            combinedModules.addAll(required);
+        } else {
+            combinedModules.addAll(config.getModules());
+        }
+
+        combinedModules.addAll(config.getAdditionalModules());
+        return combinedModules.stream().distinct().toList();
+    }
+
     private Architecture toArch(String arch) {
         Architecture result = new Architecture();
         result.setName(arch);
@@ -155,9 +300,13 @@ public class CreateApplicationBundleTask extends DefaultTask {
         return displayName;
     }
 
+    private File getBuildDir() {
+        return buildDir.get().getAsFile();
+    }
+
     private void copyBinaryFile(File binaryFile, MacApplicationBundleExt config) {
         try {
-            File nativesDir = config.locateNativesDir(getProject());
+            File nativesDir = config.locateNativesDir(getBuildDir());
             File outputFile = new File(nativesDir, binaryFile.getName());
             Files.copy(binaryFile.toPath(), outputFile.toPath());
         } catch (IOException e) {
@@ -39,11 +39,17 @@ public class MacApplicationBundleExt implements Validatable {
     private String mainClassName;
     private List<String> modules;
     private List<String> additionalModules;
+    private boolean detectModules;
     private List<String> options;
     private List<String> args;
     private String jdkPath;
     private boolean signNativeLibraries;
     private List<String> additionalBinaries;
+    private boolean cds;
+    private List<String> cdsTrainingArgs;
+    private String codesignPath;
+    private String jpackagePath;
+    private int signWorkers;
     private String outputDir;
 
     public static final String SIGN_APP_ENV = "MAC_SIGN_APP_IDENTITY";
@@ -69,17 +75,27 @@ public class MacApplicationBundleExt implements Validatable {
         architectures = List.of("arm64", "x86_64");
         modules = DEFAULT_MODULES;
         additionalModules = Collections.emptyList();
+        detectModules = false;
         options = List.of("-Xmx2g");
         args = Collections.emptyList();
         jdkPath = Optional.ofNullable(System.getenv("EMBEDDED_JAVA_HOME"))
             .orElse(AppHelper.getEnvironmentVariable("JAVA_HOME"));
         signNativeLibraries = false;
         additionalBinaries = Collections.emptyList();
+        cds = false;
+        cdsTrainingArgs = Collections.emptyList();
+        codesignPath = "codesign";
+        jpackagePath = "jpackage";
+        signWorkers = Runtime.getRuntime().availableProcessors();
         outputDir = "mac";
     }
 
     public File getOutputDir(Project project) {
-        return AppHelper.getOutputDir(project, outputDir);
+        return getOutputDir(project.getLayout().getBuildDirectory().get().getAsFile());
+    }
+
+    public File getOutputDir(File buildDir) {
+        return AppHelper.getOutputDir(buildDir, outputDir);
     }
 
     @Override
@@ -89,19 +105,15 @@ public class MacApplicationBundleExt implements Validatable {
         AppHelper.check(bundleVersion != null, "Missing macApplicationBundle.bundleVersion");
         AppHelper.check(mainJarName != null, "Missing macApplicationBundle.mainJarName");
         AppHelper.check(mainClassName != null, "Missing macApplicationBundle.mainClassName");
+        AppHelper.check(signWorkers >= 1, "macApplicationBundle.signWorkers must be at least 1");
 
         File jdk = new File(jdkPath);
         AppHelper.check(jdk.exists(), "JDK not found: " + jdk.getAbsolutePath());
         AppHelper.check(jdk.getName().equals("Home"), "JDK should point to /Contents/Home");
     }
 
-    protected File locateApplicationBundle(Project project) {
-        return new File(getOutputDir(project), getName() + ".app");
-    }
-
-    protected File locateEmbeddedJDK(Project project) {
-        File appBundleDir = locateApplicationBundle(project);
-        return locateEmbeddedJDK(appBundleDir);
+    protected File locateApplicationBundle(File buildDir) {
+        return new File(getOutputDir(buildDir), getName() + ".app");
     }
 
     protected File locateEmbeddedJDK(File appBundleDir) {
@@ -117,8 +129,8 @@ public class MacApplicationBundleExt implements Validatable {
         throw new RuntimeException("Cannot locate embedded JDK: " + appBundleDir.getAbsolutePath());
     }
 
-    protected File locateNativesDir(Project project) {
-        File appBundleDir = locateApplicationBundle(project);
+    protected File locateNativesDir(File buildDir) {
+        File appBundleDir = locateApplicationBundle(buildDir);
         return new File(appBundleDir, "Contents/MacOS");
     }
 }
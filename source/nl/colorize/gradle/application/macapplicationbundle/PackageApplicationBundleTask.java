@@ -7,8 +7,12 @@
 package nl.colorize.gradle.application.macapplicationbundle;
 
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.ClassDataSharing;
+import nl.colorize.gradle.application.ModuleAnalyzer;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 
@@ -27,47 +31,154 @@ import java.util.List;
 public class PackageApplicationBundleTask extends DefaultTask {
 
     private ExecOperations execService;
+    private MacApplicationBundleExt config;
+    private Provider<Directory> buildDir;
 
     private static final String ENTITLEMENTS = "entitlements-app.plist";
+    private static final List<String> INSTALLER_TYPES = List.of("dmg", "pkg");
+    private static final String APP_IMAGE_DIR = "mac-app-image";
+    private static final String JLINK_OPTIONS = "--strip-native-commands --strip-debug --no-man-pages " +
+        "--no-header-files";
 
     @Inject
     public PackageApplicationBundleTask(ExecOperations execService) {
         this.execService = execService;
     }
 
+    public void configure(Project project, MacApplicationBundleExt config) {
+        this.config = config;
+        this.buildDir = project.getLayout().getBuildDirectory();
+    }
+
     @TaskAction
     public void run() {
         AppHelper.requireMac();
-        ExtensionContainer ext = getProject().getExtensions();
-        MacApplicationBundleExt config = ext.getByType(MacApplicationBundleExt.class);
         run(config);
     }
 
     protected void run(MacApplicationBundleExt config) {
-        File outputDir = config.getOutputDir(getProject());
+        String identity = AppHelper.getEnvironmentVariable(MacApplicationBundleExt.SIGN_APP_ENV);
+        packageApplication(config, identity);
+    }
+
+    /**
+     * Creates the application image once, then creates the installers from
+     * this application image in parallel. This avoids creating the runtime
+     * and application image separately for every installer type.
+     */
+    protected void packageApplication(MacApplicationBundleExt config, String identity) {
+        File outputDir = config.getOutputDir(getBuildDir());
         AppHelper.cleanDirectory(outputDir);
+        File appImageDir = new File(getBuildDir(), APP_IMAGE_DIR);
+        AppHelper.cleanDirectory(appImageDir);
+        File entitlements = generateEntitlements();
+
+        execService.exec(exec -> exec.commandLine(getAppImageCommand(config, appImageDir, identity,
+            entitlements)));
+        File appImage = new File(appImageDir, config.getName() + ".app");
+
+        // The application image cannot be signed while it is created,
+        // since adding the archive would invalidate the signature.
+        if (config.isCds()) {
+            createClassDataSharingArchive(config, appImage);
+            execService.exec(exec -> exec.commandLine(getSignCommand(config, appImage, identity,
+                entitlements)));
+        }
 
-        execService.exec(exec -> exec.commandLine(getCommand("dmg", config)));
-        execService.exec(exec -> exec.commandLine(getCommand("pkg", config)));
+        AppHelper.mapParallel(INSTALLER_TYPES, INSTALLER_TYPES.size(), packageType -> {
+            execService.exec(exec -> exec.commandLine(getInstallerCommand(packageType, config, appImage,
+                identity, entitlements)));
+            return packageType;
+        });
     }
 
-    protected List<String> getCommand(String packageType, MacApplicationBundleExt config) {
+    private void createClassDataSharingArchive(MacApplicationBundleExt config, File appImage) {
+        File runtime = new File(appImage, "Contents/runtime/Contents/Home");
+        ClassDataSharing cds = new ClassDataSharing(runtime, config.getCdsTrainingArgs());
+
+        try {
+            File appDir = new File(appImage, "Contents/app");
+            File archive = cds.trainAppImage(appDir, new File(config.getJdkPath()));
+            getLogger().lifecycle("Created class data sharing archive {}", archive.getName());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create class data sharing archive", e);
+        }
+    }
+
+    /**
+     * Returns the command for creating the application image. The image is
+     * signed while it is created, unless class data sharing is enabled.
+     */
+    protected List<String> getAppImageCommand(MacApplicationBundleExt config, File appImageDir,
+                                              String identity, File entitlements) {
         List<String> command = new ArrayList<>();
-        command.add("jpackage");
+        command.add(config.getJpackagePath());
+        command.add("--type");
+        command.add("app-image");
+        command.addAll(getApplicationArgs(config));
+        command.add("--icon");
+        command.add(new File(config.getIcon()).getAbsolutePath());
+        command.add("--dest");
+        command.add(appImageDir.getAbsolutePath());
+        command.addAll(getContentArgs(config));
+
+        if (config.isCds()) {
+            ClassDataSharing cds = new ClassDataSharing(new File(config.getJdkPath()), List.of());
+            command.add("--java-options");
+            command.add(cds.getRuntimeOption("$APPDIR/" + cds.getArchiveFileName()));
+            if (!cds.isAOTCacheSupported()) {
+                command.add("--jlink-options");
+                command.add(JLINK_OPTIONS + " --generate-cds-archive");
+            }
+        } else {
+            command.addAll(getSigningArgs(identity, entitlements));
+        }
+
+        return command;
+    }
+
+    protected List<String> getSignCommand(MacApplicationBundleExt config, File appImage, String identity,
+                                          File entitlements) {
+        List<String> command = new ArrayList<>();
+        command.add(config.getJpackagePath());
+        command.add("--type");
+        command.add("app-image");
+        command.add("--app-image");
+        command.add(appImage.getAbsolutePath());
+        command.addAll(getSigningArgs(identity, entitlements));
+        return command;
+    }
+
+    protected List<String> getInstallerCommand(String packageType, MacApplicationBundleExt config,
+                                               File appImage, String identity, File entitlements) {
+        List<String> command = new ArrayList<>();
+        command.add(config.getJpackagePath());
         command.add("--type");
         command.add(packageType);
+        command.add("--app-image");
+        command.add(appImage.getAbsolutePath());
+        command.addAll(getApplicationArgs(config));
+        command.add("--dest");
+        command.add(config.getOutputDir(getBuildDir()).getAbsolutePath());
+        command.addAll(getSigningArgs(identity, entitlements));
+        return command;
+    }
+
+    private List<String> getApplicationArgs(MacApplicationBundleExt config) {
+        List<String> command = new ArrayList<>();
         command.add("--app-version");
         command.add(config.getBundleVersion());
         command.add("--copyright");
         command.add(config.getCopyright());
         command.add("--description");
         command.add(config.getDescription());
-        command.add("--icon");
-        command.add(new File(config.getIcon()).getAbsolutePath());
         command.add("--name");
         command.add(config.getName());
-        command.add("--dest");
-        command.add(config.getOutputDir(getProject()).getAbsolutePath());
+        return command;
+    }
+
+    private List<String> getContentArgs(MacApplicationBundleExt config) {
+        List<String> command = new ArrayList<>();
         command.add("--add-modules");
         command.add(getModules(config));
         command.add("--main-class");
@@ -80,20 +191,44 @@ public class PackageApplicationBundleTask extends DefaultTask {
             command.add("--arguments");
             command.add(String.join(" ", config.getArgs()));
         }
+        return command;
+    }
+
+    private List<String> getSigningArgs(String identity, File entitlements) {
+        List<String> command = new ArrayList<>();
         command.add("--mac-sign");
         command.add("--mac-app-store");
         command.add("--mac-entitlements");
-        command.add(generateEntitlements().getAbsolutePath());
+        command.add(entitlements.getAbsolutePath());
         command.add("--mac-signing-key-user-name");
-        command.add(AppHelper.getEnvironmentVariable(MacApplicationBundleExt.SIGN_APP_ENV));
+        command.add(identity);
         return command;
     }
 
-    private String getModules(MacApplicationBundleExt config) {
+    private File getBuildDir() {
+        return buildDir.get().getAsFile();
+    }
+
+    /**
+     * Returns the modules that should be included in the Java runtime. If
+     * module detection is enabled, the configured modules are replaced by
+     * the modules the application actually requires.
+     */
+    protected String getModules(MacApplicationBundleExt config) {
         List<String> modules = new ArrayList<>();
-        modules.addAll(config.getModules());
+
+        if (config.isDetectModules()) {
+            ModuleAnalyzer analyzer = new ModuleAnalyzer(new File(config.getJdkPath()));
+            List<String> required = analyzer.findRequiredModules(new File(config.getContentDir()),
+                config.getMainJarName());
+            getLogger().lifecycle(analyzer.describeSavings(config.getModules(), required));
+            modules.addAll(required);
+        } else {
+            modules.addAll(config.getModules());
+        }
+
         modules.addAll(config.getAdditionalModules());
-        return String.join(",", modules);
+        return String.join(",", modules.stream().distinct().toList());
     }
 
     private File generateEntitlements() {
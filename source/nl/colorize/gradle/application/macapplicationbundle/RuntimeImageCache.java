@@ -0,0 +1,127 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.macapplicationbundle;
+
+import nl.colorize.gradle.application.AppHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+
+/**
+ * Stores the Java runtime image created by {@code jlink}, so that it can be
+ * reused by later builds. Running {@code jlink} is the most expensive part
+ * of creating the application bundle, but the runtime only depends on the
+ * JDK, the list of modules, and the {@code jlink} arguments, which rarely
+ * change. Runtime images are identified by a hash of these inputs and the
+ * JDK's {@code release} file, so updating the JDK will create a new image.
+ * <p>
+ * The runtime image is copied into the application bundle, rather than
+ * linked, since signing the application bundle modifies the binaries in
+ * the runtime.
+ */
+public class RuntimeImageCache {
+
+    private File cacheDir;
+
+    private static final String FORMAT_VERSION = "1";
+
+    public RuntimeImageCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Copies the runtime image into the specified directory, creating the
+     * runtime image first if the cache does not contain it yet. The runtime
+     * image is created by invoking the provided action with a temporary
+     * directory.
+     */
+    public void copyRuntime(File jdk, List<String> modules, List<String> jlinkArgs, File targetDir,
+                            RuntimeBuilder builder) throws IOException {
+        File runtimeImage = new File(cacheDir, getKey(jdk, modules, jlinkArgs));
+
+        if (!runtimeImage.exists()) {
+            createRuntimeImage(runtimeImage, builder);
+        }
+
+        copyDirectory(runtimeImage.toPath(), targetDir.toPath());
+    }
+
+    /**
+     * Creates the runtime image in a temporary directory, then moves it to
+     * its final location. This prevents other builds that use the same
+     * cache from seeing a runtime image that has not been completely written.
+     */
+    private void createRuntimeImage(File runtimeImage, RuntimeBuilder builder) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        Path tempDir = Files.createTempDirectory(cacheDir.toPath(), "runtime-");
+
+        try {
+            builder.build(tempDir.toFile());
+            Files.move(tempDir, runtimeImage.toPath(), ATOMIC_MOVE);
+        } catch (FileSystemException e) {
+            // Another build created the same runtime image in the meantime.
+            if (!runtimeImage.exists()) {
+                throw e;
+            }
+        } finally {
+            AppHelper.cleanDirectory(tempDir.toFile());
+            Files.deleteIfExists(tempDir);
+        }
+    }
+
+    /**
+     * Copies all files in the source directory to the target directory.
+     * Symbolic links are copied as links, since {@code jlink} uses them to
+     * avoid duplicate license files.
+     */
+    private void copyDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                Path targetFile = target.resolve(source.relativize(file));
+
+                if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectories(targetFile);
+                } else {
+                    Files.copy(file, targetFile, COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a hash based on all inputs that influence the runtime image.
+     */
+    protected String getKey(File jdk, List<String> modules, List<String> jlinkArgs) throws IOException {
+        File releaseFile = new File(jdk, "release");
+
+        StringBuilder key = new StringBuilder();
+        key.append(FORMAT_VERSION).append("\n");
+        key.append(jdk.getAbsolutePath()).append("\n");
+        key.append(releaseFile.exists() ? AppHelper.hash(releaseFile) : "").append("\n");
+        key.append(String.join(",", modules.stream().distinct().sorted().toList())).append("\n");
+        key.append(String.join(" ", jlinkArgs)).append("\n");
+        return AppHelper.hash(key.toString());
+    }
+
+    /**
+     * Creates the runtime image in the specified directory.
+     */
+    @FunctionalInterface
+    public interface RuntimeBuilder {
+
+        public void build(File dir) throws IOException;
+    }
+}
@@ -8,7 +8,9 @@ package nl.colorize.gradle.application.macapplicationbundle;
 
 import nl.colorize.gradle.application.AppHelper;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 
@@ -18,10 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
-import java.util.Collections;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -34,7 +33,11 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class SignApplicationBundleTask extends DefaultTask {
 
     private ExecOperations execService;
+    private MacApplicationBundleExt config;
+    private Provider<Directory> buildDir;
+    private File signatureCacheDir;
 
+    private static final String SIGNATURE_CACHE_DIR = "caches/colorize-application-plugin/mac-signatures";
     private static final String ENTITLEMENTS_APP = "entitlements-app.plist";
     private static final String ENTITLEMENTS_JRE = "entitlements-jre.plist";
 
@@ -43,13 +46,16 @@ public class SignApplicationBundleTask extends DefaultTask {
         this.execService = execService;
     }
 
+    public void configure(Project project, MacApplicationBundleExt config) {
+        this.config = config;
+        this.buildDir = project.getLayout().getBuildDirectory();
+        this.signatureCacheDir = new File(project.getGradle().getGradleUserHomeDir(), SIGNATURE_CACHE_DIR);
+    }
+
     @TaskAction
     public void run() {
         AppHelper.requireMac();
 
-        ExtensionContainer ext = getProject().getExtensions();
-        MacApplicationBundleExt config = ext.getByType(MacApplicationBundleExt.class);
-
         try {
             run(config);
         } catch (IOException e) {
@@ -58,10 +64,9 @@ public class SignApplicationBundleTask extends DefaultTask {
     }
 
     protected void run(MacApplicationBundleExt config) throws IOException {
-        File appBundle = config.locateApplicationBundle(getProject());
-        File embeddedJDK = config.locateEmbeddedJDK(getProject());
-        File appEntitlements = generateEntitlements(ENTITLEMENTS_APP);
-        File jreEntitlements = generateEntitlements(ENTITLEMENTS_JRE);
+        File appBundle = config.locateApplicationBundle(getBuildDir());
+        File embeddedJDK = config.locateEmbeddedJDK(appBundle);
+        String identity = AppHelper.getEnvironmentVariable(MacApplicationBundleExt.SIGN_APP_ENV);
 
         checkEmbeddedJDK(embeddedJDK);
 
@@ -69,15 +74,43 @@ public class SignApplicationBundleTask extends DefaultTask {
             extractNativeLibraries(config);
         }
 
-        for (File file : AppHelper.walk(appBundle, file -> isNativeBinary(file, config))) {
-            sign(file, jreEntitlements);
-        }
-
-        sign(embeddedJDK, jreEntitlements);
-        sign(appBundle, appEntitlements);
+        signApplicationBundle(config, appBundle, embeddedJDK, identity);
         createInstallerPackage(config, appBundle);
     }
 
+    /**
+     * Signs the application bundle from the inside out, since signing a
+     * directory requires everything inside it to already be signed. The
+     * native binaries do not depend on each other, so they are signed in
+     * parallel. The embedded JDK is signed once all binaries have been
+     * signed, and the application bundle itself is signed last. If signing
+     * fails for one or more binaries, all failures are reported together
+     * and the JDK and application bundle are not signed.
+     * <p>
+     * Binaries that were already signed with the same identity by a
+     * previous build are taken from the {@link SignatureCache}. The JDK and
+     * the application bundle are always signed, since their signature
+     * covers the entire directory.
+     */
+    protected void signApplicationBundle(MacApplicationBundleExt config, File appBundle, File embeddedJDK,
+                                         String identity) throws IOException {
+        File appEntitlements = generateEntitlements(ENTITLEMENTS_APP);
+        File jreEntitlements = generateEntitlements(ENTITLEMENTS_JRE);
+        SignatureCache cache = new SignatureCache(signatureCacheDir);
+        List<File> binaries = AppHelper.walk(appBundle, file -> isNativeBinary(file, config));
+
+        List<Boolean> signed = AppHelper.mapParallel(binaries, config.getSignWorkers(), binary ->
+            cache.sign(binary, identity, jreEntitlements,
+                file -> sign(config, file, identity, jreEntitlements)));
+
+        long skipped = signed.stream().filter(result -> !result).count();
+        getLogger().lifecycle("Signed {} native binaries, reused {} signed binaries from cache",
+            binaries.size() - skipped, skipped);
+
+        sign(config, embeddedJDK, identity, jreEntitlements);
+        sign(config, appBundle, identity, appEntitlements);
+    }
+
     private void checkEmbeddedJDK(File embeddedJDK) {
         File dylib = new File(embeddedJDK, "Contents/MacOS/libjli.dylib");
         List<String> command = List.of("xattr", dylib.getAbsolutePath());
@@ -95,7 +128,7 @@ public class SignApplicationBundleTask extends DefaultTask {
 
     private boolean isNativeBinary(File file, MacApplicationBundleExt config) {
         if (!config.getAdditionalBinaries().isEmpty()) {
-            File nativesDir = config.locateNativesDir(getProject());
+            File nativesDir = config.locateNativesDir(getBuildDir());
             if (file.getParentFile().equals(nativesDir)) {
                 return true;
             }
@@ -105,10 +138,10 @@ public class SignApplicationBundleTask extends DefaultTask {
             file.getName().equals("jspawnhelper");
     }
 
-    private void sign(File target, File entitlements) {
+    private void sign(MacApplicationBundleExt config, File target, String identity, File entitlements) {
         List<String> command = List.of(
-            "codesign",
-            "-s", AppHelper.getEnvironmentVariable(MacApplicationBundleExt.SIGN_APP_ENV),
+            config.getCodesignPath(),
+            "-s", identity,
             "-vvvv",
             "--force",
             "--entitlements", entitlements.getAbsolutePath(),
@@ -120,7 +153,7 @@ public class SignApplicationBundleTask extends DefaultTask {
     }
 
     private void createInstallerPackage(MacApplicationBundleExt config, File appFile) {
-        File pkgFile = new File(config.getOutputDir(getProject()), config.getName() + ".pkg");
+        File pkgFile = new File(config.getOutputDir(getBuildDir()), config.getName() + ".pkg");
 
         List<String> command = List.of(
             "productbuild",
@@ -144,25 +177,34 @@ public class SignApplicationBundleTask extends DefaultTask {
         return tempFile;
     }
 
+    /**
+     * Copies the native libraries from the application's JAR file to the
+     * application bundle, so that they can be signed. The libraries are only
+     * extracted from the JAR file when they have changed since the last
+     * build, otherwise they are copied from the {@link SignatureCache}.
+     */
     private void extractNativeLibraries(MacApplicationBundleExt config) throws IOException {
-        File appBundle = config.locateApplicationBundle(getProject());
+        File appBundle = config.locateApplicationBundle(getBuildDir());
         File jarDir = new File(appBundle, "/Contents/Java");
         File jarFile = new File(jarDir, config.getMainJarName());
-        File nativesDir = config.locateNativesDir(getProject());
-
-        try (JarFile jar = new JarFile(jarFile)) {
-            for (JarEntry entry : Collections.list(jar.entries())) {
-                if (isCompatibleNativeLibrary(entry.getName(), config)) {
-                    String fileName = entry.getName().substring(entry.getName().lastIndexOf("/") + 1);
-                    File dylib = new File(nativesDir, fileName);
-                    if (!dylib.exists()) {
-                        Files.copy(jar.getInputStream(entry), dylib.toPath());
-                    }
-                }
+        File nativesDir = config.locateNativesDir(getBuildDir());
+
+        SignatureCache cache = new SignatureCache(signatureCacheDir);
+        File extractDir = cache.extractNativeLibraries(jarFile,
+            name -> isCompatibleNativeLibrary(name, config));
+
+        for (File extracted : extractDir.listFiles()) {
+            File dylib = new File(nativesDir, extracted.getName());
+            if (!dylib.exists()) {
+                Files.copy(extracted.toPath(), dylib.toPath());
             }
         }
     }
 
+    private File getBuildDir() {
+        return buildDir.get().getAsFile();
+    }
+
     private boolean isCompatibleNativeLibrary(String name, MacApplicationBundleExt config) {
         if (!name.endsWith(".dylib")) {
             return false;
@@ -0,0 +1,148 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.macapplicationbundle;
+
+import nl.colorize.gradle.application.AppHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Stores signed versions of native binaries, so that they can be reused by
+ * later builds. The application bundle is created from scratch every time,
+ * but the native binaries in the embedded JDK rarely change, so in most
+ * builds they would otherwise be signed again with the exact same result.
+ * Signed binaries are identified by a hash of the binary's contents before
+ * signing, the signing identity, and the entitlements.
+ * <p>
+ * The native libraries that are extracted from the application's JAR file
+ * are also stored in the cache, identified by the names and checksums of
+ * the JAR file entries. This means they are only extracted again when the
+ * native libraries in the JAR file have changed.
+ */
+class SignatureCache {
+
+    private File cacheDir;
+
+    private static final String FORMAT_VERSION = "1";
+
+    public SignatureCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Signs the specified binary using the provided action, unless the cache
+     * already contains the signed version of this binary. In that case the
+     * binary is replaced with the signed version. Binaries that have already
+     * been signed, and have not changed since, are left untouched. Returns
+     * true if the binary was signed, or false if signing was skipped.
+     */
+    public boolean sign(File binary, String identity, File entitlements, Consumer<File> signAction)
+            throws IOException {
+        String signingKey = FORMAT_VERSION + "\n" + identity + "\n" + AppHelper.hash(entitlements);
+        String originalHash = AppHelper.hash(binary);
+        File cached = getCacheFile(signingKey, originalHash);
+
+        if (cached.exists()) {
+            if (Files.mismatch(cached.toPath(), binary.toPath()) != -1L) {
+                Files.copy(cached.toPath(), binary.toPath(), REPLACE_EXISTING, COPY_ATTRIBUTES);
+            }
+            return false;
+        }
+
+        signAction.accept(binary);
+
+        store(binary, cached);
+        String signedHash = AppHelper.hash(binary);
+        if (!signedHash.equals(originalHash)) {
+            store(binary, getCacheFile(signingKey, signedHash));
+        }
+        return true;
+    }
+
+    private File getCacheFile(String signingKey, String binaryHash) {
+        return new File(cacheDir, "signed/" + AppHelper.hash(signingKey + "\n" + binaryHash));
+    }
+
+    /**
+     * Writes a file to the cache under a temporary name, then moves it to
+     * its final location. This prevents builds that are signing the same
+     * binary from seeing a file that has not been completely written.
+     */
+    private void store(File file, File cached) throws IOException {
+        Files.createDirectories(cached.getParentFile().toPath());
+        Path tempFile = Files.createTempFile(cached.getParentFile().toPath(), "binary-", ".tmp");
+
+        try {
+            Files.copy(file.toPath(), tempFile, REPLACE_EXISTING, COPY_ATTRIBUTES);
+            Files.move(tempFile, cached.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns a directory containing the native libraries from the specified
+     * JAR file that match the filter. The libraries are only extracted if
+     * the cache does not yet contain a directory for these JAR file entries.
+     */
+    public File extractNativeLibraries(File jarFile, Predicate<String> filter) throws IOException {
+        try (JarFile jar = new JarFile(jarFile)) {
+            List<JarEntry> entries = new ArrayList<>();
+            StringBuilder key = new StringBuilder(FORMAT_VERSION + "\n");
+
+            for (JarEntry entry : Collections.list(jar.entries())) {
+                if (filter.test(entry.getName())) {
+                    entries.add(entry);
+                    key.append(entry.getName()).append(" ").append(entry.getCrc()).append(" ")
+                        .append(entry.getSize()).append("\n");
+                }
+            }
+
+            File extractDir = new File(cacheDir, "natives/" + AppHelper.hash(key.toString()));
+            if (!extractDir.exists()) {
+                extract(jar, entries, extractDir);
+            }
+            return extractDir;
+        }
+    }
+
+    private void extract(JarFile jar, List<JarEntry> entries, File extractDir) throws IOException {
+        Files.createDirectories(extractDir.getParentFile().toPath());
+        Path tempDir = Files.createTempDirectory(extractDir.getParentFile().toPath(), "natives-");
+
+        try {
+            for (JarEntry entry : entries) {
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf("/") + 1);
+                Files.copy(jar.getInputStream(entry), tempDir.resolve(fileName), REPLACE_EXISTING);
+            }
+            Files.move(tempDir, extractDir.toPath(), ATOMIC_MOVE);
+        } catch (FileSystemException e) {
+            // Another build extracted the same libraries in the meantime.
+            if (!extractDir.exists()) {
+                throw e;
+            }
+        } finally {
+            AppHelper.cleanDirectory(tempDir.toFile());
+            Files.deleteIfExists(tempDir);
+        }
+    }
+}
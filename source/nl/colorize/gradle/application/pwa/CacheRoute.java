@@ -0,0 +1,149 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.pwa;
+
+import lombok.Getter;
+import lombok.Setter;
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.Validatable;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Describes how the service worker should handle requests for URLs that
+ * match a regular expression. The pattern is matched against the full
+ * request URL by the service worker, so it is limited to syntax that has
+ * the same meaning in Java and JavaScript. The cache size and age limits
+ * are optional, a value of zero indicates the cache is not limited.
+ */
+@Getter
+@Setter
+public class CacheRoute implements Validatable, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String pattern;
+    private String strategy;
+    private int maxEntries;
+    private int maxAge;
+    private int timeout;
+
+    public static final List<String> STRATEGIES = List.of(
+        "cache-first",
+        "stale-while-revalidate",
+        "network-first",
+        "network-only"
+    );
+
+    private static final String JAVASCRIPT_ESCAPES = "dDwWsSbBtnrfcxuk";
+    private static final List<String> JAVASCRIPT_GROUPS = List.of("(?:", "(?=", "(?!", "(?<=", "(?<!");
+
+    public CacheRoute() {
+        this.maxEntries = 0;
+        this.maxAge = 0;
+        this.timeout = 0;
+    }
+
+    /**
+     * Creates a route from named options, which is intended to be used from
+     * the Gradle build script, e.g.
+     * {@code route pattern: "/api/", strategy: "network-first", timeout: 3}.
+     */
+    public CacheRoute(Map<String, ?> options) {
+        this();
+
+        for (Map.Entry<String, ?> option : options.entrySet()) {
+            String value = String.valueOf(option.getValue());
+
+            switch (option.getKey()) {
+                case "pattern" -> pattern = value;
+                case "strategy" -> strategy = value;
+                case "maxEntries" -> maxEntries = Integer.parseInt(value);
+                case "maxAge" -> maxAge = Integer.parseInt(value);
+                case "timeout" -> timeout = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown pwa.route option: " + option.getKey());
+            }
+        }
+    }
+
+    @Override
+    public void validate() {
+        AppHelper.check(pattern != null, "Missing pwa.route pattern");
+        AppHelper.check(STRATEGIES.contains(strategy), "Invalid pwa.route strategy: " + strategy);
+        AppHelper.check(maxEntries >= 0, "pwa.route maxEntries cannot be negative");
+        AppHelper.check(maxAge >= 0, "pwa.route maxAge cannot be negative");
+        AppHelper.check(timeout >= 0, "pwa.route timeout cannot be negative");
+        AppHelper.check(timeout == 0 || strategy.equals("network-first"),
+            "pwa.route timeout is only supported for network-first");
+
+        try {
+            Pattern.compile(pattern);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid pwa.route pattern: " + pattern, e);
+        }
+
+        AppHelper.check(isJavaScriptCompatible(pattern),
+            "pwa.route pattern uses syntax that is not supported by JavaScript: " + pattern);
+    }
+
+    /**
+     * Returns false if the pattern uses syntax that is specific to Java
+     * regular expressions. JavaScript either rejects these constructs, or
+     * silently interprets them differently, e.g. {@code \p{L}} matches the
+     * literal text "p{L}" when the pattern is used with {@code new RegExp}.
+     * The pattern is expected to already be a valid Java regular expression.
+     */
+    private static boolean isJavaScriptCompatible(String pattern) {
+        boolean charClass = false;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            char next = i + 1 < pattern.length() ? pattern.charAt(i + 1) : 0;
+
+            if (c == '\\') {
+                if (Character.isLetter(next) && JAVASCRIPT_ESCAPES.indexOf(next) == -1) {
+                    return false;
+                }
+                if (next == 'x' && pattern.startsWith("{", i + 2)) {
+                    return false;
+                }
+                i++;
+            } else if (charClass) {
+                if (c == '[' || pattern.startsWith("&&", i)) {
+                    return false;
+                }
+                charClass = c != ']';
+            } else if (c == '[') {
+                int start = next == '^' ? i + 2 : i + 1;
+                if (pattern.startsWith("]", start)) {
+                    return false;
+                }
+                charClass = true;
+                i = start - 1;
+            } else if (c == '(' && next == '?') {
+                if (!isJavaScriptGroup(pattern, i)) {
+                    return false;
+                }
+                i++;
+            } else if ("*+?}".indexOf(c) != -1 && next == '+') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isJavaScriptGroup(String pattern, int index) {
+        boolean namedGroup = pattern.startsWith("(?<", index) && index + 3 < pattern.length() &&
+            Character.isLetter(pattern.charAt(index + 3));
+        return namedGroup || JAVASCRIPT_GROUPS.stream().anyMatch(group -> pattern.startsWith(group, index));
+    }
+}
@@ -7,9 +7,30 @@
 package nl.colorize.gradle.application.pwa;
 
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.AssetCompressor;
+import nl.colorize.gradle.application.AssetMinifier;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 
+import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -20,36 +41,113 @@ import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-public class GeneratePwaTask extends DefaultTask {
+@CacheableTask
+public abstract class GeneratePwaTask extends DefaultTask {
 
-    @TaskAction
-    public void run() {
-        PwaExt config = getProject().getExtensions().getByType(PwaExt.class);
-        run(config);
+    private FileSystemOperations fileSystem;
+
+    @Internal
+    public abstract DirectoryProperty getWebAppDir();
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileTree getWebAppFiles() {
+        return getWebAppDir().getAsFileTree().matching(pattern -> pattern.exclude(EXCLUDE));
     }
 
-    protected void run(PwaExt config) {
-        config.validate();
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getManifest();
+
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getServiceWorker();
+
+    @Input
+    public abstract Property<String> getCacheName();
+
+    @Input
+    public abstract ListProperty<CacheRoute> getRoutes();
+
+    @Input
+    public abstract Property<Boolean> getMinify();
+
+    @Input
+    public abstract ListProperty<String> getPrecompress();
+
+    @Input
+    public abstract Property<Integer> getPrecompressMinSize();
+
+    /**
+     * Brotli compression uses an external tool, and different versions of
+     * that tool can produce different output.
+     */
+    @Input
+    public abstract Property<String> getPrecompressToolVersion();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    private static final String EXCLUDE = "build/**";
+    private static final String SERVICE_WORKER_FILE = "service-worker.js";
+    private static final int REVISION_LENGTH = 16;
+
+    @Inject
+    public GeneratePwaTask(FileSystemOperations fileSystem) {
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Derives this task's properties from the {@code pwa} configuration. The
+     * configuration is only read once the properties are queried.
+     */
+    public void configure(Project project, PwaExt config) {
+        Directory projectDir = project.getLayout().getProjectDirectory();
+        Provider<PwaExt> ext = AppHelper.validated(project, config);
+        Provider<String> outputDir = ext.map(PwaExt::getOutputDir);
+
+        getWebAppDir().convention(projectDir.dir(ext.map(PwaExt::getWebAppDir)));
+        getManifest().convention(projectDir.file(ext.map(PwaExt::getManifest)));
+        getServiceWorker().convention(projectDir.file(ext.map(PwaExt::getServiceWorker)));
+        getCacheName().convention(ext.map(PwaExt::getCacheName));
+        getRoutes().convention(ext.map(PwaExt::getRoutes));
+        getMinify().convention(ext.map(PwaExt::isMinify));
+        getPrecompress().convention(ext.map(PwaExt::getPrecompress));
+        getPrecompressMinSize().convention(ext.map(PwaExt::getPrecompressMinSize));
+        getPrecompressToolVersion().convention(
+            AssetCompressor.getToolVersion(project.getProviders(), getPrecompress()));
+        getOutputDir().convention(project.getLayout().getBuildDirectory().dir(outputDir));
+    }
 
-        File outputDir = config.getOutputDir(getProject());
+    @TaskAction
+    public void run() {
+        File outputDir = getOutputDir().get().getAsFile();
         AppHelper.cleanDirectory(outputDir);
 
-        getProject().copy(copy -> {
-            copy.from(config.getWebAppDir());
+        fileSystem.copy(copy -> {
+            copy.from(getWebAppDir());
             copy.into(outputDir);
-            copy.exclude("build/**");
+            copy.exclude(EXCLUDE);
         });
 
         try {
             File indexFile = new File(outputDir, "index.html");
             rewriteHTML(indexFile);
-            writeManifest(config);
-            writeServiceWorker(config);
+            minify(outputDir);
+            writeManifest(outputDir);
+            writeServiceWorker(outputDir);
+            precompress(outputDir);
         } catch (IOException e) {
             throw new RuntimeException("Error while generating PWA", e);
         }
     }
 
+    protected void run(PwaExt config) {
+        configure(getProject(), config);
+        run();
+    }
+
     private void rewriteHTML(File indexFile) throws IOException {
         String manifestSnippet = "<link rel=\"manifest\" href=\"manifest.json\" />\n";
         String serviceWorkerSnippet = AppHelper.loadResourceFile("service-worker.html");
@@ -61,40 +159,107 @@ public class GeneratePwaTask extends DefaultTask {
         Files.writeString(indexFile.toPath(), html, UTF_8);
     }
 
-    private void writeManifest(PwaExt config) throws IOException {
-        String manifest = Files.readString(new File(config.getManifest()).toPath(), UTF_8);
-        File outputFile = new File(config.getOutputDir(getProject()), "manifest.json");
+    private void writeManifest(File outputDir) throws IOException {
+        String manifest = Files.readString(getManifest().get().getAsFile().toPath(), UTF_8);
+        File outputFile = new File(outputDir, "manifest.json");
         Files.writeString(outputFile.toPath(), manifest, UTF_8);
     }
 
-    private void writeServiceWorker(PwaExt config) throws IOException {
-        String serviceWorker = prepareServiceWorker(config);
-        File outputFile = new File(config.getOutputDir(getProject()), "service-worker.js");
+    private void writeServiceWorker(File outputDir) throws IOException {
+        String serviceWorker = prepareServiceWorker(outputDir);
+        File outputFile = new File(outputDir, SERVICE_WORKER_FILE);
         Files.writeString(outputFile.toPath(), serviceWorker,  UTF_8);
     }
 
-    private String prepareServiceWorker(PwaExt config) throws IOException {
-        if (config.getServiceWorker() != null) {
-            return Files.readString(new File(config.getServiceWorker()).toPath(), UTF_8);
+    /**
+     * Minifies the PWA's HTML, CSS, and JavaScript files. This happens before
+     * the service worker is generated, so that the precache manifest refers
+     * to the minified files.
+     */
+    private void minify(File outputDir) {
+        if (getMinify().get()) {
+            AssetMinifier minifier = new AssetMinifier();
+            minifier.minifyDirectory(outputDir, Runtime.getRuntime().availableProcessors());
+            getLogger().lifecycle("Minification saved {} bytes", minifier.getBytesSaved());
+        }
+    }
+
+    /**
+     * Writes precompressed variants of the PWA's files. This happens after the
+     * service worker has been generated, so the variants are not included in
+     * the precache manifest. Browsers request the original URLs, the web
+     * server then decides whether to serve a precompressed variant.
+     */
+    private void precompress(File outputDir) throws IOException {
+        if (!getPrecompress().get().isEmpty()) {
+            AssetCompressor.checkToolVersion(getPrecompress().get(), getPrecompressToolVersion().get(),
+                "pwa.precompress");
+            int workers = Runtime.getRuntime().availableProcessors();
+            AssetCompressor compressor = new AssetCompressor(getPrecompress().get(),
+                getPrecompressMinSize().get(), workers);
+            int written = compressor.compress(outputDir);
+            getLogger().info("Wrote {} precompressed files", written);
+        }
+    }
+
+    private String prepareServiceWorker(File outputDir) throws IOException {
+        if (getServiceWorker().isPresent()) {
+            return Files.readString(getServiceWorker().get().getAsFile().toPath(), UTF_8);
         }
 
-        Path baseDir = config.getOutputDir(getProject()).toPath();
-        List<String> resourceFiles = getResourceFileList(baseDir);
+        List<String> precacheManifest = generatePrecacheManifest(outputDir.toPath());
+
+        List<String> routes = getRoutes().get().stream()
+            .map(this::compileRoute)
+            .toList();
 
-        return AppHelper.rewriteTemplate("service-worker.js", Map.of(
-            "{{cacheName}}", config.getCacheName(),
-            "{{resourceFiles}}", String.join("", resourceFiles)
+        return AppHelper.rewriteTemplate(SERVICE_WORKER_FILE, Map.of(
+            "{{cacheName}}", getCacheName().get(),
+            "{{precacheManifest}}", String.join(",\n    ", precacheManifest),
+            "{{routes}}", String.join(",\n    ", routes)
         ));
     }
 
-    private List<String> getResourceFileList(Path baseDir) throws IOException {
+    /**
+     * Converts a route to a JavaScript object literal in the service worker.
+     * The route's cache name is based on its pattern, so that the cache can
+     * be reused when routes are reordered.
+     */
+    private String compileRoute(CacheRoute route) {
+        String pattern = route.getPattern().replace("\\", "\\\\").replace("\"", "\\\"");
+        String id = AppHelper.hash(route.getPattern()).substring(0, REVISION_LENGTH);
+
+        return "{id: \"" + id + "\", " +
+            "pattern: new RegExp(\"" + pattern + "\"), " +
+            "strategy: \"" + route.getStrategy() + "\", " +
+            "maxEntries: " + route.getMaxEntries() + ", " +
+            "maxAge: " + route.getMaxAge() + ", " +
+            "timeout: " + route.getTimeout() + "}";
+    }
+
+    /**
+     * Generates the precache manifest, which lists every file in the PWA
+     * together with a hash of its contents. The service worker uses the hash
+     * to determine which files have changed since the previous version. The
+     * service worker itself is not included, since the browser already
+     * checks it for changes.
+     */
+    private List<String> generatePrecacheManifest(Path baseDir) throws IOException {
+        List<Path> files;
+
         try (Stream<Path> stream = Files.walk(baseDir)) {
-            return stream.filter(file -> !Files.isDirectory(file))
-                .map(file -> baseDir.relativize(file).toString())
-                .filter(file -> !file.startsWith("userHome"))
+            files = stream.filter(file -> !Files.isDirectory(file))
+                .filter(file -> !baseDir.relativize(file).toString().startsWith("userHome"))
+                .filter(file -> !baseDir.relativize(file).toString().equals(SERVICE_WORKER_FILE))
                 .sorted()
-                .map(file -> "\"/" + file + "\",\n")
                 .toList();
         }
+
+        int workers = Runtime.getRuntime().availableProcessors();
+        return AppHelper.mapParallel(files, workers, file -> {
+            String url = "/" + baseDir.relativize(file).toString().replace(File.separatorChar, '/');
+            String revision = AppHelper.hash(file.toFile()).substring(0, REVISION_LENGTH);
+            return "{url: \"" + url.replace("\"", "\\\"") + "\", revision: \"" + revision + "\"}";
+        });
     }
 }
@@ -9,10 +9,14 @@ package nl.colorize.gradle.application.pwa;
 import lombok.Getter;
 import lombok.Setter;
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.AssetCompressor;
 import nl.colorize.gradle.application.Validatable;
 import org.gradle.api.Project;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -23,13 +27,33 @@ public class PwaExt implements Validatable {
     private String manifest;
     private String serviceWorker;
     private String cacheName;
+    private List<CacheRoute> routes;
+    private boolean minify;
+    private List<String> precompress;
+    private int precompressMinSize;
 
     public PwaExt() {
         this.outputDir = "pwa";
+        this.routes = new ArrayList<>();
+        this.minify = false;
+        this.precompress = new ArrayList<>();
+        this.precompressMinSize = 1024;
     }
 
     public File getOutputDir(Project project) {
-        return AppHelper.getOutputDir(project, outputDir);
+        return getOutputDir(project.getLayout().getBuildDirectory().get().getAsFile());
+    }
+
+    public File getOutputDir(File buildDir) {
+        return AppHelper.getOutputDir(buildDir, outputDir);
+    }
+
+    /**
+     * Adds a route that determines how the service worker handles requests
+     * for matching URLs. Routes are checked in the order they were added.
+     */
+    public void route(Map<String, ?> options) {
+        routes.add(new CacheRoute(options));
     }
 
     @Override
@@ -40,5 +64,11 @@ public class PwaExt implements Validatable {
 
         File indexFile = new File(webAppDir, "index.html");
         AppHelper.check(indexFile.exists(), "pwa.webAppDir not contain index.html");
+
+        routes.forEach(CacheRoute::validate);
+
+        AppHelper.check(AssetCompressor.FORMATS.containsAll(precompress),
+            "Invalid pwa.precompress: " + precompress);
+        AppHelper.check(precompressMinSize >= 0, "pwa.precompressMinSize cannot be negative");
     }
 }
@@ -0,0 +1,198 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Tag;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static nl.colorize.gradle.application.staticsite.StaticSiteExt.TEMPLATE_TAGS;
+
+/**
+ * Template chain that has been compiled into a list of literal HTML
+ * fragments. The positions of the content tags are resolved when the
+ * template is compiled, so rendering a page only consists of inserting the
+ * content between each fragment. This avoids having to clone, query, and
+ * serialize the template's DOM for every page.
+ * <p>
+ * The templates are pretty-printed, and the formatting around the content
+ * depends on whether the content starts with text, an inline element, or a
+ * block element. The template chain is therefore compiled once for each of
+ * these, using a placeholder of the same kind. Content is inserted using the
+ * indentation of the content tag, so that the rendered page is formatted in
+ * the same way as when the content would be part of the template's DOM.
+ * <p>
+ * Instances are immutable and can be shared between worker threads.
+ */
+class CompiledTemplate {
+
+    private Map<ContentType, List<String>> variants;
+
+    public static final CompiledTemplate EMPTY = new CompiledTemplate(null);
+
+    private static final Pattern START_TAG_PATTERN = Pattern.compile("<([a-zA-Z][a-zA-Z0-9-]*)");
+    private static final Pattern PRESERVE_WHITESPACE_PATTERN = Pattern.compile(
+        "<(/?)(pre|textarea|script|style|listing|xmp)\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    private CompiledTemplate(Map<ContentType, List<String>> variants) {
+        this.variants = variants;
+    }
+
+    /**
+     * Compiles a chain of templates, starting with the template closest to
+     * the content and ending with the outermost template. The chain is
+     * rendered with a placeholder as content, which is then located in the
+     * serialized HTML. The supplier is called for every variant, and should
+     * return documents that can be modified during compilation.
+     */
+    public static CompiledTemplate compile(Supplier<List<Document>> chain) {
+        Map<ContentType, List<String>> variants = new EnumMap<>(ContentType.class);
+
+        for (ContentType contentType : ContentType.values()) {
+            List<Document> templates = chain.get();
+            if (templates.isEmpty()) {
+                return EMPTY;
+            }
+
+            String marker = contentType.getPlaceholder(UUID.randomUUID().toString());
+            String html = marker;
+            for (Document template : templates) {
+                html = renderTemplate(template, html);
+            }
+
+            variants.put(contentType, List.of(html.split(Pattern.quote(marker), -1)));
+        }
+
+        return new CompiledTemplate(variants);
+    }
+
+    private static String renderTemplate(Document template, String content) {
+        for (String tagName : TEMPLATE_TAGS) {
+            for (Element element : template.select(tagName)) {
+                element.before(content);
+                element.remove();
+            }
+        }
+
+        Document.OutputSettings settings = new Document.OutputSettings();
+        settings.charset(UTF_8);
+        settings.indentAmount(4);
+        template.outputSettings(settings);
+        return template.html();
+    }
+
+    public String render(String content) {
+        try {
+            StringWriter buffer = new StringWriter();
+            render(content, buffer);
+            return buffer.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders the template directly to the specified output, which avoids
+     * creating a copy of the entire page in memory. If there are no
+     * templates, the content is written verbatim.
+     */
+    public void render(String content, Writer out) throws IOException {
+        if (variants == null) {
+            out.write(content);
+            return;
+        }
+
+        List<String> parts = variants.get(ContentType.of(content));
+        String trimmed = content.strip();
+
+        out.write(parts.getFirst());
+        for (int i = 1; i < parts.size(); i++) {
+            out.write(indent(trimmed, parts.get(i - 1)));
+            out.write(parts.get(i));
+        }
+    }
+
+    /**
+     * Indents all lines except the first using the indentation of the line
+     * that contains the content tag. Content is only indented if the
+     * content tag is on its own line. Lines within elements that preserve
+     * whitespace, such as {@code <pre>}, are not indented, since that would
+     * change how they are displayed.
+     */
+    private String indent(String content, String preceding) {
+        String indent = preceding.substring(preceding.lastIndexOf('\n') + 1);
+        if (indent.isEmpty() || !indent.isBlank() || !content.contains("\n")) {
+            return content;
+        }
+
+        StringBuilder buffer = new StringBuilder(content.length());
+        Matcher matcher = PRESERVE_WHITESPACE_PATTERN.matcher(content);
+        int depth = 0;
+        int position = 0;
+
+        while (matcher.find()) {
+            appendIndented(buffer, content.substring(position, matcher.start()), depth == 0 ? indent : "");
+            buffer.append(matcher.group());
+            depth = Math.max(depth + (matcher.group(1).isEmpty() ? 1 : -1), 0);
+            position = matcher.end();
+        }
+
+        appendIndented(buffer, content.substring(position), depth == 0 ? indent : "");
+        return buffer.toString();
+    }
+
+    private void appendIndented(StringBuilder buffer, String text, String indent) {
+        buffer.append(indent.isEmpty() ? text : text.replace("\n", "\n" + indent));
+    }
+
+    /**
+     * Indicates how content will be formatted when it is inserted into the
+     * template, based on the first node in the content.
+     */
+    private enum ContentType {
+        TEXT,
+        INLINE,
+        BLOCK;
+
+        private String getPlaceholder(String marker) {
+            return switch (this) {
+                case TEXT -> marker;
+                case INLINE -> "<span data-clrz-slot=\"" + marker + "\"></span>";
+                case BLOCK -> "<!--" + marker + "-->";
+            };
+        }
+
+        private static ContentType of(String content) {
+            String trimmed = content.stripLeading();
+            if (!trimmed.startsWith("<")) {
+                return TEXT;
+            }
+
+            Matcher matcher = START_TAG_PATTERN.matcher(trimmed);
+            if (!matcher.lookingAt()) {
+                return BLOCK;
+            }
+
+            Tag tag = Tag.valueOf(matcher.group(1).toLowerCase(Locale.ROOT));
+            return tag.isInline() ? INLINE : BLOCK;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the content directory, including all of its subdirectories, for
+ * changes. Editors tend to produce several file system events for a single
+ * save, so events that occur in quick succession are combined.
+ */
+class ContentWatcher implements AutoCloseable {
+
+    private File contentDir;
+    private WatchService watchService;
+    private Map<WatchKey, Path> watchedDirs;
+
+    private static final long DEBOUNCE_MILLIS = 100;
+
+    public ContentWatcher(File contentDir) throws IOException {
+        this.contentDir = contentDir;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchedDirs = new HashMap<>();
+
+        register(contentDir.toPath());
+    }
+
+    private void register(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path subDir : stream.filter(Files::isDirectory).toList()) {
+                WatchKey key = subDir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                watchedDirs.put(key, subDir);
+            }
+        }
+    }
+
+    /**
+     * Blocks until one or more files in the content directory have been
+     * changed, created, or deleted, then returns those files. If too many
+     * events occurred for the watch service to keep track of, this will
+     * return the content directory itself.
+     */
+    public Set<File> awaitChanges() throws IOException, InterruptedException {
+        Set<File> changed = new TreeSet<>();
+        WatchKey key = watchService.take();
+
+        while (key != null) {
+            processEvents(key, changed);
+            key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        return changed;
+    }
+
+    private void processEvents(WatchKey key, Set<File> changed) throws IOException {
+        Path dir = watchedDirs.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                changed.add(contentDir);
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            changed.add(path.toFile());
+
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                register(path);
+            }
+        }
+
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
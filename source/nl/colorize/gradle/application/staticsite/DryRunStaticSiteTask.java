@@ -0,0 +1,130 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.AssetMinifier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reports which pages {@link GenerateStaticSiteTask} would render, and which
+ * output files it would remove, without changing the output directory. This
+ * is a separate task without outputs, so that a dry run does not influence
+ * whether the static site itself is considered up-to-date.
+ */
+@UntrackedTask(because = "Only reports which pages would be rendered")
+public abstract class DryRunStaticSiteTask extends DefaultTask {
+
+    @Internal
+    public abstract DirectoryProperty getContentDir();
+
+    @Internal
+    public abstract Property<String> getTemplateFileName();
+
+    @Internal
+    public abstract Property<Boolean> getIncremental();
+
+    @Internal
+    public abstract Property<Integer> getWorkers();
+
+    @Internal
+    public abstract Property<Boolean> getMinify();
+
+    @Internal
+    public abstract ListProperty<Integer> getImageWidths();
+
+    @Internal
+    public abstract Property<String> getImageSizes();
+
+    @Internal
+    public abstract DirectoryProperty getOutputDir();
+
+    @Internal
+    public abstract RegularFileProperty getManifestFile();
+
+    @Internal
+    public abstract DirectoryProperty getImageCacheDir();
+
+    /**
+     * Derives this task's properties from the {@code staticSite} configuration.
+     * This uses the same output directory and manifest as
+     * {@link GenerateStaticSiteTask}.
+     */
+    public void configure(Project project, StaticSiteExt config) {
+        ProjectLayout layout = project.getLayout();
+        Provider<StaticSiteExt> ext = AppHelper.validated(project, config);
+        Provider<String> contentDir = ext.map(StaticSiteExt::getContentDir);
+        Provider<String> outputDir = ext.map(StaticSiteExt::getOutputDir);
+        Provider<String> manifestFile = outputDir.map(dir -> dir + "-manifest.txt");
+        Provider<String> imageCacheDir = outputDir.map(dir -> dir + "-images");
+
+        getContentDir().convention(layout.getProjectDirectory().dir(contentDir));
+        getTemplateFileName().convention(ext.map(StaticSiteExt::getTemplateFileName));
+        getIncremental().convention(ext.map(StaticSiteExt::isIncremental));
+        getWorkers().convention(ext.map(StaticSiteExt::getWorkers));
+        getMinify().convention(ext.map(StaticSiteExt::isMinify));
+        getImageWidths().convention(ext.map(StaticSiteExt::getImageWidths));
+        getImageSizes().convention(ext.map(StaticSiteExt::getImageSizes));
+        getOutputDir().convention(layout.getBuildDirectory().dir(outputDir));
+        getManifestFile().convention(layout.getBuildDirectory().file(manifestFile));
+        getImageCacheDir().convention(layout.getBuildDirectory().dir(imageCacheDir));
+    }
+
+    @TaskAction
+    public void run() {
+        File contentDir = getContentDir().get().getAsFile();
+        File outputDir = getOutputDir().get().getAsFile();
+
+        StaticSiteGenerator generator = new StaticSiteGenerator(contentDir, outputDir,
+            getTemplateFileName().get(), getWorkers().get());
+
+        // The minifier and responsive images are part of the page hashes,
+        // so they need to be configured in the same way as when generating.
+        if (getMinify().get()) {
+            generator.setMinifier(new AssetMinifier());
+        }
+
+        if (!getImageWidths().get().isEmpty()) {
+            generator.setResponsiveImages(new ResponsiveImages(getImageCacheDir().get().getAsFile(),
+                getImageWidths().get(), getImageSizes().get()));
+        }
+
+        try {
+            report(generator.dryRun(getManifestFile().get().getAsFile(), getIncremental().get()));
+        } catch (IOException e) {
+            throw new RuntimeException("Error while checking static site", e);
+        }
+    }
+
+    private void report(StaticSiteGenerator.DryRunReport report) {
+        getLogger().lifecycle("Pages that would be rendered: {}", report.render().size());
+        report.render().forEach(path -> getLogger().lifecycle("    {}", path));
+
+        if (!report.remove().isEmpty()) {
+            getLogger().lifecycle("Files that would be removed: {}", report.remove().size());
+            report.remove().forEach(path -> getLogger().lifecycle("    {}", path));
+        }
+    }
+
+    protected void run(StaticSiteExt config) {
+        configure(getProject(), config);
+        run();
+    }
+}
@@ -7,170 +7,176 @@
 package nl.colorize.gradle.application.staticsite;
 
 import nl.colorize.gradle.application.AppHelper;
-import org.commonmark.node.Node;
-import org.commonmark.parser.Parser;
-import org.commonmark.renderer.html.HtmlRenderer;
+import nl.colorize.gradle.application.AssetCompressor;
+import nl.colorize.gradle.application.AssetMinifier;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
-import static nl.colorize.gradle.application.staticsite.StaticSiteExt.TEMPLATE_TAGS;
+@CacheableTask
+public abstract class GenerateStaticSiteTask extends DefaultTask {
 
-public class GenerateStaticSiteTask extends DefaultTask {
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getContentDir();
 
-    private Map<File, Document> templateCache;
+    @Input
+    public abstract Property<String> getTemplateFileName();
 
-    public GenerateStaticSiteTask() {
-        this.templateCache = new HashMap<>();
-    }
+    @Input
+    public abstract Property<Boolean> getIncremental();
 
-    @TaskAction
-    public void run() {
-        StaticSiteExt config = getProject().getExtensions().getByType(StaticSiteExt.class);
-        run(config);
-    }
+    @Input
+    public abstract Property<Boolean> getMinify();
 
-    protected void run(StaticSiteExt config) {
-        File contentDir = new File(getProject().getProjectDir(), config.getContentDir());
-        File outputDir = config.getOutputDir(getProject());
+    @Input
+    public abstract ListProperty<Integer> getImageWidths();
 
-        AppHelper.cleanDirectory(outputDir);
-        templateCache.clear();
+    @Input
+    public abstract Property<String> getImageSizes();
 
-        try {
-            for (File file : traverse(contentDir, file -> isTemplateFile(file, config))) {
-                String html = Files.readString(file.toPath(), UTF_8);
-                validateTemplate(file, html);
-                Document template = Jsoup.parse(html);
-                templateCache.put(file, template);
-            }
+    @Input
+    public abstract ListProperty<String> getPrecompress();
 
-            for (File file : traverse(contentDir, file -> !isTemplateFile(file, config))) {
-                processFile(file, contentDir, outputDir, config);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Error while generating static site", e);
-        }
-    }
+    @Input
+    public abstract Property<Integer> getPrecompressMinSize();
 
-    private void validateTemplate(File file, String html) {
-        for (String tag : TEMPLATE_TAGS) {
-            if (html.contains("<" + tag + "/>") || html.contains("<" + tag + " />")) {
-                throw new IllegalStateException("Template " + file.getAbsolutePath() +
-                    " contains self-closing tag '" + tag + "'");
-            }
-        }
-    }
+    /**
+     * Brotli compression uses an external tool, and different versions of
+     * that tool can produce different output.
+     */
+    @Input
+    public abstract Property<String> getPrecompressToolVersion();
 
-    private List<File> traverse(File contentDir, Predicate<File> filter) throws IOException {
-        try (Stream<Path> stream = Files.walk(contentDir.toPath())) {
-            return stream.map(Path::toFile)
-                .distinct()
-                .filter(file -> !isIgnored(file))
-                .filter(file -> !file.equals(contentDir))
-                .filter(filter)
-                .toList();
-        }
-    }
+    /**
+     * The number of workers does not influence the generated site, so it
+     * is not considered as an input.
+     */
+    @Internal
+    public abstract Property<Integer> getWorkers();
 
-    private void processFile(File file, File contentDir, File outputDir, StaticSiteExt config)
-            throws IOException {
-        Path relativePath = contentDir.toPath().relativize(file.toPath());
-        File outputFile = outputDir.toPath().resolve(relativePath).toFile();
-
-        if (file.isDirectory()) {
-            outputFile.mkdir();
-        } else if (file.getName().endsWith(".html")) {
-            String content = Files.readString(file.toPath(), UTF_8);
-            processContentFile(content, file, outputFile, config);
-        } else if (file.getName().endsWith(".md")) {
-            String content = convertMarkdown(file);
-            processContentFile(content, file, outputFile, config);
-        } else {
-            Files.copy(file.toPath(), outputFile.toPath(), REPLACE_EXISTING);
-        }
-    }
+    /**
+     * Streaming mode only changes how the site is generated, the generated
+     * site is the same, so it is not considered as an input.
+     */
+    @Internal
+    public abstract Property<Boolean> getStreaming();
 
-    private String convertMarkdown(File file) throws IOException {
-        Parser markdownParser = Parser.builder().build();
-        Node markdown = markdownParser.parse(Files.readString(file.toPath(), UTF_8));
-        HtmlRenderer markdownHtmlRenderer = HtmlRenderer.builder().build();
-        return markdownHtmlRenderer.render(markdown);
-    }
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
 
-    private void processContentFile(String content, File file, File outputFile, StaticSiteExt config)
-            throws IOException {
-        for (Document template : findTemplateChain(file, config)) {
-            content = renderTemplate(content, template);
-        }
+    /**
+     * The manifest is only used to speed up incremental builds. Gradle
+     * removes it when the output is restored from the build cache, in which
+     * case the next build will simply render all pages.
+     */
+    @LocalState
+    public abstract RegularFileProperty getManifestFile();
 
-        if (outputFile.getName().endsWith(".md")) {
-            outputFile = new File(outputFile.getParentFile(),
-                outputFile.getName().replace(".md", ".html"));
-        }
+    /**
+     * Responsive image derivatives are cached across builds, so that images
+     * only need to be scaled again when they have changed.
+     */
+    @LocalState
+    public abstract DirectoryProperty getImageCacheDir();
 
-        Files.writeString(outputFile.toPath(), content, UTF_8);
-    }
+    /**
+     * Records which files were not worth precompressing, so that they are
+     * not compressed again during incremental builds.
+     */
+    @LocalState
+    public abstract RegularFileProperty getPrecompressStateFile();
 
     /**
-     * Returns a list of templates that should be applied to the specified file,
-     * with the order of the list matching the order in which the templates
-     * should be applied. If there are no templates defined, the list will be
-     * empty, and the file's content should be used verbatim.
+     * Derives this task's properties from the {@code staticSite} configuration.
+     * The configuration is only read once the properties are queried.
      */
-    private List<Document> findTemplateChain(File file, StaticSiteExt config) {
-        List<File> parentChain = new ArrayList<>();
-        File current = file.getParentFile();
+    public void configure(Project project, StaticSiteExt config) {
+        ProjectLayout layout = project.getLayout();
+        Provider<StaticSiteExt> ext = AppHelper.validated(project, config);
+        Provider<String> contentDir = ext.map(StaticSiteExt::getContentDir);
+        Provider<String> outputDir = ext.map(StaticSiteExt::getOutputDir);
+        Provider<String> manifestFile = outputDir.map(dir -> dir + "-manifest.txt");
+        Provider<String> imageCacheDir = outputDir.map(dir -> dir + "-images");
+        Provider<String> precompressStateFile = outputDir.map(dir -> dir + "-precompress.txt");
+
+        getContentDir().convention(layout.getProjectDirectory().dir(contentDir));
+        getTemplateFileName().convention(ext.map(StaticSiteExt::getTemplateFileName));
+        getIncremental().convention(ext.map(StaticSiteExt::isIncremental));
+        getWorkers().convention(ext.map(StaticSiteExt::getWorkers));
+        getStreaming().convention(ext.map(StaticSiteExt::isStreaming));
+        getMinify().convention(ext.map(StaticSiteExt::isMinify));
+        getImageWidths().convention(ext.map(StaticSiteExt::getImageWidths));
+        getImageSizes().convention(ext.map(StaticSiteExt::getImageSizes));
+        getPrecompress().convention(ext.map(StaticSiteExt::getPrecompress));
+        getPrecompressMinSize().convention(ext.map(StaticSiteExt::getPrecompressMinSize));
+        getPrecompressToolVersion().convention(
+            AssetCompressor.getToolVersion(project.getProviders(), getPrecompress()));
+        getOutputDir().convention(layout.getBuildDirectory().dir(outputDir));
+        getManifestFile().convention(layout.getBuildDirectory().file(manifestFile));
+        getImageCacheDir().convention(layout.getBuildDirectory().dir(imageCacheDir));
+        getPrecompressStateFile().convention(layout.getBuildDirectory().file(precompressStateFile));
+    }
 
-        while (current != null) {
-            parentChain.add(current);
-            current = current.getParentFile();
-        }
+    @TaskAction
+    public void run() {
+        File contentDir = getContentDir().get().getAsFile();
+        File outputDir = getOutputDir().get().getAsFile();
+        File manifestFile = getManifestFile().get().getAsFile();
 
-        return parentChain.stream()
-            .map(dir -> new File(dir, config.getTemplateFileName()))
-            .filter(templateCache::containsKey)
-            .distinct()
-            .map(templateFile -> templateCache.get(templateFile).clone())
-            .toList();
-    }
+        try {
+            StaticSiteGenerator generator = new StaticSiteGenerator(contentDir, outputDir,
+                getTemplateFileName().get(), getWorkers().get());
+            generator.setStreaming(getStreaming().get());
 
-    private String renderTemplate(String content, Document template) {
-        for (String tagName : TEMPLATE_TAGS) {
-            for (Element element : template.select(tagName)) {
-                element.before(content);
-                element.remove();
+            AssetMinifier minifier = new AssetMinifier();
+            if (getMinify().get()) {
+                generator.setMinifier(minifier);
             }
-        }
 
-        Document.OutputSettings settings = new Document.OutputSettings();
-        settings.charset(UTF_8);
-        settings.indentAmount(4);
-        template.outputSettings(settings);
-        return template.html();
-    }
+            if (!getImageWidths().get().isEmpty()) {
+                generator.setResponsiveImages(new ResponsiveImages(getImageCacheDir().get().getAsFile(),
+                    getImageWidths().get(), getImageSizes().get()));
+            }
+
+            generator.generate(manifestFile, getIncremental().get());
 
-    private boolean isIgnored(File file) {
-        String path = file.getAbsolutePath();
-        return path.contains(".git") || path.contains("userHome") || path.contains(".DS_Store");
+            if (getMinify().get()) {
+                getLogger().lifecycle("Minification saved {} bytes", minifier.getBytesSaved());
+            }
+
+            if (!getPrecompress().get().isEmpty()) {
+                AssetCompressor.checkToolVersion(getPrecompress().get(), getPrecompressToolVersion().get(),
+                    "staticSite.precompress");
+                AssetCompressor compressor = new AssetCompressor(getPrecompress().get(),
+                    getPrecompressMinSize().get(), getWorkers().get());
+                int written = compressor.compress(outputDir, getPrecompressStateFile().get().getAsFile());
+                getLogger().info("Wrote {} precompressed files", written);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error while generating static site", e);
+        }
     }
 
-    private boolean isTemplateFile(File file, StaticSiteExt config) {
-        return file.getName().equals(config.getTemplateFileName());
+    protected void run(StaticSiteExt config) {
+        configure(getProject(), config);
+        run();
     }
 }
@@ -0,0 +1,63 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Converts Markdown to HTML. The CommonMark parser and renderer are created
+ * once and then shared between all pages, which is allowed since both are
+ * thread-safe once they have been built. The input is streamed from a
+ * {@link Reader}, and every worker thread renders into its own buffer that
+ * is reused for subsequent pages.
+ */
+class MarkdownConverter {
+
+    private Parser parser;
+    private HtmlRenderer renderer;
+    private ThreadLocal<StringBuilder> buffer;
+
+    private static final int INITIAL_BUFFER_CAPACITY = 16 * 1024;
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 1024 * 1024;
+
+    public MarkdownConverter() {
+        this.parser = Parser.builder().build();
+        this.renderer = HtmlRenderer.builder().build();
+        this.buffer = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CAPACITY));
+    }
+
+    public String convert(Reader markdown) throws IOException {
+        Node document = parser.parseReader(markdown);
+        StringBuilder html = buffer.get();
+        html.setLength(0);
+        renderer.render(document, html);
+        String result = html.toString();
+
+        // Don't hold on to the memory used by an unusually large page
+        // for the rest of the build.
+        if (html.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+            buffer.remove();
+        }
+
+        return result;
+    }
+
+    public String convert(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+            return convert(reader);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.icon.MipChain;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Creates smaller versions of the images in the static site, so that the
+ * browser can pick the most suitable version for the screen it is being
+ * displayed on. The derivatives are stored next to the original image, with
+ * the width appended to the file name, e.g. {@code photo-480w.jpg}. Images
+ * in the content of rendered pages then receive a {@code srcset} attribute
+ * that lists all versions.
+ * <p>
+ * Scaling and encoding images is expensive, so the derivatives are stored in
+ * a cache directory, using the hash of the original image's contents. This
+ * means that unchanged images are not processed again, even when the static
+ * site itself is generated from scratch.
+ * <p>
+ * Images are processed from multiple worker threads. The derivatives for all
+ * images need to be created before the pages that refer to them are
+ * rendered.
+ */
+class ResponsiveImages {
+
+    private File cacheDir;
+    private List<Integer> widths;
+    private String sizes;
+    private Map<String, List<Derivative>> derivatives;
+    private volatile String signature;
+
+    private static final List<String> EXTENSIONS = List.of("png", "jpg", "jpeg");
+    private static final String FORMAT_VERSION = "1";
+    private static final Pattern DERIVATIVE_PATTERN = Pattern.compile("(.+)-\\d+w(\\.(?i:png|jpg|jpeg))");
+
+    public ResponsiveImages(File cacheDir, List<Integer> widths, String sizes) {
+        this.cacheDir = cacheDir;
+        this.widths = widths.stream().distinct().sorted().toList();
+        this.sizes = sizes;
+        this.derivatives = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates the derivatives for an image, and returns their paths relative
+     * to the output directory. Derivatives are only created for widths that
+     * are smaller than the original image.
+     */
+    public List<String> process(File image, String path, File outputFile) throws IOException {
+        String hash = getImageHash(image);
+        String extension = getExtension(image);
+        Original original = readOriginal(image, hash);
+        List<Derivative> versions = register(path, original);
+        MipChain mipChain = null;
+
+        List<String> result = new ArrayList<>();
+        for (Derivative derivative : versions.subList(0, versions.size() - 1)) {
+            int width = derivative.width();
+            File cached = new File(cacheDir, hash + "-" + width + "." + extension);
+
+            if (!cached.exists()) {
+                if (mipChain == null) {
+                    mipChain = new MipChain(original.image() != null ? original.image() : decode(image));
+                }
+                int height = Math.max(Math.round((float) width * original.height() / original.width()), 1);
+                writeCache(encode(mipChain.scale(width, height), extension), cached);
+            }
+
+            File derivativeFile = new File(outputFile.getParentFile(),
+                getDerivativePath(image.getName(), width));
+            if (!derivativeFile.exists() || Files.mismatch(cached.toPath(), derivativeFile.toPath()) != -1L) {
+                Files.copy(cached.toPath(), derivativeFile.toPath(), REPLACE_EXISTING);
+            }
+
+            result.add(derivative.path());
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the derivatives for an image without creating them, so that
+     * pages referring to the image can be checked without processing the
+     * image. This only needs to decode the image if its size is not already
+     * stored in the cache.
+     */
+    public void plan(File image, String path) throws IOException {
+        register(path, readOriginal(image, getImageHash(image)));
+    }
+
+    private List<Derivative> register(String path, Original original) {
+        List<Derivative> versions = new ArrayList<>();
+        for (int width : widths) {
+            if (width < original.width()) {
+                versions.add(new Derivative(getDerivativePath(path, width), width));
+            }
+        }
+        versions.add(new Derivative(path, original.width()));
+
+        derivatives.put(normalizePath(path), versions);
+        signature = null;
+        return versions;
+    }
+
+    private String getImageHash(File image) throws IOException {
+        return AppHelper.hash(FORMAT_VERSION + "\n" + AppHelper.hash(image));
+    }
+
+    /**
+     * Returns the width and height of the original image. The size is stored
+     * in the cache, so that the image does not need to be decoded if all
+     * derivatives are already available. If the image did need to be
+     * decoded, the decoded image is returned as well so that it can be used
+     * to create the derivatives.
+     */
+    private Original readOriginal(File image, String hash) throws IOException {
+        File sizeFile = new File(cacheDir, hash + ".txt");
+
+        if (sizeFile.exists()) {
+            String[] fields = Files.readString(sizeFile.toPath(), UTF_8).trim().split("x");
+            return new Original(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), null);
+        }
+
+        BufferedImage decoded = decode(image);
+        writeCache((decoded.getWidth() + "x" + decoded.getHeight()).getBytes(UTF_8), sizeFile);
+        return new Original(decoded.getWidth(), decoded.getHeight(), decoded);
+    }
+
+    private BufferedImage decode(File image) throws IOException {
+        BufferedImage decoded = ImageIO.read(image);
+        if (decoded == null) {
+            throw new IOException("Unsupported image format: " + image.getAbsolutePath());
+        }
+        return decoded;
+    }
+
+    private byte[] encode(BufferedImage image, String extension) throws IOException {
+        String format = extension.equals("png") ? "png" : "jpg";
+        BufferedImage encoded = image;
+
+        // The JPEG encoder does not support images with an alpha channel.
+        if (format.equals("jpg")) {
+            encoded = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = encoded.createGraphics();
+            g2.drawImage(image, 0, 0, null);
+            g2.dispose();
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ImageIO.write(encoded, format, buffer);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Writes a file to the cache under a temporary name, then moves it to
+     * its final location. Workers processing identical images could
+     * otherwise see a file that has not been completely written.
+     */
+    private void writeCache(byte[] contents, File cached) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        Path tempFile = Files.createTempFile(cacheDir.toPath(), "image-", ".tmp");
+
+        try {
+            Files.write(tempFile, contents);
+            Files.move(tempFile, cached.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Adds the {@code srcset} and {@code sizes} attributes to all images in
+     * the specified HTML that refer to an image with derivatives. Image URLs
+     * are resolved relative to the page's path. Returns the HTML unchanged
+     * if it does not contain any such images.
+     */
+    public String rewriteImages(String html, String pagePath) {
+        if (!html.contains("<img")) {
+            return html;
+        }
+
+        // Pages that are complete documents would lose their head when
+        // parsed as a fragment, similar to AssetMinifier.
+        boolean fragment = !html.contains("<html");
+        Document document = fragment ? Jsoup.parseBodyFragment(html) : Jsoup.parse(html);
+        document.outputSettings().charset(UTF_8).prettyPrint(false);
+        boolean modified = false;
+
+        for (Element img : document.select("img[src]:not([srcset])")) {
+            String src = img.attr("src");
+            List<Derivative> versions = derivatives.get(resolvePath(pagePath, src));
+
+            if (versions != null && versions.size() > 1) {
+                String baseURL = src.substring(0, src.lastIndexOf('/') + 1);
+                String srcset = versions.stream()
+                    .map(version -> baseURL + getFileName(version.path()) + " " + version.width() + "w")
+                    .collect(Collectors.joining(", "));
+
+                img.attr("srcset", srcset);
+                if (!img.hasAttr("sizes")) {
+                    img.attr("sizes", sizes);
+                }
+                modified = true;
+            }
+        }
+
+        if (!modified) {
+            return html;
+        }
+        return fragment ? document.body().html() : document.outerHtml();
+    }
+
+    /**
+     * Returns a hash that describes the derivatives of all images that have
+     * been processed. Pages refer to the derivatives in their {@code srcset}
+     * attributes, so they need to be rendered again when this changes. This
+     * should only be called after all images have been processed.
+     */
+    public String getSignature() {
+        String result = signature;
+        if (result == null) {
+            result = AppHelper.hash(new TreeMap<>(derivatives).toString());
+            signature = result;
+        }
+        return result;
+    }
+
+    private String resolvePath(String pagePath, String src) {
+        if (src.contains("://") || src.startsWith("data:") || src.contains("?") || src.contains("#")) {
+            return "";
+        }
+
+        if (src.startsWith("/")) {
+            return normalizePath(src.substring(1));
+        }
+
+        Path pageDir = Path.of(normalizePath(pagePath)).getParent();
+        Path resolved = pageDir == null ? Path.of(src) : pageDir.resolve(src);
+        return normalizePath(resolved.normalize().toString());
+    }
+
+    private String normalizePath(String path) {
+        return path.replace(File.separatorChar, '/');
+    }
+
+    private String getFileName(String path) {
+        String normalized = normalizePath(path);
+        return normalized.substring(normalized.lastIndexOf('/') + 1);
+    }
+
+    private static String getExtension(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Returns the path of an image's derivative with the specified width, by
+     * appending the width to the file name, e.g. {@code a.jpg} becomes
+     * {@code a-480w.jpg}.
+     */
+    protected static String getDerivativePath(String path, int width) {
+        int extensionIndex = path.lastIndexOf('.');
+        return path.substring(0, extensionIndex) + "-" + width + "w" + path.substring(extensionIndex);
+    }
+
+    /**
+     * Returns the path of the original image for a derivative path created
+     * by {@link #getDerivativePath(String, int)}, or {@code null} if the
+     * path does not refer to a derivative.
+     */
+    protected static String getOriginalPath(String path) {
+        Matcher matcher = DERIVATIVE_PATTERN.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return matcher.group(1) + matcher.group(2);
+    }
+
+    public static boolean isImage(File file) {
+        return file.getName().contains(".") && EXTENSIONS.contains(getExtension(file));
+    }
+
+    public List<Integer> getWidths() {
+        return widths;
+    }
+
+    /**
+     * One version of an image, identified by its path relative to the
+     * content directory and its width in pixels.
+     */
+    private record Derivative(String path, int width) {
+    }
+
+    /**
+     * Size of the original image. The decoded image is only available if it
+     * needed to be decoded to determine the size.
+     */
+    private record Original(int width, int height, BufferedImage image) {
+    }
+}
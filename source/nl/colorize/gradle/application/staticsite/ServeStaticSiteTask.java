@@ -0,0 +1,124 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import nl.colorize.gradle.application.AppHelper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.ProjectLayout;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the static site, then serves it using a local HTTP server. The
+ * content directory is watched for changes, which will update the affected
+ * pages and then reload the page in the browser. This task keeps running
+ * until it is interrupted.
+ */
+@UntrackedTask(because = "Serves the static site until the task is interrupted")
+public abstract class ServeStaticSiteTask extends DefaultTask {
+
+    @Internal
+    public abstract DirectoryProperty getContentDir();
+
+    @Internal
+    public abstract Property<String> getTemplateFileName();
+
+    @Internal
+    public abstract Property<Boolean> getIncremental();
+
+    @Internal
+    public abstract Property<Integer> getWorkers();
+
+    @Internal
+    public abstract DirectoryProperty getOutputDir();
+
+    @Internal
+    public abstract RegularFileProperty getManifestFile();
+
+    @Internal
+    public abstract Property<Integer> getPort();
+
+    /**
+     * Derives this task's properties from the {@code staticSite} configuration.
+     * This uses the same output directory as {@link GenerateStaticSiteTask}.
+     */
+    public void configure(Project project, StaticSiteExt config) {
+        ProjectLayout layout = project.getLayout();
+        Provider<StaticSiteExt> ext = AppHelper.validated(project, config);
+        Provider<String> contentDir = ext.map(StaticSiteExt::getContentDir);
+        Provider<String> outputDir = ext.map(StaticSiteExt::getOutputDir);
+        Provider<String> manifestFile = outputDir.map(dir -> dir + "-manifest.txt");
+
+        getContentDir().convention(layout.getProjectDirectory().dir(contentDir));
+        getTemplateFileName().convention(ext.map(StaticSiteExt::getTemplateFileName));
+        getIncremental().convention(ext.map(StaticSiteExt::isIncremental));
+        getWorkers().convention(ext.map(StaticSiteExt::getWorkers));
+        getOutputDir().convention(layout.getBuildDirectory().dir(outputDir));
+        getManifestFile().convention(layout.getBuildDirectory().file(manifestFile));
+        getPort().convention(ext.map(StaticSiteExt::getLocalServerPort));
+    }
+
+    @TaskAction
+    public void run() {
+        File contentDir = getContentDir().get().getAsFile();
+        File outputDir = getOutputDir().get().getAsFile();
+        File manifestFile = getManifestFile().get().getAsFile();
+        boolean incremental = getIncremental().get();
+
+        StaticSiteGenerator generator = new StaticSiteGenerator(contentDir, outputDir,
+            getTemplateFileName().get(), getWorkers().get());
+        StaticSiteServer server = new StaticSiteServer(outputDir);
+
+        try (ContentWatcher watcher = new ContentWatcher(contentDir)) {
+            generator.generate(manifestFile, incremental);
+            server.start(getPort().get());
+            getLogger().lifecycle("Serving static site at http://localhost:" + server.getPort());
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<File> changed = watcher.awaitChanges();
+                update(generator, server, changed, contentDir, manifestFile, incremental);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error while serving static site", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private void update(StaticSiteGenerator generator, StaticSiteServer server, Set<File> changed,
+                        File contentDir, File manifestFile, boolean incremental) throws IOException {
+        try {
+            if (changed.contains(contentDir)) {
+                generator.generate(manifestFile, incremental);
+                server.reload(List.of("/"));
+            } else {
+                List<String> affected = generator.update(changed);
+                if (!affected.isEmpty()) {
+                    getLogger().lifecycle("Updated " + String.join(", ", affected));
+                    server.reload(affected);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Errors in the content should not stop the server, they
+            // can be fixed while the server is still running.
+            getLogger().error("Error while updating static site: " + e.getMessage());
+        }
+    }
+}
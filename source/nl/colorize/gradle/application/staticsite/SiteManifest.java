@@ -0,0 +1,109 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Records the content hash of every file in the static site, along with the
+ * combined hash of the templates that were used to render it. Comparing the
+ * manifest from the previous build with the current state of the content
+ * directory indicates which pages need to be rendered again, and which
+ * outputs should be removed because their source file no longer exists.
+ * <p>
+ * The manifest is stored as a plain text file, with one line per file using
+ * the format {@code path <tab> contentHash <tab> templateHash}. Entries are
+ * sorted by path, so the manifest is identical for identical sites.
+ */
+class SiteManifest {
+
+    private Map<String, Entry> entries;
+
+    private static final String SEPARATOR = "\t";
+
+    public SiteManifest() {
+        this.entries = new TreeMap<>();
+    }
+
+    public void put(String path, Entry entry) {
+        entries.put(path, entry);
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public Set<String> getPaths() {
+        return entries.keySet();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns all paths that are included in this manifest, but are no
+     * longer present in the newer manifest. The paths are returned in
+     * reverse order, so that files are always listed before the directory
+     * that contains them.
+     */
+    public List<String> findRemoved(SiteManifest newer) {
+        List<String> removed = new ArrayList<>();
+        for (String path : entries.keySet()) {
+            if (!newer.entries.containsKey(path)) {
+                removed.addFirst(path);
+            }
+        }
+        return removed;
+    }
+
+    public void save(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            lines.add(entry.getKey() + SEPARATOR + entry.getValue().contentHash() +
+                SEPARATOR + entry.getValue().templateHash());
+        }
+        Files.write(file.toPath(), lines, UTF_8);
+    }
+
+    /**
+     * Loads a manifest that was saved by a previous build. Returns an empty
+     * manifest if the file does not exist, which means everything will be
+     * considered as changed.
+     */
+    public static SiteManifest load(File file) throws IOException {
+        SiteManifest manifest = new SiteManifest();
+        if (!file.exists()) {
+            return manifest;
+        }
+
+        for (String line : Files.readAllLines(file.toPath(), UTF_8)) {
+            String[] fields = line.split(SEPARATOR, -1);
+            if (fields.length == 3) {
+                manifest.put(fields[0], new Entry(fields[1], fields[2]));
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Manifest entry for a single file. The template hash is empty for files
+     * that are not rendered using templates.
+     */
+    public record Entry(String contentHash, String templateHash) {
+    }
+}
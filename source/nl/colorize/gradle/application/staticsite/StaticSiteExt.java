@@ -9,10 +9,12 @@ package nl.colorize.gradle.application.staticsite;
 import lombok.Getter;
 import lombok.Setter;
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.AssetCompressor;
 import nl.colorize.gradle.application.Validatable;
 import org.gradle.api.Project;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
@@ -23,6 +25,14 @@ public class StaticSiteExt implements Validatable {
     private String outputDir;
     private String templateFileName;
     private int localServerPort;
+    private boolean incremental;
+    private int workers;
+    private boolean streaming;
+    private boolean minify;
+    private List<Integer> imageWidths;
+    private String imageSizes;
+    private List<String> precompress;
+    private int precompressMinSize;
 
     public static final List<String> TEMPLATE_TAGS = List.of(
         "clrz-content",
@@ -34,14 +44,39 @@ public class StaticSiteExt implements Validatable {
         this.outputDir = "staticsite";
         this.templateFileName = "template.html";
         this.localServerPort = 7777;
+        this.incremental = false;
+        this.workers = Runtime.getRuntime().availableProcessors();
+        this.streaming = false;
+        this.minify = false;
+        this.imageWidths = new ArrayList<>();
+        this.imageSizes = "100vw";
+        this.precompress = new ArrayList<>();
+        this.precompressMinSize = 1024;
     }
 
     public File getOutputDir(Project project) {
-        return AppHelper.getOutputDir(project, outputDir);
+        return getOutputDir(project.getLayout().getBuildDirectory().get().getAsFile());
+    }
+
+    public File getOutputDir(File buildDir) {
+        return AppHelper.getOutputDir(buildDir, outputDir);
+    }
+
+    public File getManifestFile(Project project) {
+        return getManifestFile(project.getLayout().getBuildDirectory().get().getAsFile());
+    }
+
+    public File getManifestFile(File buildDir) {
+        return new File(buildDir, outputDir + "-manifest.txt");
     }
 
     @Override
     public void validate() {
-        // All properties are optional.
+        AppHelper.check(workers >= 1, "staticSite.workers must be at least 1");
+        AppHelper.check(imageWidths.stream().allMatch(width -> width > 0),
+            "Invalid staticSite.imageWidths: " + imageWidths);
+        AppHelper.check(AssetCompressor.FORMATS.containsAll(precompress),
+            "Invalid staticSite.precompress: " + precompress);
+        AppHelper.check(precompressMinSize >= 0, "staticSite.precompressMinSize cannot be negative");
     }
 }
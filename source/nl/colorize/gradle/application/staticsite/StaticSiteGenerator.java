@@ -0,0 +1,726 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.AssetCompressor;
+import nl.colorize.gradle.application.AssetMinifier;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static nl.colorize.gradle.application.staticsite.StaticSiteExt.TEMPLATE_TAGS;
+
+/**
+ * Renders the content directory into a static site. Used both for generating
+ * the complete site during the build, and for updating the site while it is
+ * being served during development.
+ */
+class StaticSiteGenerator {
+
+    private File contentDir;
+    private File outputDir;
+    private String templateFileName;
+    private int workers;
+
+    private Map<File, Document> templateCache;
+    private Map<File, String> templateHashes;
+    private Map<File, CompiledTemplate> compiledTemplates;
+    private Map<File, Set<File>> templateDependents;
+    private Map<File, List<File>> pageTemplates;
+    private MarkdownConverter markdownConverter;
+    private AssetMinifier minifier;
+    private ResponsiveImages responsiveImages;
+    private boolean streaming;
+
+    private static final int MAX_RETAINED_TEMPLATES = 64;
+
+    public StaticSiteGenerator(File contentDir, File outputDir, String templateFileName, int workers) {
+        this.contentDir = contentDir;
+        this.outputDir = outputDir;
+        this.templateFileName = templateFileName;
+        this.workers = workers;
+
+        this.templateCache = new ConcurrentHashMap<>();
+        this.templateHashes = new ConcurrentHashMap<>();
+        this.compiledTemplates = new ConcurrentHashMap<>();
+        this.templateDependents = new ConcurrentHashMap<>();
+        this.pageTemplates = new ConcurrentHashMap<>();
+        this.markdownConverter = new MarkdownConverter();
+    }
+
+    /**
+     * Minifies HTML, CSS, and JavaScript files while generating the site.
+     * Minification is disabled by default, which is also used when serving
+     * the site during development.
+     */
+    public void setMinifier(AssetMinifier minifier) {
+        this.minifier = minifier;
+    }
+
+    /**
+     * Creates smaller versions of images while generating the site, and
+     * refers to them from the images in rendered pages. This is disabled by
+     * default, which is also used when serving the site during development.
+     */
+    public void setResponsiveImages(ResponsiveImages responsiveImages) {
+        this.responsiveImages = responsiveImages;
+    }
+
+    /**
+     * Processes the content directory while traversing it, rather than
+     * loading the list of files and all templates up front. Compiled
+     * templates are only retained for the most recently used directories.
+     * This keeps memory usage stable for very large sites, at the cost of
+     * compiling templates more than once if the site contains many
+     * directories.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+
+        if (streaming) {
+            compiledTemplates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<File, CompiledTemplate> eldest) {
+                    return size() > MAX_RETAINED_TEMPLATES;
+                }
+            });
+        }
+    }
+
+    /**
+     * Generates the static site. In incremental mode, the manifest from the
+     * previous build is used to determine which pages need to be rendered.
+     * Otherwise, the output directory is cleared and all pages are rendered.
+     */
+    public void generate(File manifestFile, boolean incremental) throws IOException {
+        SiteManifest previous = incremental ? SiteManifest.load(manifestFile) : new SiteManifest();
+
+        // Incremental builds can only rely on the existing output if
+        // there is a manifest that describes how it was created.
+        if (previous.isEmpty()) {
+            AppHelper.cleanDirectory(outputDir);
+        }
+        outputDir.mkdirs();
+
+        SiteManifest manifest = streaming ? generateStreaming(previous, incremental) : generateAll(previous);
+
+        for (String removed : previous.findRemoved(manifest)) {
+            File outputFile = getOutputFile(removed);
+            outputFile.delete();
+            for (String format : AssetCompressor.FORMATS) {
+                AssetCompressor.getVariantFile(outputFile, format).delete();
+            }
+        }
+
+        if (incremental) {
+            manifest.save(manifestFile);
+        } else {
+            manifestFile.delete();
+        }
+    }
+
+    private SiteManifest generateAll(SiteManifest previous) throws IOException {
+        for (File file : traverse(contentDir, this::isTemplateFile)) {
+            loadTemplate(file);
+        }
+
+        SiteManifest manifest = new SiteManifest();
+        List<File> files = traverse(contentDir, file -> !isTemplateFile(file));
+
+        // Directories are created up front, so that the files within
+        // them can then be processed in any order.
+        for (File dir : files.stream().filter(File::isDirectory).toList()) {
+            String path = getRelativePath(dir);
+            manifest.put(path, new SiteManifest.Entry("", ""));
+            getOutputFile(path).mkdir();
+        }
+
+        List<File> pages = files.stream()
+            .filter(file -> !file.isDirectory())
+            .toList();
+
+        // Derivatives are recorded in the manifest, so that they are
+        // removed together with the original image.
+        for (String derivative : processImages(pages)) {
+            manifest.put(derivative, new SiteManifest.Entry("", ""));
+        }
+
+        List<SiteManifest.Entry> entries = AppHelper.mapParallel(pages, workers,
+            file -> processFile(file, previous));
+
+        for (int i = 0; i < pages.size(); i++) {
+            manifest.put(getRelativePath(pages.get(i)), entries.get(i));
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Determines which pages would be rendered by {@link #generate(File, boolean)},
+     * and which output files would be removed, without modifying the output
+     * directory. Paths are relative to the output directory.
+     */
+    public DryRunReport dryRun(File manifestFile, boolean incremental) throws IOException {
+        SiteManifest previous = incremental ? SiteManifest.load(manifestFile) : new SiteManifest();
+
+        for (File file : traverse(contentDir, this::isTemplateFile)) {
+            loadTemplate(file);
+        }
+
+        SiteManifest manifest = new SiteManifest();
+        List<File> files = traverse(contentDir, file -> !isTemplateFile(file));
+        List<File> pages = files.stream()
+            .filter(file -> !file.isDirectory())
+            .toList();
+        planImages(pages);
+        List<SiteManifest.Entry> entries = AppHelper.mapParallel(pages, workers, this::createEntry);
+        List<String> render = new ArrayList<>();
+
+        for (File dir : files.stream().filter(File::isDirectory).toList()) {
+            manifest.put(getRelativePath(dir), new SiteManifest.Entry("", ""));
+        }
+
+        for (int i = 0; i < pages.size(); i++) {
+            String path = getRelativePath(pages.get(i));
+            manifest.put(path, entries.get(i));
+            if (needsRender(path, entries.get(i), previous)) {
+                render.add(getRelativePath(getOutputFile(path), outputDir));
+            }
+        }
+
+        List<String> remove = previous.findRemoved(manifest).stream()
+            .filter(path -> !isRetainedDerivative(path))
+            .map(path -> getRelativePath(getOutputFile(path), outputDir))
+            .toList();
+
+        return new DryRunReport(render, remove);
+    }
+
+    /**
+     * Responsive image derivatives are not included in the dry run, since
+     * determining them requires processing the images. Derivatives are
+     * therefore only reported as removed if the original image was removed.
+     */
+    private boolean isRetainedDerivative(String path) {
+        String original = ResponsiveImages.getOriginalPath(path);
+        return original != null && new File(contentDir, original).exists();
+    }
+
+    /**
+     * Renders the site while traversing the content directory. Only a limited
+     * number of files are in progress at the same time, and templates are
+     * loaded when they are first needed. The manifest is only populated for
+     * incremental builds, since it is discarded otherwise.
+     */
+    private SiteManifest generateStreaming(SiteManifest previous, boolean incremental) throws IOException {
+        SiteManifest manifest = new SiteManifest();
+
+        if (responsiveImages != null) {
+            try (Stream<File> images = walk(contentDir).filter(ResponsiveImages::isImage)) {
+                AppHelper.forEachParallel(images.iterator(), workers, this::processImage,
+                    (image, derivatives) -> derivatives.forEach(path -> {
+                        if (incremental) {
+                            manifest.put(path, new SiteManifest.Entry("", ""));
+                        }
+                    }));
+            }
+        }
+
+        try (Stream<File> files = walk(contentDir).filter(file -> !isTemplateFile(file))) {
+            AppHelper.forEachParallel(files.iterator(), workers, file -> processFile(file, previous),
+                (file, entry) -> {
+                    if (incremental) {
+                        manifest.put(getRelativePath(file), entry);
+                    }
+                });
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Creates the responsive image derivatives for all images, and returns
+     * their paths relative to the output directory. This needs to happen
+     * before rendering the pages, since the pages refer to the derivatives.
+     */
+    private List<String> processImages(List<File> files) {
+        if (responsiveImages == null) {
+            return List.of();
+        }
+
+        List<File> images = files.stream()
+            .filter(ResponsiveImages::isImage)
+            .toList();
+
+        return AppHelper.mapParallel(images, workers, this::processImage).stream()
+            .flatMap(List::stream)
+            .toList();
+    }
+
+    private void planImages(List<File> files) {
+        if (responsiveImages == null) {
+            return;
+        }
+
+        List<File> images = files.stream()
+            .filter(ResponsiveImages::isImage)
+            .toList();
+
+        AppHelper.mapParallel(images, workers, image -> {
+            responsiveImages.plan(image, getRelativePath(image));
+            return image;
+        });
+    }
+
+    private List<String> processImage(File image) throws IOException {
+        String path = getRelativePath(image);
+        File outputFile = getOutputFile(path);
+        outputFile.getParentFile().mkdirs();
+        return responsiveImages.process(image, path, outputFile);
+    }
+
+    /**
+     * Updates the generated site after the specified files in the content
+     * directory have been changed, created, or deleted. Changes to a template
+     * cause the pages that use the template to be rendered again. Returns
+     * the paths of the output files that were affected, relative to the
+     * output directory.
+     */
+    public List<String> update(Collection<File> changedFiles) throws IOException {
+        Set<File> render = new TreeSet<>();
+        Set<String> affected = new TreeSet<>();
+
+        for (File file : expandDirectories(changedFiles)) {
+            if (isTemplateFile(file)) {
+                render.addAll(findDependentPages(file));
+                reloadTemplate(file);
+            } else if (file.isFile()) {
+                render.add(file);
+            } else if (!file.exists()) {
+                File outputFile = getOutputFile(getRelativePath(file));
+                AppHelper.cleanDirectory(outputFile);
+                outputFile.delete();
+                affected.add(getRelativePath(outputFile, outputDir));
+                removeDependentPages(file);
+            }
+        }
+
+        List<File> pages = List.copyOf(render);
+        for (File page : pages) {
+            File outputFile = getOutputFile(getRelativePath(page));
+            outputFile.getParentFile().mkdirs();
+            affected.add(getRelativePath(outputFile, outputDir));
+        }
+
+        SiteManifest forceRender = new SiteManifest();
+        AppHelper.mapParallel(pages, workers, file -> processFile(file, forceRender));
+
+        return List.copyOf(affected);
+    }
+
+    /**
+     * Returns all pages that need to be rendered again after the specified
+     * template has been changed. The reverse index only contains pages that
+     * already used the template. A new template can also affect other pages
+     * within its directory, so in that case all of those pages are included.
+     */
+    private List<File> findDependentPages(File template) throws IOException {
+        List<File> pages = new ArrayList<>(getDependentPages(template).stream()
+            .filter(File::exists)
+            .toList());
+
+        if (!templateCache.containsKey(template) && template.getParentFile().exists()) {
+            pages.addAll(traverse(template.getParentFile(), this::isPageFile));
+        }
+
+        return pages;
+    }
+
+    protected Set<File> getDependentPages(File template) {
+        return Set.copyOf(templateDependents.getOrDefault(template, Set.of()));
+    }
+
+    /**
+     * Updates the reverse index after a page has been rendered, removing the
+     * page from templates it no longer uses.
+     */
+    private void addDependentPage(File page, List<File> templateFiles) {
+        List<File> previous = pageTemplates.put(page, templateFiles);
+
+        if (previous != null) {
+            previous.stream()
+                .filter(templateFile -> !templateFiles.contains(templateFile))
+                .forEach(templateFile -> removeDependentPage(templateFile, page));
+        }
+
+        for (File templateFile : templateFiles) {
+            templateDependents.compute(templateFile, (key, pages) -> {
+                Set<File> dependents = pages != null ? pages : ConcurrentHashMap.newKeySet();
+                dependents.add(page);
+                return dependents;
+            });
+        }
+    }
+
+    /**
+     * Removes all pages in the reverse index that are located at or within
+     * the specified path, after the page or its directory has been deleted.
+     */
+    private void removeDependentPages(File deleted) {
+        Path deletedPath = deleted.toPath();
+        List<File> pages = pageTemplates.keySet().stream()
+            .filter(page -> page.toPath().startsWith(deletedPath))
+            .toList();
+
+        for (File page : pages) {
+            List<File> templateFiles = pageTemplates.remove(page);
+            if (templateFiles != null) {
+                templateFiles.forEach(templateFile -> removeDependentPage(templateFile, page));
+            }
+        }
+    }
+
+    private void removeDependentPage(File templateFile, File page) {
+        templateDependents.computeIfPresent(templateFile, (key, pages) -> {
+            pages.remove(page);
+            return pages.isEmpty() ? null : pages;
+        });
+    }
+
+    private List<File> expandDirectories(Collection<File> files) throws IOException {
+        List<File> expanded = new ArrayList<>();
+        for (File file : files) {
+            if (isIgnored(file)) {
+                continue;
+            }
+
+            expanded.add(file);
+            if (file.isDirectory()) {
+                expanded.addAll(traverse(file, child -> true));
+            }
+        }
+
+        // Templates need to be processed first, otherwise pages in the
+        // same directory would still be rendered with the old template.
+        expanded.sort((a, b) -> Boolean.compare(!isTemplateFile(a), !isTemplateFile(b)));
+        return expanded;
+    }
+
+    private void loadTemplate(File file) throws IOException {
+        String html = Files.readString(file.toPath(), UTF_8);
+        validateTemplate(file, html);
+        Document template = Jsoup.parse(html);
+        templateCache.put(file, template);
+        templateHashes.put(file, AppHelper.hash(html));
+    }
+
+    private void reloadTemplate(File file) throws IOException {
+        templateCache.remove(file);
+        templateHashes.remove(file);
+        Path templateDir = file.getParentFile().toPath();
+        compiledTemplates.keySet().removeIf(dir -> dir.toPath().startsWith(templateDir));
+
+        if (file.exists()) {
+            loadTemplate(file);
+        }
+    }
+
+    private void validateTemplate(File file, String html) {
+        for (String tag : TEMPLATE_TAGS) {
+            if (html.contains("<" + tag + "/>") || html.contains("<" + tag + " />")) {
+                throw new IllegalStateException("Template " + file.getAbsolutePath() +
+                    " contains self-closing tag '" + tag + "'");
+            }
+        }
+    }
+
+    /**
+     * Returns a lazily populated stream of all files in the specified
+     * directory. The stream needs to be closed after it has been used.
+     */
+    private Stream<File> walk(File dir) throws IOException {
+        return Files.walk(dir.toPath())
+            .map(Path::toFile)
+            .filter(file -> !isIgnored(file))
+            .filter(file -> !file.equals(dir));
+    }
+
+    private List<File> traverse(File dir, Predicate<File> filter) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir.toPath())) {
+            return stream.map(Path::toFile)
+                .distinct()
+                .filter(file -> !isIgnored(file))
+                .filter(file -> !file.equals(dir))
+                .filter(filter)
+                .toList();
+        }
+    }
+
+    /**
+     * Renders or copies a single file from the content directory, and returns
+     * the corresponding manifest entry. This is called from multiple worker
+     * threads, so it should not modify any shared state.
+     */
+    private SiteManifest.Entry processFile(File file, SiteManifest previous) throws IOException {
+        String path = getRelativePath(file);
+        File outputFile = getOutputFile(path);
+
+        // When streaming, files are not guaranteed to be processed after
+        // the directory that contains them.
+        if (file.isDirectory()) {
+            outputFile.mkdirs();
+            return new SiteManifest.Entry("", "");
+        } else if (streaming) {
+            outputFile.getParentFile().mkdirs();
+        }
+
+        SiteManifest.Entry entry = createEntry(file);
+
+        if (!needsRender(path, entry, previous)) {
+            return entry;
+        }
+
+        if (file.getName().endsWith(".html")) {
+            String content = Files.readString(file.toPath(), UTF_8);
+            processContentFile(content, file, outputFile);
+        } else if (file.getName().endsWith(".md")) {
+            String content = markdownConverter.convert(file);
+            processContentFile(content, file, outputFile);
+        } else if (minifier != null && minifier.isMinifiable(file.getName())) {
+            String content = Files.readString(file.toPath(), UTF_8);
+            Files.writeString(outputFile.toPath(), minifier.minify(file.getName(), content), UTF_8);
+        } else {
+            Files.copy(file.toPath(), outputFile.toPath(), REPLACE_EXISTING);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Creates the manifest entry for a file in the content directory. For
+     * pages, this also records which templates are used to render the page.
+     */
+    private SiteManifest.Entry createEntry(File file) throws IOException {
+        if (!isContentFile(file)) {
+            return new SiteManifest.Entry(hashContent(file), "");
+        }
+
+        List<File> templateFiles = findTemplateFiles(file);
+
+        // The reverse index is only used when the site is updated while it
+        // is being served, and would grow with every page when streaming.
+        if (!streaming) {
+            addDependentPage(file, templateFiles);
+        }
+
+        return new SiteManifest.Entry(hashContent(file), hashTemplateChain(templateFiles));
+    }
+
+    private boolean needsRender(String path, SiteManifest.Entry entry, SiteManifest previous) {
+        return !entry.equals(previous.get(path)) || !getOutputFile(path).exists();
+    }
+
+    private void processContentFile(String content, File file, File outputFile) throws IOException {
+        if (responsiveImages != null) {
+            content = responsiveImages.rewriteImages(content, getRelativePath(file));
+        }
+
+        CompiledTemplate template = findTemplateChain(file);
+
+        if (minifier != null) {
+            String html = minifier.minify(outputFile.getName(), template.render(content));
+            Files.writeString(outputFile.toPath(), html, UTF_8);
+        } else {
+            try (Writer writer = Files.newBufferedWriter(outputFile.toPath(), UTF_8)) {
+                template.render(content, writer);
+            }
+        }
+    }
+
+    private String getRelativePath(File file) {
+        return getRelativePath(file, contentDir);
+    }
+
+    private String getRelativePath(File file, File baseDir) {
+        return baseDir.toPath().relativize(file.toPath()).toString();
+    }
+
+    /**
+     * Returns the output file for the content file with the specified path,
+     * relative to the content directory. Markdown files are rendered to HTML,
+     * all other files retain their original name.
+     */
+    private File getOutputFile(String path) {
+        if (path.endsWith(".md")) {
+            path = path.substring(0, path.length() - 3) + ".html";
+        }
+        return outputDir.toPath().resolve(path).toFile();
+    }
+
+    /**
+     * Returns the compiled template chain for the directory that contains the
+     * specified file. This combines all templates that should be applied to
+     * the file, from the template closest to the file to the outermost
+     * template. If there are no templates defined, the returned template will
+     * use the file's content verbatim.
+     */
+    private CompiledTemplate findTemplateChain(File file) {
+        File dir = file.getParentFile();
+        CompiledTemplate chain = compiledTemplates.get(dir);
+
+        if (chain == null) {
+            chain = compileTemplateChain(file);
+            compiledTemplates.putIfAbsent(dir, chain);
+        }
+
+        return chain;
+    }
+
+    private CompiledTemplate compileTemplateChain(File file) {
+        List<File> templateFiles = findTemplateFiles(file);
+        return CompiledTemplate.compile(() -> templateFiles.stream()
+            .map(this::getTemplateDocument)
+            .toList());
+    }
+
+    /**
+     * Returns a template document that can be modified during compilation.
+     * Templates are only cached when they are loaded up front, in streaming
+     * mode they are parsed again every time they are compiled.
+     */
+    private Document getTemplateDocument(File file) {
+        Document cached = templateCache.get(file);
+        if (cached != null) {
+            return cloneTemplate(cached);
+        }
+
+        try {
+            String html = Files.readString(file.toPath(), UTF_8);
+            validateTemplate(file, html);
+            return Jsoup.parse(html);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read template " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Returns a copy of a cached template that can be modified during
+     * compilation. Jsoup documents are not thread-safe, not even for reading,
+     * so workers need to take turns when cloning the same template. The clone
+     * would also share the parser with the original, so it receives its own.
+     */
+    private Document cloneTemplate(Document template) {
+        Document clone;
+        synchronized (template) {
+            clone = template.clone();
+        }
+        clone.parser(Parser.htmlParser());
+        return clone;
+    }
+
+    private List<File> findTemplateFiles(File file) {
+        List<File> parentChain = new ArrayList<>();
+        File current = file.getParentFile();
+
+        while (current != null) {
+            parentChain.add(current);
+            current = current.getParentFile();
+        }
+
+        return parentChain.stream()
+            .map(dir -> new File(dir, templateFileName))
+            .filter(this::isTemplateAvailable)
+            .distinct()
+            .toList();
+    }
+
+    /**
+     * Returns the hash of the file's contents. Minification and responsive
+     * images change the output for the same file, so the options are included
+     * in the hash. This ensures the pages are rendered again after these
+     * options are changed. Pages also include the image derivatives, since
+     * those determine the {@code srcset} attributes in the rendered page.
+     */
+    private String hashContent(File file) throws IOException {
+        String options = (minifier != null ? "minify" : "") +
+            (responsiveImages != null ? responsiveImages.getWidths().toString() : "") +
+            (responsiveImages != null && isContentFile(file) ? responsiveImages.getSignature() : "");
+        String hash = AppHelper.hash(file);
+        return options.isEmpty() ? hash : AppHelper.hash(hash + "\n" + options);
+    }
+
+    /**
+     * Returns a hash that combines the hashes of all templates that will be
+     * applied to the specified file. This will change whenever one of those
+     * templates is changed, added, or removed.
+     */
+    private String hashTemplateChain(List<File> templateFiles) {
+        String chain = templateFiles.stream()
+            .map(this::getTemplateHash)
+            .collect(Collectors.joining(","));
+        return AppHelper.hash(chain);
+    }
+
+    private boolean isTemplateAvailable(File file) {
+        return streaming ? file.exists() : templateCache.containsKey(file);
+    }
+
+    private String getTemplateHash(File file) {
+        return templateHashes.computeIfAbsent(file, templateFile -> {
+            try {
+                return AppHelper.hash(templateFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read template " + file.getAbsolutePath(), e);
+            }
+        });
+    }
+
+    private boolean isIgnored(File file) {
+        String path = file.getAbsolutePath();
+        return path.contains(".git") || path.contains("userHome") || path.contains(".DS_Store");
+    }
+
+    private boolean isContentFile(File file) {
+        return file.getName().endsWith(".html") || file.getName().endsWith(".md");
+    }
+
+    private boolean isPageFile(File file) {
+        return isContentFile(file) && !isTemplateFile(file);
+    }
+
+    private boolean isTemplateFile(File file) {
+        return file.getName().equals(templateFileName);
+    }
+
+    /**
+     * Pages that would be rendered and output files that would be removed
+     * when generating the site.
+     */
+    public record DryRunReport(List<String> render, List<String> remove) {
+    }
+}
@@ -0,0 +1,194 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import nl.colorize.gradle.application.AppHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * HTTP server that serves the generated static site during development. Every
+ * request is handled on its own virtual thread. HTML pages are served with an
+ * additional script that listens for reload events, which are pushed to the
+ * browser using Server-Sent Events whenever the site has been updated.
+ */
+class StaticSiteServer {
+
+    private File outputDir;
+    private HttpServer server;
+    private Set<BlockingQueue<String>> clients;
+    private String reloadScript;
+
+    public static final String RELOAD_PATH = "/_reload";
+    private static final String LIVE_RELOAD_SCRIPT = "live-reload.html";
+    private static final String DISCONNECT = "";
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final String CLOSING_BODY_TAG = "</body>";
+
+    public StaticSiteServer(File outputDir) {
+        this.outputDir = outputDir;
+        this.clients = ConcurrentHashMap.newKeySet();
+        this.reloadScript = AppHelper.loadResourceFile(LIVE_RELOAD_SCRIPT);
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handleFileRequest);
+        server.createContext(RELOAD_PATH, this::handleReloadRequest);
+        server.start();
+    }
+
+    public void stop() {
+        clients.forEach(client -> client.offer(DISCONNECT));
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Notifies all connected browsers that the specified pages have been
+     * updated, which will cause them to reload the current page.
+     */
+    public void reload(List<String> paths) {
+        String event = "event: reload\ndata: " + String.join(" ", paths) + "\n\n";
+        clients.forEach(client -> client.offer(event));
+    }
+
+    private void handleFileRequest(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            File file = locateFile(exchange.getRequestURI().getPath());
+
+            if (file == null) {
+                byte[] notFound = "Not found".getBytes(UTF_8);
+                exchange.sendResponseHeaders(404, notFound.length);
+                exchange.getResponseBody().write(notFound);
+                return;
+            }
+
+            byte[] contents = Files.readAllBytes(file.toPath());
+            if (file.getName().endsWith(".html")) {
+                contents = injectReloadScript(new String(contents, UTF_8)).getBytes(UTF_8);
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", getContentType(file));
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, contents.length);
+            exchange.getResponseBody().write(contents);
+        }
+    }
+
+    /**
+     * Returns the file in the output directory that corresponds to the
+     * requested path, or {@code null} if no such file exists. Requests for
+     * paths outside of the output directory are also treated as not found.
+     */
+    private File locateFile(String requestPath) {
+        Path root = outputDir.toPath().toAbsolutePath().normalize();
+        Path path = root.resolve(requestPath.replaceFirst("^/+", "")).normalize();
+
+        if (!path.startsWith(root)) {
+            return null;
+        }
+
+        File file = path.toFile();
+        if (file.isDirectory()) {
+            file = new File(file, "index.html");
+        }
+        return file.isFile() ? file : null;
+    }
+
+    private String injectReloadScript(String html) {
+        int index = findClosingBodyTag(html);
+        if (index == -1) {
+            return html + "\n" + reloadScript;
+        }
+        return html.substring(0, index) + reloadScript + html.substring(index);
+    }
+
+    /**
+     * Returns the position of the last closing body tag, ignoring case. This
+     * searches the original HTML, since converting it to lower case is not
+     * guaranteed to preserve the positions of characters.
+     */
+    private static int findClosingBodyTag(String html) {
+        for (int i = html.length() - CLOSING_BODY_TAG.length(); i >= 0; i--) {
+            if (html.regionMatches(true, i, CLOSING_BODY_TAG, 0, CLOSING_BODY_TAG.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String getContentType(File file) {
+        String contentType = URLConnection.guessContentTypeFromName(file.getName());
+        if (contentType == null) {
+            return "application/octet-stream";
+        } else if (contentType.startsWith("text/")) {
+            return contentType + ";charset=UTF-8";
+        }
+        return contentType;
+    }
+
+    /**
+     * Keeps the connection open and sends events to the browser until it
+     * disconnects. Each connected browser has its own queue, so that slow
+     * clients do not delay events for other clients.
+     */
+    private void handleReloadRequest(HttpExchange exchange) throws IOException {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        clients.add(queue);
+
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, 0);
+
+            OutputStream stream = exchange.getResponseBody();
+            stream.write(": connected\n\n".getBytes(UTF_8));
+            stream.flush();
+
+            String event = poll(queue);
+            while (!DISCONNECT.equals(event)) {
+                stream.write((event == null ? ": keep-alive\n\n" : event).getBytes(UTF_8));
+                stream.flush();
+                event = poll(queue);
+            }
+        } finally {
+            clients.remove(queue);
+        }
+    }
+
+    private String poll(BlockingQueue<String> queue) {
+        try {
+            return queue.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return DISCONNECT;
+        }
+    }
+}
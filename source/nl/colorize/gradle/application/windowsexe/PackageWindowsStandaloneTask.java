@@ -7,43 +7,62 @@
 package nl.colorize.gradle.application.windowsexe;
 
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.ClassDataSharing;
 import nl.colorize.gradle.application.macapplicationbundle.MacApplicationBundleExt;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.Project;
-import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 import org.gradle.process.ExecSpec;
 
 import javax.inject.Inject;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.List;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class PackageWindowsStandaloneTask extends DefaultTask {
 
     private ExecOperations execService;
+    private FileSystemOperations fileSystem;
+    private WindowsStandaloneExt config;
+    private MacApplicationBundleExt macConfig;
+    private Provider<Directory> buildDir;
+    private File runtimeCacheDir;
+
+    private static final String RUNTIME_CACHE_DIR = "caches/colorize-application-plugin/windows-runtime";
+    private static final String CDS_STAGING_DIR = "windows-cds";
 
     @Inject
-    public PackageWindowsStandaloneTask(ExecOperations execService) {
+    public PackageWindowsStandaloneTask(ExecOperations execService, FileSystemOperations fileSystem) {
         this.execService = execService;
+        this.fileSystem = fileSystem;
+    }
+
+    public void configure(Project project, WindowsStandaloneExt config,
+                          MacApplicationBundleExt macConfig) {
+        this.config = config;
+        this.macConfig = macConfig;
+        this.buildDir = project.getLayout().getBuildDirectory();
+        this.runtimeCacheDir = new File(project.getGradle().getGradleUserHomeDir(), RUNTIME_CACHE_DIR);
     }
 
     @TaskAction
     public void run() {
-        WindowsStandaloneExt config = prepareConfig();
+        prepareConfig();
         run(config);
     }
 
     protected void run(WindowsStandaloneExt config) {
+        if (config.isCds()) {
+            createClassDataSharingArchive(config);
+        }
+
         File xmlFile = generateLaunch4jConfig(config);
         execService.exec(exec -> runLaunch4j(exec, xmlFile));
         xmlFile.delete();
@@ -51,25 +70,21 @@ public class PackageWindowsStandaloneTask extends DefaultTask {
 
         // Clean up the generated EXE file since it's already
         // been packaged.
-        File exeFile = config.getExeFile(getProject());
+        File exeFile = config.getExeFile(getBuildDir());
         exeFile.delete();
     }
 
-    private WindowsStandaloneExt prepareConfig() {
-        ExtensionContainer ext = getProject().getExtensions();
-        WindowsStandaloneExt config = ext.getByType(WindowsStandaloneExt.class);
-        MacApplicationBundleExt macConfig = ext.getByType(MacApplicationBundleExt.class);
+    private void prepareConfig() {
         if (config.isInherit()) {
             config.inherit(macConfig);
         }
         config.validate();
-        return config;
     }
 
     protected File generateLaunch4jConfig(WindowsStandaloneExt config) {
-        File xmlFile = new File(getProject().getBuildDir(), "launch4j.xml");
+        File xmlFile = new File(getBuildDir(), "launch4j.xml");
         File jarFile = getMainJarFile(config);
-        File exeFile = config.getExeFile(getProject());
+        File exeFile = config.getExeFile(getBuildDir());
 
         try (PrintWriter writer = new PrintWriter(xmlFile, UTF_8)) {
             writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
@@ -97,6 +112,11 @@ public class PackageWindowsStandaloneTask extends DefaultTask {
             writer.println("        <jdkPreference>preferJre</jdkPreference>");
             writer.println("        <runtimeBits>64/32</runtimeBits>");
             writer.println("        <maxHeapSize>" + config.getMemory() + "</maxHeapSize>");
+            if (config.isCds()) {
+                ClassDataSharing cds = new ClassDataSharing(getEmbeddedJavaHome(), List.of());
+                writer.println("        <opt>" + cds.getRuntimeOption("%EXEDIR%\\" +
+                    cds.getArchiveFileName()) + "</opt>");
+            }
             writer.println("    </jre>");
             writer.println("</launch4jConfig>");
         } catch (IOException e) {
@@ -106,55 +126,98 @@ public class PackageWindowsStandaloneTask extends DefaultTask {
         return xmlFile;
     }
 
+    /**
+     * Creates the class data sharing archive by running the application
+     * using the embedded Java runtime. Since this is a Windows runtime,
+     * this requires the build to run on Windows.
+     * <p>
+     * The archive is only used if the class path matches the class path
+     * during training. Training therefore uses a staging directory with the
+     * same layout as the ZIP file, and starts the application the same way
+     * as the EXE file: from the directory that contains the JAR file.
+     */
+    private void createClassDataSharingArchive(WindowsStandaloneExt config) {
+        AppHelper.check(AppHelper.isWindows(), "Class data sharing requires building on Windows");
+
+        File stagingDir = getStagingDir();
+        File jarFile = getMainJarFile(config);
+        fileSystem.sync(sync -> {
+            sync.from(getEmbeddedRuntime());
+            sync.from(jarFile);
+            sync.into(stagingDir);
+        });
+
+        File javaHome = new File(stagingDir, "java");
+        ClassDataSharing cds = new ClassDataSharing(javaHome, config.getCdsTrainingArgs());
+        File archive = getClassDataSharingArchive(config);
+        List<String> launchArgs = List.of("-jar", jarFile.getName());
+        List<String> jvmOptions = List.of("-Xmx" + config.getMemory() + "m");
+
+        try {
+            cds.train(stagingDir, jvmOptions, launchArgs, archive, javaHome);
+            getLogger().lifecycle("Created class data sharing archive {}", archive.getName());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create class data sharing archive", e);
+        }
+    }
+
+    private File getClassDataSharingArchive(WindowsStandaloneExt config) {
+        ClassDataSharing cds = new ClassDataSharing(getEmbeddedJavaHome(), List.of());
+        return new File(getStagingDir(), cds.getArchiveFileName());
+    }
+
+    private File getStagingDir() {
+        return new File(getBuildDir(), CDS_STAGING_DIR);
+    }
+
+    private File getEmbeddedRuntime() {
+        return new File(AppHelper.getEnvironmentVariable("EMBEDDED_WINDOWS_JAVA"));
+    }
+
+    private File getEmbeddedJavaHome() {
+        return new File(getEmbeddedRuntime(), "java");
+    }
+
     private void runLaunch4j(ExecSpec exec, File xmlFile) {
         String launch4j = AppHelper.getEnvironmentVariable("LAUNCH4J_HOME") + "/launch4j.jar";
         exec.commandLine("java", "-Djava.awt.headless=true", "-jar", launch4j, xmlFile.getAbsolutePath());
     }
 
     private void packageWindowsApplication(WindowsStandaloneExt config) {
-        File runtime = new File(AppHelper.getEnvironmentVariable("EMBEDDED_WINDOWS_JAVA"));
+        File runtime = getEmbeddedRuntime();
         File jarFile = getMainJarFile(config);
-        File exeFile = config.getExeFile(getProject());
-
-        File buildDir = getProject().getBuildDir();
-        File zipFile = new File(buildDir, exeFile.getName().replace(".exe", "-windows.zip"));
+        File exeFile = config.getExeFile(getBuildDir());
+        File zipFile = new File(getBuildDir(), exeFile.getName().replace(".exe", "-windows.zip"));
 
-        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile), UTF_8)) {
-            addZipEntry(zip, jarFile.getName(), jarFile.toPath());
-            addZipEntry(zip, exeFile.getName(), exeFile.toPath());
+        int workers = Runtime.getRuntime().availableProcessors();
+        ZipPackager packager = new ZipPackager(config.getCompressionLevel(), workers);
+        RuntimeFragmentCache runtimeCache = new RuntimeFragmentCache(runtimeCacheDir,
+            config.getCompressionLevel(), workers);
 
-            try (Stream<Path> stream = Files.walk(runtime.toPath())) {
-                stream.filter(path -> !Files.isDirectory(path))
-                    .filter(path -> !path.getFileName().toString().equals(".DS_Store"))
-                    .forEach(path -> addZipEntry(zip, runtime, path));
+        try {
+            packager.add(jarFile.getName(), jarFile);
+            packager.add(exeFile.getName(), exeFile);
+            if (config.isCds()) {
+                File archive = getClassDataSharingArchive(config);
+                packager.add(archive.getName(), archive);
             }
+            packager.addFragment(runtimeCache.getFragment(runtime));
+            packager.write(zipFile);
         } catch (IOException e) {
             throw new RuntimeException("Error creating ZIP file", e);
         }
     }
 
-    private void addZipEntry(ZipOutputStream zip, File runtime, Path file) {
-        String zipPath = runtime.toPath().relativize(file).toString();
-        addZipEntry(zip, zipPath, file);
-    }
-
-    private void addZipEntry(ZipOutputStream zip, String zipPath, Path file) {
-        try {
-            zip.putNextEntry(new ZipEntry(zipPath));
-            Files.copy(file, zip);
-            zip.closeEntry();
-        } catch (IOException e) {
-            throw new RuntimeException("Error writing ZIP file entry", e);
-        }
-    }
-
     private File getMainJarFile(WindowsStandaloneExt config) {
-        Project project = getProject();
-        File jarFile = new File(AppHelper.getLibsDir(project), config.getMainJarName());
+        File jarFile = new File(AppHelper.getLibsDir(getBuildDir()), config.getMainJarName());
         AppHelper.check(jarFile.exists(), "Cannot locate JAR file: " + jarFile.getAbsolutePath());
         return jarFile;
     }
 
+    private File getBuildDir() {
+        return buildDir.get().getAsFile();
+    }
+
     private File getIconFile(WindowsStandaloneExt config) {
         File iconFile = new File(config.getIcon());
         AppHelper.check(iconFile.exists(), "Cannot locate icon file: " + iconFile.getAbsolutePath());
@@ -0,0 +1,89 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.windowsexe;
+
+import nl.colorize.gradle.application.AppHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Stores the compressed embedded Java runtime as a ZIP fragment, so that it
+ * can be reused by later builds. The runtime rarely changes, but compressing
+ * it is by far the most expensive part of packaging the Windows application.
+ * Fragments are identified by a hash of the runtime's contents and the
+ * compression level, so changing either will create a new fragment.
+ */
+class RuntimeFragmentCache {
+
+    private File cacheDir;
+    private int compressionLevel;
+    private int workers;
+
+    private static final String FORMAT_VERSION = "1";
+
+    public RuntimeFragmentCache(File cacheDir, int compressionLevel, int workers) {
+        this.cacheDir = cacheDir;
+        this.compressionLevel = compressionLevel;
+        this.workers = workers;
+    }
+
+    /**
+     * Returns the fragment for the specified runtime directory, creating it
+     * first if the cache does not contain a fragment for this runtime yet.
+     */
+    public File getFragment(File runtime) throws IOException {
+        File fragment = new File(cacheDir, hashRuntime(runtime) + ".zip");
+
+        if (!fragment.exists()) {
+            createFragment(runtime, fragment);
+        }
+
+        return fragment;
+    }
+
+    /**
+     * Creates the fragment under a temporary name, then moves it to its
+     * final location. This prevents other builds that use the same cache
+     * from seeing a fragment that has not been completely written.
+     */
+    private void createFragment(File runtime, File fragment) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        Path tempFile = Files.createTempFile(cacheDir.toPath(), "runtime-", ".tmp");
+
+        try {
+            ZipPackager packager = new ZipPackager(compressionLevel, workers);
+            packager.addDirectory(runtime);
+            packager.write(tempFile.toFile());
+            Files.move(tempFile, fragment.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns a hash based on the relative path and contents of every file
+     * in the runtime directory.
+     */
+    protected String hashRuntime(File runtime) throws IOException {
+        List<Path> files = ZipPackager.listFiles(runtime);
+        List<String> hashes = AppHelper.mapParallel(files, workers, file ->
+            ZipPackager.getRelativePath(runtime, file) + " " + AppHelper.hash(file.toFile()));
+
+        StringBuilder key = new StringBuilder();
+        key.append(FORMAT_VERSION).append("\n");
+        key.append(compressionLevel).append("\n");
+        hashes.forEach(hash -> key.append(hash).append("\n"));
+        return AppHelper.hash(key.toString());
+    }
+}
@@ -31,20 +31,30 @@ public class WindowsStandaloneExt implements Validatable {
     private int memory;
     private String exeFileName;
     private String javaVersion;
+    private int compressionLevel;
+    private boolean cds;
+    private List<String> cdsTrainingArgs;
 
     public WindowsStandaloneExt() {
         this.inherit = false;
         this.args = Collections.emptyList();
         this.memory = 2048;
         this.javaVersion = "17";
+        this.compressionLevel = 6;
+        this.cds = false;
+        this.cdsTrainingArgs = Collections.emptyList();
     }
 
     public File getExeFile(Project project) {
+        return getExeFile(project.getLayout().getBuildDirectory().get().getAsFile());
+    }
+
+    public File getExeFile(File buildDir) {
         String fileName = exeFileName;
         if (exeFileName == null) {
             fileName = mainJarName.replace(".jar", ".exe");
         }
-        return new File(project.getBuildDir(), fileName);
+        return new File(buildDir, fileName);
     }
 
     @Override
@@ -55,6 +65,8 @@ public class WindowsStandaloneExt implements Validatable {
         AppHelper.check(icon.endsWith(".ico"), "Windows icon must be a .ico file");
         AppHelper.check(supportURL != null, "Missing exe.supportURL");
         AppHelper.check(mainJarName != null, "Missing exe.mainJarName");
+        AppHelper.check(compressionLevel >= 0 && compressionLevel <= 9,
+            "exe.compressionLevel must be between 0 and 9");
     }
 
     public void inherit(MacApplicationBundleExt macConfig) {
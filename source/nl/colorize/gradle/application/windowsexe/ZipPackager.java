@@ -0,0 +1,624 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.windowsexe;
+
+import nl.colorize.gradle.application.AppHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Creates ZIP files by compressing entries in parallel, while still writing
+ * the entries in a fixed order. Large files are split into chunks that are
+ * compressed independently. Each chunk uses the end of the previous chunk as
+ * its dictionary, and chunks are concatenated into a single deflate stream.
+ * This means the compression ratio is close to compressing the file as a
+ * whole, while large files no longer need to be compressed by a single
+ * thread.
+ * <p>
+ * Files that are already compressed, such as JAR files, are stored without
+ * compressing them again. All entries use a fixed timestamp, so packaging
+ * the same files produces the same ZIP file.
+ * <p>
+ * Existing ZIP files created by this class can be included as a fragment.
+ * The entries in the fragment are copied as-is, without decompressing and
+ * compressing them again, which makes it possible to reuse the compressed
+ * contents of files that do not change between builds.
+ * <p>
+ * The ZIP64 extensions are not supported, so ZIP files are limited to 65535
+ * entries, and sizes and offsets need to stay below 4 GB. These limits are
+ * checked before and while writing the ZIP file. If they are exceeded, the
+ * ZIP file is removed instead of leaving behind a corrupt file.
+ */
+class ZipPackager {
+
+    private int compressionLevel;
+    private int workers;
+    private long maxSize;
+    private List<Entry> entries;
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final List<String> COMPRESSED_FILE_EXTENSIONS = List.of(".jar", ".zip", ".jmod");
+    private static final String EXCLUDE_FILE = ".DS_Store";
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final short VERSION = 20;
+    private static final short FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final short FLAG_UTF8 = 0x0800;
+    private static final short METHOD_STORED = 0;
+    private static final short METHOD_DEFLATED = 8;
+    // Same timestamp that Gradle uses for reproducible archives,
+    // February 1st 1980 in MS-DOS date/time format.
+    private static final short DOS_TIME = 0;
+    private static final short DOS_DATE = (2 << 5) | 1;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    // 0xFFFFFFFF indicates the actual value is stored in a ZIP64 record.
+    private static final long MAX_SIZE = 0xFFFFFFFEL;
+
+    public ZipPackager(int compressionLevel, int workers) {
+        this(compressionLevel, workers, MAX_SIZE);
+    }
+
+    /**
+     * Creates a {@code ZipPackager} that uses a lower limit for sizes and
+     * offsets. This is intended for testing, so that the limit can be
+     * reached without creating multi-gigabyte files.
+     */
+    protected ZipPackager(int compressionLevel, int workers, long maxSize) {
+        AppHelper.check(compressionLevel >= 0 && compressionLevel <= 9,
+            "Invalid compression level: " + compressionLevel);
+        AppHelper.check(workers >= 1, "Invalid number of workers: " + workers);
+
+        this.compressionLevel = compressionLevel;
+        this.workers = workers;
+        this.maxSize = Math.min(maxSize, MAX_SIZE);
+        this.entries = new ArrayList<>();
+    }
+
+    public void add(String path, File file) {
+        boolean compressed = COMPRESSED_FILE_EXTENSIONS.stream()
+            .anyMatch(ext -> file.getName().toLowerCase().endsWith(ext));
+        entries.add(new Entry(path, file.toPath(), file.length(),
+            compressed ? METHOD_STORED : METHOD_DEFLATED));
+    }
+
+    /**
+     * Adds all files in the specified directory, using their path relative
+     * to the directory. Files are added in sorted order, so that the order
+     * of the entries does not depend on the file system.
+     */
+    public void addDirectory(File dir) throws IOException {
+        for (Path file : listFiles(dir)) {
+            add(getRelativePath(dir, file), file.toFile());
+        }
+    }
+
+    /**
+     * Adds all entries from a ZIP file that was previously created by this
+     * class. The entries are copied without compressing them again.
+     */
+    public void addFragment(File zipFile) throws IOException {
+        Fragment fragment = new Fragment(zipFile.toPath());
+
+        try (FileChannel channel = FileChannel.open(fragment.file, StandardOpenOption.READ)) {
+            ByteBuffer end = read(channel, channel.size() - 22, 22);
+            AppHelper.check(end.getInt() == END_OF_CENTRAL_DIRECTORY,
+                "Unsupported ZIP file: " + zipFile.getAbsolutePath());
+
+            end.position(10);
+            int count = Short.toUnsignedInt(end.getShort());
+            long size = Integer.toUnsignedLong(end.getInt());
+            fragment.length = Integer.toUnsignedLong(end.getInt());
+
+            ByteBuffer centralDirectory = read(channel, fragment.length, (int) size);
+            for (int i = 0; i < count; i++) {
+                fragment.entries.add(parseCentralHeader(centralDirectory, fragment));
+            }
+        }
+
+        entries.addAll(fragment.entries);
+    }
+
+    private Entry parseCentralHeader(ByteBuffer buffer, Fragment fragment) {
+        AppHelper.check(buffer.getInt() == CENTRAL_HEADER, "Invalid ZIP central directory");
+
+        buffer.position(buffer.position() + 6);
+        short method = buffer.getShort();
+        buffer.position(buffer.position() + 4);
+        long crc = Integer.toUnsignedLong(buffer.getInt());
+        long compressedSize = Integer.toUnsignedLong(buffer.getInt());
+        long size = Integer.toUnsignedLong(buffer.getInt());
+        int nameLength = Short.toUnsignedInt(buffer.getShort());
+        int extraLength = Short.toUnsignedInt(buffer.getShort());
+        int commentLength = Short.toUnsignedInt(buffer.getShort());
+        buffer.position(buffer.position() + 8);
+        long offset = Integer.toUnsignedLong(buffer.getInt());
+
+        byte[] name = new byte[nameLength];
+        buffer.get(name);
+        buffer.position(buffer.position() + extraLength + commentLength);
+
+        Entry entry = new Entry(new String(name, UTF_8), fragment.file, size, method);
+        entry.fragment = fragment;
+        entry.crc = crc;
+        entry.compressedSize = compressedSize;
+        entry.offset = offset;
+        return entry;
+    }
+
+    /**
+     * Returns all files in the specified directory that should be included
+     * in the ZIP file, in sorted order.
+     */
+    protected static List<Path> listFiles(File dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir.toPath())) {
+            return stream
+                .filter(path -> !Files.isDirectory(path))
+                .filter(path -> !path.getFileName().toString().equals(EXCLUDE_FILE))
+                .sorted()
+                .toList();
+        }
+    }
+
+    protected static String getRelativePath(File dir, Path file) {
+        return dir.toPath().relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Writes the ZIP file. Limits that can be determined from the entries
+     * are checked before the ZIP file is created. The compressed sizes and
+     * offsets are only known while writing, if they exceed the limits the
+     * partially written ZIP file is deleted.
+     *
+     * @throws IllegalArgumentException if the ZIP file would exceed the
+     *         limits of the ZIP format without the ZIP64 extensions.
+     */
+    public void write(File zipFile) throws IOException {
+        checkLimits();
+        List<Chunk> chunks = prepareChunks();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+        try {
+            write(zipFile, chunks, executor);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(zipFile.toPath());
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void write(File zipFile, List<Chunk> chunks, ExecutorService executor) throws IOException {
+        try (CountingOutputStream out = new CountingOutputStream(zipFile)) {
+            Deque<Future<CompressedChunk>> pending = new ArrayDeque<>();
+            int next = 0;
+
+            for (int i = 0; i < chunks.size(); i++) {
+                while (next < chunks.size() && next < i + workers * CHUNKS_PER_WORKER) {
+                    Chunk chunk = chunks.get(next);
+                    pending.add(executor.submit(() -> processChunk(chunk)));
+                    next++;
+                }
+
+                writeChunk(out, chunks.get(i), await(pending.removeFirst()));
+            }
+
+            writeCentralDirectory(out);
+        }
+    }
+
+    private void checkLimits() {
+        AppHelper.check(entries.size() <= MAX_ENTRIES,
+            "ZIP file contains " + entries.size() + " entries, the maximum is " + MAX_ENTRIES);
+
+        for (Entry entry : entries) {
+            AppHelper.check(entry.path.getBytes(UTF_8).length <= MAX_NAME_LENGTH,
+                "ZIP entry name is longer than " + MAX_NAME_LENGTH + " bytes");
+            AppHelper.check(entry.size <= maxSize,
+                "ZIP entry " + entry.path + " is too large, files of 4 GB or more are not supported");
+        }
+    }
+
+    private List<Chunk> prepareChunks() {
+        List<Chunk> chunks = new ArrayList<>();
+
+        for (Entry entry : entries) {
+            if (entry.fragment != null) {
+                if (entry == entry.fragment.entries.getFirst()) {
+                    chunks.add(new Chunk(entry, 0, entry.fragment.length, true));
+                }
+            } else if (entry.method == METHOD_STORED) {
+                chunks.add(new Chunk(entry, 0, entry.size, true));
+            } else {
+                int count = (int) Math.max((entry.size + CHUNK_SIZE - 1) / CHUNK_SIZE, 1);
+                for (int i = 0; i < count; i++) {
+                    long offset = (long) i * CHUNK_SIZE;
+                    long length = Math.min(CHUNK_SIZE, entry.size - offset);
+                    chunks.add(new Chunk(entry, offset, length, i == count - 1));
+                }
+            }
+        }
+
+        return chunks;
+    }
+
+    private CompressedChunk processChunk(Chunk chunk) throws IOException {
+        if (chunk.entry.fragment != null) {
+            return new CompressedChunk(null, null, 0L);
+        }
+
+        if (chunk.entry.method == METHOD_STORED) {
+            return new CompressedChunk(null, null, calculateCRC(chunk.entry.file));
+        }
+
+        try (FileChannel channel = FileChannel.open(chunk.entry.file, StandardOpenOption.READ)) {
+            long dictionaryOffset = Math.max(chunk.offset - DICTIONARY_SIZE, 0);
+            int dictionaryLength = (int) (chunk.offset - dictionaryOffset);
+            byte[] dictionary = read(channel, dictionaryOffset, dictionaryLength).array();
+            byte[] data = read(channel, chunk.offset, (int) chunk.length).array();
+            return new CompressedChunk(data, deflate(data, dictionary, chunk.last), 0L);
+        }
+    }
+
+    private ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) == -1) {
+                throw new IOException("File changed while packaging");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Compresses a single chunk into raw deflate data. All chunks except the
+     * last one end with a sync flush, so that the next chunk starts at a byte
+     * boundary and the chunks can simply be concatenated.
+     */
+    private byte[] deflate(byte[] data, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+        ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[64 * 1024];
+
+        try {
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int length = deflater.deflate(buffer);
+                    result.write(buffer, 0, length);
+                }
+            } else {
+                int length;
+                do {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    result.write(buffer, 0, length);
+                } while (length == buffer.length);
+            }
+
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private long calculateCRC(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+
+        try (InputStream in = Files.newInputStream(file)) {
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, length);
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    private CompressedChunk await(Future<CompressedChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Error while compressing ZIP entry", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while compressing ZIP entry", e);
+        }
+    }
+
+    private void writeChunk(CountingOutputStream out, Chunk chunk, CompressedChunk result)
+            throws IOException {
+        Entry entry = chunk.entry;
+
+        if (entry.fragment != null) {
+            writeFragment(out, entry.fragment);
+            return;
+        }
+
+        if (entry.method == METHOD_STORED) {
+            entry.offset = out.count;
+            entry.crc = result.crc;
+            entry.compressedSize = entry.size;
+            writeLocalHeader(out, entry);
+            Files.copy(entry.file, out);
+            return;
+        }
+
+        if (chunk.offset == 0) {
+            entry.offset = out.count;
+            writeLocalHeader(out, entry);
+        }
+
+        entry.checksum.update(result.data);
+        entry.compressedSize += result.compressed.length;
+        out.write(result.compressed);
+
+        if (chunk.last) {
+            entry.crc = entry.checksum.getValue();
+            entry.checksum = null;
+            writeDataDescriptor(out, entry);
+        }
+    }
+
+    /**
+     * Copies the local headers and data of all entries in the fragment, and
+     * moves the entries' offsets to their new position.
+     */
+    private void writeFragment(CountingOutputStream out, Fragment fragment) throws IOException {
+        long base = out.count;
+
+        try (InputStream in = Files.newInputStream(fragment.file)) {
+            long copied = in.transferTo(new BoundedOutputStream(out, fragment.length));
+            AppHelper.check(copied >= fragment.length, "Incomplete ZIP fragment: " + fragment.file);
+        }
+
+        for (Entry entry : fragment.entries) {
+            entry.offset += base;
+        }
+    }
+
+    private void writeLocalHeader(OutputStream out, Entry entry) throws IOException {
+        byte[] name = entry.path.getBytes(UTF_8);
+        boolean stored = entry.method == METHOD_STORED;
+
+        ByteBuffer header = allocate(30 + name.length);
+        header.putInt(LOCAL_HEADER);
+        header.putShort(VERSION);
+        header.putShort(getFlags(entry));
+        header.putShort(entry.method);
+        header.putShort(DOS_TIME);
+        header.putShort(DOS_DATE);
+        header.putInt(stored ? (int) entry.crc : 0);
+        header.putInt(stored ? toUnsignedInt(entry.compressedSize) : 0);
+        header.putInt(stored ? toUnsignedInt(entry.size) : 0);
+        header.putShort((short) name.length);
+        header.putShort((short) 0);
+        header.put(name);
+        out.write(header.array());
+    }
+
+    private void writeDataDescriptor(OutputStream out, Entry entry) throws IOException {
+        ByteBuffer descriptor = allocate(16);
+        descriptor.putInt(DATA_DESCRIPTOR);
+        descriptor.putInt((int) entry.crc);
+        descriptor.putInt(toUnsignedInt(entry.compressedSize));
+        descriptor.putInt(toUnsignedInt(entry.size));
+        out.write(descriptor.array());
+    }
+
+    private void writeCentralDirectory(CountingOutputStream out) throws IOException {
+        long start = out.count;
+
+        for (Entry entry : entries) {
+            byte[] name = entry.path.getBytes(UTF_8);
+
+            ByteBuffer header = allocate(46 + name.length);
+            header.putInt(CENTRAL_HEADER);
+            header.putShort(VERSION);
+            header.putShort(VERSION);
+            header.putShort(getFlags(entry));
+            header.putShort(entry.method);
+            header.putShort(DOS_TIME);
+            header.putShort(DOS_DATE);
+            header.putInt((int) entry.crc);
+            header.putInt(toUnsignedInt(entry.compressedSize));
+            header.putInt(toUnsignedInt(entry.size));
+            header.putShort((short) name.length);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt(0);
+            header.putInt(toUnsignedInt(entry.offset));
+            header.put(name);
+            out.write(header.array());
+        }
+
+        ByteBuffer end = allocate(22);
+        end.putInt(END_OF_CENTRAL_DIRECTORY);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) entries.size());
+        end.putShort((short) entries.size());
+        end.putInt(toUnsignedInt(out.count - start));
+        end.putInt(toUnsignedInt(start));
+        end.putShort((short) 0);
+        out.write(end.array());
+    }
+
+    private short getFlags(Entry entry) {
+        if (entry.method == METHOD_STORED) {
+            return FLAG_UTF8;
+        }
+        return (short) (FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+    }
+
+    private ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int toUnsignedInt(long value) {
+        AppHelper.check(value <= maxSize, "ZIP files of 4 GB or more are not supported");
+        return (int) value;
+    }
+
+    /**
+     * File that is added to the ZIP file. The CRC, compressed size, and
+     * offset are only known once the entry has been written, unless the
+     * entry is copied from a fragment.
+     */
+    private static class Entry {
+
+        private String path;
+        private Path file;
+        private long size;
+        private short method;
+        private Fragment fragment;
+
+        private CRC32 checksum;
+        private long crc;
+        private long compressedSize;
+        private long offset;
+
+        public Entry(String path, Path file, long size, short method) {
+            this.path = path;
+            this.file = file;
+            this.size = size;
+            this.method = method;
+            this.checksum = new CRC32();
+        }
+    }
+
+    /**
+     * Existing ZIP file whose entries are copied into the ZIP file. The
+     * length indicates the part of the file that contains the entries,
+     * which is followed by the central directory.
+     */
+    private static class Fragment {
+
+        private Path file;
+        private long length;
+        private List<Entry> entries;
+
+        public Fragment(Path file) {
+            this.file = file;
+            this.entries = new ArrayList<>();
+        }
+    }
+
+    private record Chunk(Entry entry, long offset, long length, boolean last) {
+    }
+
+    /**
+     * Result of processing a chunk. Contains the original and compressed
+     * data for compressed entries, or only the CRC for stored entries.
+     */
+    private record CompressedChunk(byte[] data, byte[] compressed, long crc) {
+    }
+
+    /**
+     * Forwards at most the specified number of bytes, and ignores the rest.
+     * Used to copy only the entries from a fragment, without its central
+     * directory.
+     */
+    private static class BoundedOutputStream extends OutputStream {
+
+        private OutputStream out;
+        private long remaining;
+
+        public BoundedOutputStream(OutputStream out, long limit) {
+            this.out = out;
+            this.remaining = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (remaining > 0) {
+                out.write(b);
+                remaining--;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int length = (int) Math.min(len, remaining);
+            out.write(b, off, length);
+            remaining -= length;
+        }
+    }
+
+    /**
+     * Keeps track of the number of bytes written, since the central
+     * directory needs to refer to the offset of every entry.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private OutputStream out;
+        private long count;
+
+        public CountingOutputStream(File file) throws IOException {
+            this.out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+            this.count = 0L;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
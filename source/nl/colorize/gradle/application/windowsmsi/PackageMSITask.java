@@ -7,48 +7,97 @@
 package nl.colorize.gradle.application.windowsmsi;
 
 import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.ClassDataSharing;
+import nl.colorize.gradle.application.ModuleAnalyzer;
 import nl.colorize.gradle.application.macapplicationbundle.MacApplicationBundleExt;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.plugins.ExtensionContainer;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 
 import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PackageMSITask extends DefaultTask {
 
     private ExecOperations execService;
+    private WindowsInstallerExt config;
+    private MacApplicationBundleExt macConfig;
+    private Provider<Directory> buildDir;
+
+    private static final String APP_IMAGE_DIR = "windows-app-image";
+    private static final String JLINK_OPTIONS = "--strip-native-commands --strip-debug --no-man-pages " +
+        "--no-header-files";
 
     @Inject
     public PackageMSITask(ExecOperations execService) {
         this.execService = execService;
     }
 
+    public void configure(Project project, WindowsInstallerExt config,
+                          MacApplicationBundleExt macConfig) {
+        this.config = config;
+        this.macConfig = macConfig;
+        this.buildDir = project.getLayout().getBuildDirectory();
+    }
+
     @TaskAction
     public void run() {
         AppHelper.requireWindows();
 
-        ExtensionContainer ext = getProject().getExtensions();
-        WindowsInstallerExt config = ext.getByType(WindowsInstallerExt.class);
-        MacApplicationBundleExt macConfig = ext.getByType(MacApplicationBundleExt.class);
-
         if (config.isInherit()) {
             config.inherit(macConfig);
         }
 
         config.validate();
 
-        List<String> packageCommand = buildPackageCommand(config);
-        execService.exec(exec -> exec.commandLine(packageCommand));
+        if (config.isCds()) {
+            packageWithClassDataSharing(config);
+        } else {
+            List<String> packageCommand = buildPackageCommand(config);
+            execService.exec(exec -> exec.commandLine(packageCommand));
+        }
+    }
+
+    /**
+     * Creates the application image first, so that the class data sharing
+     * archive can be created using the runtime inside the application
+     * image. The installer is then created from this application image.
+     */
+    private void packageWithClassDataSharing(WindowsInstallerExt config) {
+        File appImageDir = new File(buildDir.get().getAsFile(), APP_IMAGE_DIR);
+        AppHelper.cleanDirectory(appImageDir);
+
+        List<String> appImageCommand = buildAppImageCommand(config, appImageDir);
+        execService.exec(exec -> exec.commandLine(appImageCommand));
+
+        File appImage = new File(appImageDir, config.getName());
+        File runtime = new File(appImage, "runtime");
+        ClassDataSharing cds = new ClassDataSharing(runtime, config.getCdsTrainingArgs());
+
+        try {
+            File archive = cds.trainAppImage(new File(appImage, "app"), getJDK());
+            getLogger().lifecycle("Created class data sharing archive {}", archive.getName());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create class data sharing archive", e);
+        }
+
+        List<String> installerCommand = buildInstallerCommand(config, appImage);
+        execService.exec(exec -> exec.commandLine(installerCommand));
     }
 
     protected List<String> buildPackageCommand(WindowsInstallerExt config) {
+        File buildDir = this.buildDir.get().getAsFile();
+
         List<String> baseCommand = List.of(
             "jpackage",
             "--type", "msi",
-            "--input", AppHelper.getLibsDir(getProject()).getAbsolutePath(),
+            "--input", AppHelper.getLibsDir(buildDir).getAbsolutePath(),
             "--main-jar", config.getMainJarName(),
             "--main-class", config.getMainClassName(),
             "--name", config.getName(),
@@ -60,17 +109,75 @@ public class PackageMSITask extends DefaultTask {
             "--win-per-user-install",
             "--win-menu",
             "--win-shortcut",
-            "--dest", config.getOutputDir(getProject()).getAbsolutePath()
+            "--dest", config.getOutputDir(buildDir).getAbsolutePath()
+        );
+
+        List<String> command = new ArrayList<>();
+        command.addAll(baseCommand);
+
+        if (config.isDetectModules()) {
+            command.add("--add-modules");
+            command.add(String.join(",", getModules(config, AppHelper.getLibsDir(buildDir))));
+        }
+
+        for (String option : config.getOptions()) {
+            command.add("--java-options");
+            command.add(option);
+        }
+
+        for (String arg : config.getArgs()) {
+            command.add("--arguments");
+            command.add(arg);
+        }
+
+        return command;
+    }
+
+    /**
+     * Returns the command for creating the application image that is used
+     * for creating the class data sharing archive. The launcher is
+     * configured to use the archive, which is added to the application
+     * image once it has been created.
+     */
+    protected List<String> buildAppImageCommand(WindowsInstallerExt config, File appImageDir) {
+        File buildDir = this.buildDir.get().getAsFile();
+        ClassDataSharing cds = new ClassDataSharing(getJDK(), List.of());
+
+        List<String> baseCommand = List.of(
+            "jpackage",
+            "--type", "app-image",
+            "--input", AppHelper.getLibsDir(buildDir).getAbsolutePath(),
+            "--main-jar", config.getMainJarName(),
+            "--main-class", config.getMainClassName(),
+            "--name", config.getName(),
+            "--app-version", config.getVersion(),
+            "--description", config.getDescription(),
+            "--copyright", config.getCopyright(),
+            "--icon", config.getIcon(),
+            "--dest", appImageDir.getAbsolutePath()
         );
 
         List<String> command = new ArrayList<>();
         command.addAll(baseCommand);
 
+        if (config.isDetectModules()) {
+            command.add("--add-modules");
+            command.add(String.join(",", getModules(config, AppHelper.getLibsDir(buildDir))));
+        }
+
+        if (!cds.isAOTCacheSupported()) {
+            command.add("--jlink-options");
+            command.add(JLINK_OPTIONS + " --generate-cds-archive");
+        }
+
         for (String option : config.getOptions()) {
             command.add("--java-options");
             command.add(option);
         }
 
+        command.add("--java-options");
+        command.add(cds.getRuntimeOption("$APPDIR\\" + cds.getArchiveFileName()));
+
         for (String arg : config.getArgs()) {
             command.add("--arguments");
             command.add(arg);
@@ -78,4 +185,40 @@ public class PackageMSITask extends DefaultTask {
 
         return command;
     }
+
+    protected List<String> buildInstallerCommand(WindowsInstallerExt config, File appImage) {
+        return List.of(
+            "jpackage",
+            "--type", "msi",
+            "--app-image", appImage.getAbsolutePath(),
+            "--name", config.getName(),
+            "--app-version", config.getVersion(),
+            "--description", config.getDescription(),
+            "--copyright", config.getCopyright(),
+            "--win-upgrade-uuid", config.getUuid(),
+            "--win-per-user-install",
+            "--win-menu",
+            "--win-shortcut",
+            "--dest", config.getOutputDir(buildDir.get().getAsFile()).getAbsolutePath()
+        );
+    }
+
+    /**
+     * Returns the modules required by the application, in addition to the
+     * configured additional modules. {@code jpackage} creates the runtime
+     * from the JDK that is running the build, so that JDK is also used to
+     * analyze the modules.
+     */
+    private List<String> getModules(WindowsInstallerExt config, File libsDir) {
+        ModuleAnalyzer analyzer = new ModuleAnalyzer(getJDK());
+        List<String> modules = new ArrayList<>();
+        modules.addAll(analyzer.findRequiredModules(libsDir, config.getMainJarName()));
+        modules.addAll(config.getAdditionalModules());
+        getLogger().lifecycle("Required modules: {}", String.join(", ", modules));
+        return modules.stream().distinct().toList();
+    }
+
+    private File getJDK() {
+        return new File(System.getProperty("java.home"));
+    }
 }
@@ -26,6 +26,10 @@ public class WindowsInstallerExt implements Validatable {
     private String mainClassName;
     private List<String> options;
     private List<String> args;
+    private boolean detectModules;
+    private List<String> additionalModules;
+    private boolean cds;
+    private List<String> cdsTrainingArgs;
     private String name;
     private String version;
     private String vendor;
@@ -39,11 +43,19 @@ public class WindowsInstallerExt implements Validatable {
         this.inherit = false;
         this.options = Collections.emptyList();
         this.args = Collections.emptyList();
+        this.detectModules = false;
+        this.additionalModules = Collections.emptyList();
+        this.cds = false;
+        this.cdsTrainingArgs = Collections.emptyList();
         this.outputDir = "windows-msi";
     }
 
     public File getOutputDir(Project project) {
-        return AppHelper.getOutputDir(project, outputDir);
+        return getOutputDir(project.getLayout().getBuildDirectory().get().getAsFile());
+    }
+
+    public File getOutputDir(File buildDir) {
+        return AppHelper.getOutputDir(buildDir, outputDir);
     }
 
     @Override
@@ -67,5 +79,9 @@ public class WindowsInstallerExt implements Validatable {
         version = macConfig.getBundleVersion();
         description = macConfig.getDescription();
         copyright = macConfig.getCopyright();
+        detectModules = macConfig.isDetectModules();
+        additionalModules = macConfig.getAdditionalModules();
+        cds = macConfig.isCds();
+        cdsTrainingArgs = macConfig.getCdsTrainingArgs();
     }
 }
@@ -8,6 +8,19 @@ package nl.colorize.gradle.application.xcode;
 
 import nl.colorize.gradle.application.AppHelper;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecOperations;
 
@@ -30,9 +43,48 @@ import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-public class XcodeGenTask extends DefaultTask {
+public abstract class XcodeGenTask extends DefaultTask {
 
     private ExecOperations execService;
+    private FileSystemOperations fileSystem;
+
+    @Input
+    public abstract Property<String> getAppId();
+
+    @Input
+    public abstract Property<String> getBundleId();
+
+    @Input
+    public abstract Property<String> getAppName();
+
+    @Input
+    public abstract Property<String> getBundleVersion();
+
+    @Input
+    public abstract Property<String> getBuildVersion();
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getIcon();
+
+    @Input
+    public abstract Property<String> getIconBackgroundColor();
+
+    @Input
+    public abstract Property<String> getDeploymentTarget();
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getResourcesDir();
+
+    @Input
+    public abstract Property<String> getLaunchScreenColor();
+
+    @Input
+    public abstract Property<String> getXcodeGenPath();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
     
     private static final List<String> SWIFT_FILES = List.of(
         "App.swift",
@@ -48,45 +100,67 @@ public class XcodeGenTask extends DefaultTask {
     );
 
     @Inject
-    public XcodeGenTask(ExecOperations execService) {
+    public XcodeGenTask(ExecOperations execService, FileSystemOperations fileSystem) {
         this.execService = execService;
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Derives this task's properties from the {@code xcode} configuration.
+     * The configuration is only read once the properties are queried.
+     */
+    public void configure(Project project, XcodeGenExt config) {
+        Directory projectDir = project.getLayout().getProjectDirectory();
+        Provider<XcodeGenExt> ext = AppHelper.validated(project, config);
+
+        getAppId().convention(ext.map(XcodeGenExt::getAppId));
+        getBundleId().convention(ext.map(XcodeGenExt::getBundleId));
+        getAppName().convention(ext.map(XcodeGenExt::getAppName));
+        getBundleVersion().convention(ext.map(XcodeGenExt::getBundleVersion));
+        getBuildVersion().convention(ext.map(XcodeGenExt::getBuildVersion));
+        getIcon().convention(projectDir.file(ext.map(XcodeGenExt::getIcon)));
+        getIconBackgroundColor().convention(ext.map(XcodeGenExt::getIconBackgroundColor));
+        getDeploymentTarget().convention(ext.map(XcodeGenExt::getDeploymentTarget));
+        getResourcesDir().convention(projectDir.dir(ext.map(XcodeGenExt::getResourcesDir)));
+        getLaunchScreenColor().convention(ext.map(XcodeGenExt::getLaunchScreenColor));
+        getXcodeGenPath().convention(ext.map(XcodeGenExt::getXcodeGenPath));
+        getOutputDir().convention(project.getLayout().getBuildDirectory()
+            .dir(ext.map(XcodeGenExt::getOutputDir)));
     }
 
     @TaskAction
     public void run() {
         AppHelper.requireMac();
-        XcodeGenExt ext = getProject().getExtensions().getByType(XcodeGenExt.class);
-        ext.validate();
-        requireXcodeGen(ext);
+        requireXcodeGen();
 
         try {
-            File outputDir = AppHelper.getOutputDir(getProject(), ext.getOutputDir());
-            generateProjectStructure(ext, outputDir);
+            File outputDir = getOutputDir().get().getAsFile();
+            generateProjectStructure(outputDir);
 
             File specFile = new File(outputDir, "xcodegen.yml");
-            generateSpecFile(ext, specFile);
+            generateSpecFile(specFile);
 
-            List<String> xcodeGenCommand = buildCommand(ext, specFile, outputDir);
+            List<String> xcodeGenCommand = buildCommand(specFile, outputDir);
             execService.exec(exec -> exec.commandLine(xcodeGenCommand));
         } catch (IOException e) {
             throw new RuntimeException("Unable to generate Xcode project", e);
         }
     }
 
-    private void requireXcodeGen(XcodeGenExt ext) {
-        String path = ext.getXcodeGenPath();
+    private void requireXcodeGen() {
+        String path = getXcodeGenPath().get();
         File executable = new File(path);
         if (!executable.exists()) {
             throw new UnsupportedOperationException("XcodeGen not found at " + path);
         }
     }
 
-    protected void generateProjectStructure(XcodeGenExt ext, File outputDir) throws IOException {
-        File appDir = AppHelper.mkdir(new File(outputDir, ext.getAppId()));
+    protected void generateProjectStructure(File outputDir) throws IOException {
+        File appDir = AppHelper.mkdir(new File(outputDir, getAppId().get()));
 
         File resourcesDir = AppHelper.mkdir(new File(outputDir, "HybridResources"));
         AppHelper.cleanDirectory(resourcesDir);
-        copyResources(ext, resourcesDir);
+        copyResources(resourcesDir);
 
         for (String swiftFile : SWIFT_FILES) {
             String swiftCode = AppHelper.loadResourceFile(swiftFile);
@@ -97,19 +171,19 @@ public class XcodeGenTask extends DefaultTask {
         Files.writeString(new File(assetsDir, "Contents.json").toPath(),
             AppHelper.loadResourceFile("empty-contents.json"), UTF_8);
         File iconDir = AppHelper.mkdir(new File(assetsDir, "AppIcon.appiconset"));
-        File icon = AppHelper.getProjectFile(getProject(), ext.getIcon());
-        generateIconSet(icon, iconDir, Color.decode(ext.getIconBackgroundColor()));
+        File icon = getIcon().get().getAsFile();
+        generateIconSet(icon, iconDir, Color.decode(getIconBackgroundColor().get()));
     }
 
-    protected void generateSpecFile(XcodeGenExt ext, File specFile) {
+    protected void generateSpecFile(File specFile) {
         Map<String, String> properties = Map.of(
-            "{{appName}}", ext.getAppName(),
-            "{{appId}}", ext.getAppId(),
-            "{{deploymentTarget}}", ext.getDeploymentTarget(),
-            "{{launchScreenColor}}", ext.getLaunchScreenColor(),
-            "{{bundleId}}", ext.getBundleId(),
-            "{{appVersion}}", ext.getBundleVersion(),
-            "{{buildVersion}}", ext.getBuildVersion()
+            "{{appName}}", getAppName().get(),
+            "{{appId}}", getAppId().get(),
+            "{{deploymentTarget}}", getDeploymentTarget().get(),
+            "{{launchScreenColor}}", getLaunchScreenColor().get(),
+            "{{bundleId}}", getBundleId().get(),
+            "{{appVersion}}", getBundleVersion().get(),
+            "{{buildVersion}}", getBuildVersion().get()
         );
 
         try {
@@ -120,11 +194,9 @@ public class XcodeGenTask extends DefaultTask {
         }
     }
 
-    private void copyResources(XcodeGenExt ext, File outputDir) {
-        File inputDir = AppHelper.getProjectDir(getProject(), ext.getResourcesDir());
-
-        getProject().copy(copy -> {
-            copy.from(inputDir);
+    private void copyResources(File outputDir) {
+        fileSystem.copy(copy -> {
+            copy.from(getResourcesDir());
             copy.into(outputDir);
         });
     }
@@ -174,9 +246,9 @@ public class XcodeGenTask extends DefaultTask {
         return result;
     }
 
-    private List<String> buildCommand(XcodeGenExt ext, File specFile, File outputDir) {
+    private List<String> buildCommand(File specFile, File outputDir) {
         return List.of(
-            ext.getXcodeGenPath(),
+            getXcodeGenPath().get(),
             "--spec", specFile.getAbsolutePath(),
             "--project", outputDir.getAbsolutePath()
         );
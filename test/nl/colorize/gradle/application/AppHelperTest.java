@@ -15,13 +15,19 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AppHelperTest {
@@ -85,11 +91,11 @@ class AppHelperTest {
     void rewriteTemplate() {
         Map<String, String> placeholders = Map.of(
             "{{cacheName}}", "test",
-            "{{resourceFiles}}", "\"first\",\n    \"second\""
+            "{{precacheManifest}}", "{url: \"first\"},\n    {url: \"second\"}"
         );
 
         String template = AppHelper.rewriteTemplate("service-worker.js", placeholders);
-        String head = template.lines().limit(11).collect(Collectors.joining("\n"));
+        String head = template.lines().limit(10).collect(Collectors.joining("\n"));
 
         String expected = """
             //-----------------------------------------------------------------------------
@@ -98,13 +104,82 @@ class AppHelperTest {
                         
             const CACHE_NAME = "test";
                         
-            const RESOURCE_FILES = [
-                "/",
-                "first",
-                "second"
+            const PRECACHE_MANIFEST = [
+                {url: "first"},
+                {url: "second"}
             ];
             """;
 
         assertEquals(expected.trim(), head);
     }
+
+    @Test
+    void mapParallelRetainsOrder() {
+        List<Integer> items = List.of(5, 1, 4, 2, 3);
+        List<Integer> results = AppHelper.mapParallel(items, 4, item -> {
+            Thread.sleep(item * 10L);
+            return item * 2;
+        });
+
+        assertEquals(List.of(10, 2, 8, 4, 6), results);
+    }
+
+    @Test
+    void mapParallelReportsAllFailures() {
+        List<String> items = List.of("a", "b", "c", "d");
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> {
+            AppHelper.mapParallel(items, 2, item -> {
+                if (item.equals("b") || item.equals("d")) {
+                    throw new IllegalStateException("Failed " + item);
+                }
+                return item;
+            });
+        });
+
+        assertEquals("2 of 4 failed:\n    b: Failed b\n    d: Failed d", error.getMessage());
+        assertEquals(1, error.getSuppressed().length);
+    }
+
+    @Test
+    void forEachParallelLimitsItemsInProgress() {
+        AtomicInteger requested = new AtomicInteger(0);
+        AtomicInteger maxAhead = new AtomicInteger(0);
+        AtomicInteger completed = new AtomicInteger(0);
+        Iterator<Integer> items = IntStream.range(0, 100)
+            .peek(i -> requested.incrementAndGet())
+            .boxed()
+            .iterator();
+
+        Map<Integer, Integer> results = new TreeMap<>();
+        AppHelper.forEachParallel(items, 2, item -> {
+            maxAhead.accumulateAndGet(requested.get() - completed.get(), Math::max);
+            completed.incrementAndGet();
+            return item * 2;
+        }, results::put);
+
+        assertEquals(100, results.size());
+        assertEquals(Integer.valueOf(198), results.get(99));
+        assertTrue(maxAhead.get() <= 5, "Items in progress: " + maxAhead.get());
+    }
+
+    @Test
+    void forEachParallelReportsAllFailures() {
+        Iterator<String> items = List.of("a", "b", "c", "d").iterator();
+        List<String> results = new ArrayList<>();
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> {
+            AppHelper.forEachParallel(items, 2, item -> {
+                if (item.equals("b") || item.equals("d")) {
+                    throw new IllegalStateException("Failed " + item);
+                }
+                return item;
+            }, (item, result) -> results.add(result));
+        });
+
+        assertTrue(error.getMessage().startsWith("2 of 4 failed:"));
+        assertTrue(error.getMessage().contains("b: Failed b"));
+        assertTrue(error.getMessage().contains("d: Failed d"));
+        assertEquals(2, results.size());
+    }
 }
@@ -0,0 +1,133 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import nl.colorize.gradle.application.macapplicationbundle.MacApplicationBundleExt;
+import nl.colorize.gradle.application.pwa.PwaExt;
+import nl.colorize.gradle.application.staticsite.StaticSiteExt;
+import nl.colorize.gradle.application.windowsmsi.WindowsInstallerExt;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplicationPluginTest {
+
+    private static final List<String> TASKS = List.of(
+        "createApplicationBundle",
+        "signApplicationBundle",
+        "packageApplicationBundle",
+        "packageMSI",
+        "packageEXE",
+        "xcodeGen",
+        "generatePWA",
+        "generateStaticSite",
+        "serveStaticSite",
+        "dryRunStaticSite",
+        "generateAppIcons"
+    );
+
+    @Test
+    void registerTasksLazily(@TempDir File tempDir) {
+        Project project = ProjectBuilder.builder()
+            .withProjectDir(tempDir)
+            .build();
+
+        ApplicationPlugin plugin = new ApplicationPlugin();
+        plugin.apply(project);
+
+        List<String> created = new ArrayList<>();
+        project.getTasks().configureEach(task -> created.add(task.getName()));
+
+        assertTrue(project.getTasks().getNames().containsAll(TASKS));
+        assertEquals(List.of(), created);
+
+        project.getTasks().named("generateStaticSite").get();
+
+        assertEquals(List.of("generateStaticSite"), created);
+    }
+
+    @Test
+    void resolveOutputDirectoriesFromProject(@TempDir File tempDir) {
+        Project project = ProjectBuilder.builder()
+            .withProjectDir(tempDir)
+            .build();
+
+        File buildDir = project.getLayout().getBuildDirectory().get().getAsFile();
+
+        assertEquals(new File(buildDir, "mac"), new MacApplicationBundleExt().getOutputDir(project));
+        assertEquals(new File(buildDir, "windows-msi"), new WindowsInstallerExt().getOutputDir(project));
+        assertEquals(new File(buildDir, "pwa"), new PwaExt().getOutputDir(project));
+        assertEquals(new File(buildDir, "staticsite"), new StaticSiteExt().getOutputDir(project));
+        assertEquals(new File(buildDir, "staticsite-manifest.txt"),
+            new StaticSiteExt().getManifestFile(project));
+    }
+
+    @Test
+    void supportConfigurationCache(@TempDir File tempDir) throws IOException {
+        createFile(tempDir, "settings.gradle", "rootProject.name = \"example\"");
+        createFile(tempDir, "build.gradle", """
+            plugins {
+                id "nl.colorize.gradle.application"
+            }
+
+            pwa {
+                webAppDir = file("web").absolutePath
+                manifest = file("web/manifest.json").absolutePath
+                cacheName = "test"
+            }
+
+            staticSite {
+                contentDir = "site"
+            }
+            """);
+        createFile(tempDir, "web/index.html", "<html><head></head><body>Test</body></html>");
+        createFile(tempDir, "web/manifest.json", "{}");
+        createFile(tempDir, "site/template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(tempDir, "site/index.html", "<div>Test</div>");
+
+        BuildResult first = runConfigurationCache(tempDir, "generateStaticSite", "generatePWA");
+        BuildResult second = runConfigurationCache(tempDir, "generateStaticSite", "generatePWA");
+
+        assertEquals(TaskOutcome.SUCCESS, first.task(":generateStaticSite").getOutcome());
+        assertEquals(TaskOutcome.SUCCESS, first.task(":generatePWA").getOutcome());
+        assertTrue(first.getOutput().contains("Configuration cache entry stored"));
+        assertTrue(second.getOutput().contains("Reusing configuration cache"));
+        assertEquals(TaskOutcome.UP_TO_DATE, second.task(":generateStaticSite").getOutcome());
+        assertEquals(TaskOutcome.UP_TO_DATE, second.task(":generatePWA").getOutcome());
+    }
+
+    private BuildResult runConfigurationCache(File projectDir, String... tasks) {
+        List<String> args = new ArrayList<>(List.of(tasks));
+        args.add("--configuration-cache");
+
+        return GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withArguments(args)
+            .build();
+    }
+
+    private void createFile(File dir, String path, String contents) throws IOException {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), contents, UTF_8);
+    }
+}
@@ -0,0 +1,183 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.ProviderFactory;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssetCompressorTest {
+
+    @Test
+    void writeGzipVariants(@TempDir File tempDir) throws IOException {
+        String html = "<p>Hello world</p>\n".repeat(100);
+        Files.writeString(new File(tempDir, "index.html").toPath(), html, UTF_8);
+        new File(tempDir, "css").mkdir();
+        Files.writeString(new File(tempDir, "css/style.css").toPath(), "p { color: red; }\n".repeat(100));
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+        int written = compressor.compress(tempDir);
+
+        assertEquals(2, written);
+        assertEquals(html, decompress(new File(tempDir, "index.html.gz")));
+        assertTrue(new File(tempDir, "css/style.css.gz").exists());
+        assertFalse(new File(tempDir, "index.html.br").exists());
+    }
+
+    @Test
+    void skipSmallAndCompressedFiles(@TempDir File tempDir) throws IOException {
+        Files.writeString(new File(tempDir, "small.js").toPath(), "console.log(1);", UTF_8);
+        Files.writeString(new File(tempDir, "image.png").toPath(), "x".repeat(2000), UTF_8);
+        Files.writeString(new File(tempDir, "data.bin").toPath(), "x".repeat(2000), UTF_8);
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+        int written = compressor.compress(tempDir);
+
+        assertEquals(0, written);
+        assertFalse(new File(tempDir, "small.js.gz").exists());
+        assertFalse(new File(tempDir, "image.png.gz").exists());
+        assertFalse(new File(tempDir, "data.bin.gz").exists());
+    }
+
+    @Test
+    void compressTextFormats(@TempDir File tempDir) throws IOException {
+        for (String name : List.of("a.svg", "b.txt", "c.xml", "manifest.webmanifest", "D.HTML")) {
+            Files.writeString(new File(tempDir, name).toPath(), "<a>text</a>\n".repeat(200), UTF_8);
+        }
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+
+        assertEquals(5, compressor.compress(tempDir));
+    }
+
+    @Test
+    void skipVariantLargerThanOriginal(@TempDir File tempDir) throws IOException {
+        byte[] random = new byte[2000];
+        new Random(1234).nextBytes(random);
+        Files.write(new File(tempDir, "data.txt").toPath(), random);
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+        compressor.compress(tempDir);
+
+        assertFalse(new File(tempDir, "data.txt.gz").exists());
+    }
+
+    @Test
+    void recordVariantsThatAreNotSmaller(@TempDir File tempDir) throws IOException {
+        File siteDir = new File(tempDir, "site");
+        siteDir.mkdir();
+        File file = new File(siteDir, "data.txt");
+        byte[] random = new byte[2000];
+        new Random(1234).nextBytes(random);
+        Files.write(file.toPath(), random);
+        File stateFile = new File(tempDir, "state.txt");
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+        compressor.compress(siteDir, stateFile);
+
+        assertEquals(List.of("data.txt\tgzip\t" + file.lastModified()),
+            Files.readAllLines(stateFile.toPath(), UTF_8));
+
+        Files.writeString(file.toPath(), "text\n".repeat(500), UTF_8);
+        file.setLastModified(System.currentTimeMillis() + 10_000L);
+
+        assertEquals(1, compressor.compress(siteDir, stateFile));
+        assertEquals(List.of(), Files.readAllLines(stateFile.toPath(), UTF_8));
+    }
+
+    @Test
+    void sameOutputEveryTime(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "data.json");
+        Files.writeString(file.toPath(), "{\"a\": 1}\n".repeat(200), UTF_8);
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+        compressor.compress(tempDir);
+        byte[] first = Files.readAllBytes(new File(tempDir, "data.json.gz").toPath());
+        new File(tempDir, "data.json.gz").delete();
+        compressor.compress(tempDir);
+        byte[] second = Files.readAllBytes(new File(tempDir, "data.json.gz").toPath());
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void retainUpToDateVariants(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "app.js");
+        Files.writeString(file.toPath(), "let a = 1;\n".repeat(200), UTF_8);
+
+        AssetCompressor compressor = new AssetCompressor(List.of("gzip"), 1024, 2);
+
+        assertEquals(1, compressor.compress(tempDir));
+        assertEquals(0, compressor.compress(tempDir));
+
+        Files.writeString(file.toPath(), "let b = 2;\n".repeat(200), UTF_8);
+        file.setLastModified(System.currentTimeMillis() + 10_000L);
+
+        assertEquals(1, compressor.compress(tempDir));
+        assertEquals("let b = 2;\n".repeat(200), decompress(new File(tempDir, "app.js.gz")));
+    }
+
+    @Test
+    void removeVariantsForDisabledFormats(@TempDir File tempDir) throws IOException {
+        Files.writeString(new File(tempDir, "app.js").toPath(), "let a = 1;\n".repeat(200), UTF_8);
+
+        new AssetCompressor(List.of("gzip"), 1024, 2).compress(tempDir);
+        new AssetCompressor(List.of(), 1024, 2).compress(tempDir);
+
+        assertFalse(new File(tempDir, "app.js.gz").exists());
+    }
+
+    @Test
+    void toolVersionOnlyForExternalTools() {
+        ProviderFactory providers = ProjectBuilder.builder().build().getProviders();
+
+        assertEquals("", AssetCompressor.getToolVersion(providers, providers.provider(List::of)).get());
+        assertEquals("", AssetCompressor.getToolVersion(providers,
+            providers.provider(() -> List.of("gzip"))).get());
+    }
+
+    @Test
+    void missingToolIsReportedWhenCompressing() {
+        ProviderFactory providers = ProjectBuilder.builder().build().getProviders();
+        Provider<String> toolVersion = AssetCompressor.getToolVersion(providers,
+            providers.provider(() -> List.of("brotli")));
+
+        assertTrue(toolVersion.isPresent());
+        AssetCompressor.checkToolVersion(List.of("gzip"), "", "pwa.precompress");
+        assertThrows(IllegalArgumentException.class,
+            () -> AssetCompressor.checkToolVersion(List.of("brotli"), "", "pwa.precompress"));
+    }
+
+    @Test
+    void rejectUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> new AssetCompressor(List.of("zstd"), 1024, 2));
+    }
+
+    private String decompress(File file) throws IOException {
+        try (InputStream stream = new GZIPInputStream(new FileInputStream(file))) {
+            return new String(stream.readAllBytes(), UTF_8);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssetMinifierTest {
+
+    @Test
+    void minifyHTML() {
+        String html = """
+            <!DOCTYPE html>
+            <html>
+                <head>
+                    <!-- Comment -->
+                    <title>Test</title>
+                </head>
+                <body>
+                    <div>
+                        <p>Hello   <b>world</b></p>
+                    </div>
+                </body>
+            </html>
+            """;
+
+        String expected = "<!doctype html><html><head><title>Test</title></head><body>" +
+            "<div><p>Hello <b>world</b></p></div></body></html>";
+
+        AssetMinifier minifier = new AssetMinifier();
+
+        assertEquals(expected, minifier.minify("index.html", html).replace("<!DOCTYPE", "<!doctype"));
+    }
+
+    @Test
+    void preserveWhitespaceInPreformattedText() {
+        String html = "<div>\n    <pre>a\n    b</pre>\n    <textarea>c\n  d</textarea>\n</div>";
+
+        AssetMinifier minifier = new AssetMinifier();
+
+        assertEquals("<div><pre>a\n    b</pre> <textarea>c\n  d</textarea> </div>",
+            minifier.minify("page.html", html));
+    }
+
+    @Test
+    void minifyInlineStylesAndScripts() {
+        String html = """
+            <html>
+            <head>
+                <style>
+                    p { color: red; }
+                </style>
+                <script>
+                    // Comment
+                    let a = "x  y";
+                </script>
+                <script type="application/ld+json">{ "a": 1 }</script>
+            </head>
+            </html>
+            """;
+
+        String expected = "<html><head><style>p{color:red}</style><script>let a=\"x  y\";</script>" +
+            "<script type=\"application/ld+json\">{ \"a\": 1 }</script></head><body></body></html>";
+
+        AssetMinifier minifier = new AssetMinifier();
+
+        assertEquals(expected, minifier.minify("index.html", html));
+    }
+
+    @Test
+    void minifyCSS() {
+        String css = """
+            /* Comment */
+            body > .a, .b :hover {
+                font-family: "Open  Sans", sans-serif;
+                margin: 0 auto;
+            }
+
+            @media screen and (max-width: 600px) {
+                .c { width: calc(100% - 10px); }
+            }
+            """;
+
+        String expected = "body>.a,.b :hover{font-family:\"Open  Sans\",sans-serif;margin:0 auto}" +
+            "@media screen and (max-width:600px){.c{width:calc(100% - 10px)}}";
+
+        AssetMinifier minifier = new AssetMinifier();
+
+        assertEquals(expected, minifier.minifyCSS(css));
+    }
+
+    @Test
+    void minifyJavaScript() {
+        String js = """
+            // Comment
+            function test(a, b) {
+                /* Block comment */
+                let url = "http://example.com"; // Trailing comment
+                let pattern = /[/]\\/*/g;
+                let text = `a ${b + `c`} // d`;
+                return a + +b
+            }
+            """;
+
+        String expected = """
+            function test(a,b){
+            let url="http://example.com";
+            let pattern=/[/]\\/*/g;
+            let text=`a ${b + `c`} // d`;
+            return a+ +b
+            }""";
+
+        AssetMinifier minifier = new AssetMinifier();
+
+        assertEquals(expected, minifier.minifyJS(js));
+    }
+
+    @Test
+    void distinguishRegexFromDivision() {
+        AssetMinifier minifier = new AssetMinifier();
+
+        assertEquals("let a=b/2/c;", minifier.minifyJS("let a = b / 2 / c;"));
+        assertEquals("return/a  b/.test(x)", minifier.minifyJS("return /a  b/.test(x)"));
+    }
+
+    @Test
+    void minifyDirectoryAndReportBytesSaved(@TempDir File tempDir) throws IOException {
+        File cssFile = new File(tempDir, "style.css");
+        Files.writeString(cssFile.toPath(), "p {\n    color: red;\n}\n", UTF_8);
+        File minifiedFile = new File(tempDir, "lib.min.js");
+        Files.writeString(minifiedFile.toPath(), "let a = 1;", UTF_8);
+
+        AssetMinifier minifier = new AssetMinifier();
+        minifier.minifyDirectory(tempDir, 2);
+
+        assertEquals("p{color:red}", Files.readString(cssFile.toPath(), UTF_8));
+        assertEquals("let a = 1;", Files.readString(minifiedFile.toPath(), UTF_8));
+        assertEquals(10L, minifier.getBytesSaved());
+        assertTrue(minifier.isMinifiable("index.html"));
+    }
+}
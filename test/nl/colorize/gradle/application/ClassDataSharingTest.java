@@ -0,0 +1,148 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassDataSharingTest {
+
+    @Test
+    void trainAppImage(@TempDir File tempDir) throws IOException {
+        File appDir = new File(tempDir, "app");
+        appDir.mkdir();
+        createJar(tempDir, new File(appDir, "example.jar"), "Main",
+            "public class Main { public static void main(String[] args) { " +
+            "if (!args[0].equals(\"--train\")) System.exit(1); } }");
+        Files.writeString(new File(appDir, "Example.cfg").toPath(), """
+            [Application]
+            app.classpath=$APPDIR/example.jar
+            app.mainclass=Main
+
+            [JavaOptions]
+            java-options=-Djpackage.app-version=1.0
+            java-options=-XX:SharedArchiveFile=$APPDIR/app.jsa
+            """, UTF_8);
+
+        File runtime = new File(System.getProperty("java.home"));
+        ClassDataSharing cds = new ClassDataSharing(runtime, List.of("--train"));
+        File archive = cds.trainAppImage(appDir, runtime);
+
+        assertEquals(new File(appDir, cds.getArchiveFileName()), archive);
+        assertTrue(archive.exists());
+        assertTrue(archive.length() > 0L);
+    }
+
+    @Test
+    void reportFailedTrainingRun(@TempDir File tempDir) throws IOException {
+        File jarFile = new File(tempDir, "example.jar");
+        createJar(tempDir, jarFile, "Main",
+            "public class Main { public static void main(String[] args) { " +
+            "System.out.println(\"Something went wrong\"); System.exit(1); } }");
+
+        File runtime = new File(System.getProperty("java.home"));
+        File archive = new File(tempDir, "app.jsa");
+        ClassDataSharing cds = new ClassDataSharing(runtime, List.of());
+
+        IOException e = assertThrows(IOException.class, () -> cds.train(tempDir, List.of(),
+            List.of("-cp", jarFile.getAbsolutePath(), "Main"), archive, runtime));
+
+        assertTrue(e.getMessage().contains("Something went wrong"));
+        assertFalse(archive.exists());
+    }
+
+    @Test
+    void acceptArchiveForPackagedClassPath(@TempDir File tempDir) throws IOException {
+        File appDir = new File(tempDir, "app");
+        appDir.mkdir();
+        createJar(tempDir, new File(appDir, "example.jar"), "Main",
+            "public class Main { public static void main(String[] args) { } }");
+
+        File runtime = new File(System.getProperty("java.home"));
+        File archive = new File(appDir, "app.jsa");
+        ClassDataSharing cds = new ClassDataSharing(runtime, List.of());
+        List<String> launchArgs = List.of("-cp", "example.jar", "Main");
+        cds.train(appDir, List.of(), launchArgs, archive, runtime);
+
+        File movedDir = new File(tempDir, "installed");
+        Files.move(appDir.toPath(), movedDir.toPath());
+        cds.verify(movedDir, List.of(), launchArgs, new File(movedDir, "app.jsa"));
+    }
+
+    @Test
+    void rejectArchiveForDifferentClassPath(@TempDir File tempDir) throws IOException {
+        File appDir = new File(tempDir, "app");
+        appDir.mkdir();
+        createJar(tempDir, new File(appDir, "example.jar"), "Main",
+            "public class Main { public static void main(String[] args) { } }");
+
+        File runtime = new File(System.getProperty("java.home"));
+        File archive = new File(appDir, "app.jsa");
+        ClassDataSharing cds = new ClassDataSharing(runtime, List.of());
+        cds.train(appDir, List.of(), List.of("-cp", "example.jar", "Main"), archive, runtime);
+
+        IOException e = assertThrows(IOException.class, () -> cds.verify(tempDir, List.of(),
+            List.of("-cp", "app/example.jar", "Main"), archive));
+
+        assertTrue(e.getMessage().startsWith("Verification run failed"));
+    }
+
+    @Test
+    void selectArchiveFormatBasedOnJavaVersion(@TempDir File tempDir) throws IOException {
+        File jdk21 = createRuntime(tempDir, "jdk-21", "21.0.5");
+        File jdk25 = createRuntime(tempDir, "jdk-25", "25");
+
+        assertEquals(21, ClassDataSharing.getJavaVersion(jdk21));
+        assertEquals(25, ClassDataSharing.getJavaVersion(jdk25));
+
+        ClassDataSharing cds21 = new ClassDataSharing(jdk21, List.of());
+        ClassDataSharing cds25 = new ClassDataSharing(jdk25, List.of());
+
+        assertEquals("app.jsa", cds21.getArchiveFileName());
+        assertEquals("-XX:SharedArchiveFile=$APPDIR/app.jsa", cds21.getRuntimeOption("$APPDIR/app.jsa"));
+        assertEquals("app.aot", cds25.getArchiveFileName());
+        assertEquals("-XX:AOTCache=$APPDIR/app.aot", cds25.getRuntimeOption("$APPDIR/app.aot"));
+    }
+
+    private File createRuntime(File tempDir, String name, String version) throws IOException {
+        File runtime = new File(tempDir, name);
+        runtime.mkdir();
+        Files.writeString(new File(runtime, "release").toPath(), "IMPLEMENTOR=\"Example\"\n" +
+            "JAVA_VERSION=\"" + version + "\"\n", UTF_8);
+        return runtime;
+    }
+
+    private void createJar(File tempDir, File jarFile, String className, String source) throws IOException {
+        File sourceFile = new File(tempDir, className + ".java");
+        Files.writeString(sourceFile.toPath(), source, UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        compiler.run(null, null, null, "-d", tempDir.getAbsolutePath(), sourceFile.getAbsolutePath());
+
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            jar.putNextEntry(new JarEntry(className + ".class"));
+            jar.write(Files.readAllBytes(new File(tempDir, className + ".class").toPath()));
+            jar.closeEntry();
+        }
+    }
+}
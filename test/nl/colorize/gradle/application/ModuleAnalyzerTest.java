@@ -0,0 +1,79 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModuleAnalyzerTest {
+
+    @Test
+    void findRequiredModules(@TempDir File tempDir) throws IOException {
+        File libsDir = new File(tempDir, "libs");
+        libsDir.mkdir();
+        createJar(tempDir, new File(libsDir, "app.jar"), "Main",
+            "public class Main { java.sql.Connection connection; }");
+        createJar(tempDir, new File(libsDir, "app-sources.jar"), "Other",
+            "public class Other { java.net.http.HttpClient client; }");
+
+        ModuleAnalyzer analyzer = new ModuleAnalyzer(new File(System.getProperty("java.home")));
+        List<String> modules = analyzer.findRequiredModules(libsDir, "app.jar");
+
+        assertEquals(List.of("java.base", "java.sql"), modules);
+    }
+
+    @Test
+    void describeSavings() {
+        ModuleAnalyzer analyzer = new ModuleAnalyzer(new File(System.getProperty("java.home")));
+        Map<String, Long> sizes = analyzer.getModuleSizes(List.of("java.base", "java.sql"));
+        String description = analyzer.describeSavings(List.of("java.base", "java.sql", "java.net.http"),
+            List.of("java.base"));
+
+        assertTrue(sizes.get("java.base") > sizes.get("java.sql"));
+        assertTrue(sizes.get("java.sql") > 0L);
+        assertTrue(description.startsWith("Required modules: java.base\n" +
+            "Excluded modules: java.net.http ("));
+        assertTrue(description.contains("Runtime size reduced by "));
+    }
+
+    @Test
+    void missingMainJar(@TempDir File tempDir) {
+        ModuleAnalyzer analyzer = new ModuleAnalyzer(new File(System.getProperty("java.home")));
+
+        assertThrows(IllegalArgumentException.class, () -> analyzer.findRequiredModules(tempDir, "app.jar"));
+    }
+
+    private void createJar(File tempDir, File jarFile, String className, String source) throws IOException {
+        File sourceFile = new File(tempDir, className + ".java");
+        Files.writeString(sourceFile.toPath(), source, UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        compiler.run(null, null, null, "-d", tempDir.getAbsolutePath(), sourceFile.getAbsolutePath());
+
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            jar.putNextEntry(new JarEntry(className + ".class"));
+            jar.write(Files.readAllBytes(new File(tempDir, className + ".class").toPath()));
+            jar.closeEntry();
+        }
+    }
+}
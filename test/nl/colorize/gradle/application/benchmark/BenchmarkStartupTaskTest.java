@@ -0,0 +1,144 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.benchmark;
+
+import nl.colorize.gradle.application.AppHelper;
+import nl.colorize.gradle.application.ApplicationPlugin;
+import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkStartupTaskTest {
+
+    @Test
+    void compareStartupConfigurations(@TempDir File tempDir) throws IOException {
+        File libsDir = AppHelper.mkdir(new File(tempDir, "libs"));
+        File mainJar = new File(libsDir, "example.jar");
+        createJar(tempDir, mainJar, "Main", "public class Main { public static void main(String[] args) { " +
+            "System.out.println(\"Hello \" + args[0]); } }");
+
+        StartupBenchmarkExt config = new StartupBenchmarkExt();
+        config.setModules(List.of("java.base"));
+        config.setRuns(3);
+        config.variant(Map.of("name", "default"));
+        config.variant(Map.of("name", "small heap", "options", List.of("-Xmx64m")));
+        config.variant(Map.of("name", "cds", "cds", true));
+        config.validate();
+
+        BenchmarkStartupTask task = prepareTask(tempDir);
+        task.run(config, new BenchmarkStartupTask.Application(libsDir, mainJar, "Main", List.of("-Xmx128m"),
+            List.of("world"), List.of()));
+
+        File outputDir = new File(tempDir, "build/startup-benchmark");
+        String report = Files.readString(new File(outputDir, "startup-benchmark.txt").toPath(), UTF_8);
+
+        assertTrue(report.startsWith("Startup time over 3 runs\n\ndefault\n    Time to main:        p50 "));
+        assertTrue(report.contains("\nsmall heap\n    Time to main:        p50 "));
+        assertTrue(report.contains("\ncds\n    Time to main:        p50 "));
+        assertTrue(report.contains("    Time to first frame: not detected\n"));
+        assertTrue(new File(outputDir, "variant-2/runtime/bin/java").exists());
+        assertTrue(new File(outputDir, "variant-2/app.jsa").exists() ||
+            new File(outputDir, "variant-2/app.aot").exists());
+    }
+
+    @Test
+    void launchCommandUsesMarkerClass(@TempDir File tempDir) throws IOException {
+        File libsDir = AppHelper.mkdir(new File(tempDir, "libs"));
+        File mainJar = new File(libsDir, "example.jar");
+        Files.writeString(mainJar.toPath(), "", UTF_8);
+        Files.writeString(new File(libsDir, "lib.jar").toPath(), "", UTF_8);
+        Files.writeString(new File(libsDir, "example-sources.jar").toPath(), "", UTF_8);
+
+        BenchmarkStartupTask task = prepareTask(tempDir);
+        List<String> command = task.getLaunchCommand(new BenchmarkStartupTask.Application(libsDir, mainJar,
+            "com.example.Main", List.of("-Xmx2g"), List.of("--test"), List.of()),
+            new File("/runtime"), new File("/marker.jar"), List.of("-Xmx2g", "-Xshare:off"));
+
+        List<String> expected = List.of(
+            "/runtime/bin/java",
+            "-Xmx2g",
+            "-Xshare:off",
+            "-cp",
+            "/marker.jar" + File.pathSeparator + mainJar.getAbsolutePath() + File.pathSeparator +
+                new File(libsDir, "lib.jar").getAbsolutePath(),
+            "StartupMarker",
+            "com.example.Main",
+            "--test"
+        );
+
+        assertEquals(expected, command);
+    }
+
+    @Test
+    void variantOptions() {
+        StartupBenchmarkExt config = new StartupBenchmarkExt();
+        config.variant(Map.of("name", "minimal", "modules", List.of("java.base", "java.logging"),
+            "options", "-Xss512k", "cds", "true"));
+
+        StartupVariant variant = config.getVariants().get(0);
+
+        assertEquals("minimal", variant.getName());
+        assertEquals(List.of("java.base", "java.logging"), variant.getModules());
+        assertEquals(List.of("-Xss512k"), variant.getOptions());
+        assertTrue(variant.isCds());
+    }
+
+    @Test
+    void variantNamesMustBeUnique() {
+        StartupBenchmarkExt config = new StartupBenchmarkExt();
+        config.variant(Map.of("name", "a"));
+        config.variant(Map.of("name", "a", "cds", true));
+
+        assertThrows(IllegalArgumentException.class, config::validate);
+        assertThrows(IllegalArgumentException.class, () -> config.variant(Map.of("heap", "1g")));
+    }
+
+    private BenchmarkStartupTask prepareTask(File tempDir) {
+        Project project = ProjectBuilder.builder()
+            .withProjectDir(tempDir)
+            .build();
+
+        project.getPluginManager().apply(JavaPlugin.class);
+
+        ApplicationPlugin plugin = new ApplicationPlugin();
+        plugin.apply(project);
+
+        return (BenchmarkStartupTask) project.getTasks().getByName("benchmarkStartup");
+    }
+
+    private void createJar(File tempDir, File jarFile, String className, String source) throws IOException {
+        File sourceFile = new File(tempDir, className + ".java");
+        Files.writeString(sourceFile.toPath(), source, UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        compiler.run(null, null, null, "-d", tempDir.getAbsolutePath(), sourceFile.getAbsolutePath());
+
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            jar.putNextEntry(new JarEntry(className + ".class"));
+            jar.write(Files.readAllBytes(new File(tempDir, className + ".class").toPath()));
+            jar.closeEntry();
+        }
+    }
+}
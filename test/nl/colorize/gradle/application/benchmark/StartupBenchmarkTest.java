@@ -0,0 +1,139 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupBenchmarkTest {
+
+    @Test
+    void percentile() {
+        List<Long> times = List.of(5000L, 1000L, 3000L, 2000L, 4000L);
+
+        assertEquals(3.0, StartupBenchmark.percentile(times, 50), 0.001);
+        assertEquals(5.0, StartupBenchmark.percentile(times, 90), 0.001);
+        assertEquals(5.0, StartupBenchmark.percentile(times, 99), 0.001);
+        assertEquals(1.0, StartupBenchmark.percentile(List.of(1000L), 50), 0.001);
+    }
+
+    @Test
+    void formatReport() {
+        Map<String, List<StartupBenchmark.Sample>> results = new LinkedHashMap<>();
+        results.put("default", List.of(new StartupBenchmark.Sample(100_000L, 400_000L, false),
+            new StartupBenchmark.Sample(120_000L, 500_000L, false)));
+        results.put("cds", List.of(new StartupBenchmark.Sample(80_000L, 300_000L, false),
+            new StartupBenchmark.Sample(90_000L, -1L, false)));
+        results.put("headless", List.of(new StartupBenchmark.Sample(100_000L, -1L, false),
+            new StartupBenchmark.Sample(100_000L, -1L, true)));
+
+        StartupBenchmark benchmark = new StartupBenchmark(2, 10);
+        String report = benchmark.formatReport(results);
+
+        String expected = """
+            Startup time over 2 runs
+
+            default
+                Time to main:        p50 100.0 ms p90 120.0 ms p99 120.0 ms
+                Time to first frame: p50 400.0 ms p90 500.0 ms p99 500.0 ms
+
+            cds
+                Time to main:        p50 80.0 ms p90 90.0 ms p99 90.0 ms (-20.0%)
+                Time to first frame: p50 300.0 ms p90 300.0 ms p99 300.0 ms (-25.0%)
+
+            headless
+                Time to main:        p50 100.0 ms p90 100.0 ms p99 100.0 ms (+0.0%)
+                Time to first frame: not detected
+                Timed out:           1 of 2 runs
+            """;
+
+        assertEquals(expected, report);
+    }
+
+    @Test
+    void compileMarkerForRuntimeVersion(@TempDir File tempDir) throws IOException {
+        File markerJar = StartupBenchmark.createMarkerJar(tempDir, 17);
+
+        try (JarFile jar = new JarFile(markerJar)) {
+            assertNotNull(jar.getEntry("StartupMarker.class"));
+            assertNotNull(jar.getEntry("StartupMarker$FrameWatcher.class"));
+            byte[] header = jar.getInputStream(jar.getEntry("StartupMarker.class")).readNBytes(8);
+            assertEquals(61, header[7]);
+        }
+    }
+
+    @Test
+    void reportApplicationFailure(@TempDir File tempDir) throws IOException {
+        File markerJar = StartupBenchmark.createMarkerJar(tempDir, Runtime.version().feature());
+        String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+
+        StartupBenchmark benchmark = new StartupBenchmark(1, 10);
+        IOException e = assertThrows(IOException.class, () -> benchmark.run(tempDir,
+            List.of(java, "-cp", markerJar.getAbsolutePath(), "StartupMarker", "com.example.Missing")));
+
+        assertTrue(e.getMessage().contains("ClassNotFoundException: com.example.Missing"));
+    }
+
+    @Test
+    void stopApplicationAfterMainReturns(@TempDir File tempDir) throws IOException {
+        File markerJar = StartupBenchmark.createMarkerJar(tempDir, Runtime.version().feature());
+        compileClass(tempDir, "Server", "public class Server { public static void main(String[] args) { " +
+            "new Thread(() -> { try { Thread.sleep(60_000); } catch (Exception e) { } }).start(); } }");
+
+        StartupBenchmark benchmark = new StartupBenchmark(1, 30);
+        List<String> command = getCommand(tempDir, markerJar, "Server");
+        List<StartupBenchmark.Sample> samples = benchmark.run(tempDir, command);
+
+        assertEquals(1, samples.size());
+        assertFalse(samples.get(0).timedOut());
+    }
+
+    @Test
+    void reportRunsThatTimedOut(@TempDir File tempDir) throws IOException {
+        File markerJar = StartupBenchmark.createMarkerJar(tempDir, Runtime.version().feature());
+        compileClass(tempDir, "Blocking", "public class Blocking { public static void main(String[] args) " +
+            "throws Exception { Thread.sleep(60_000); } }");
+
+        StartupBenchmark benchmark = new StartupBenchmark(1, 1);
+        List<String> command = getCommand(tempDir, markerJar, "Blocking");
+        List<StartupBenchmark.Sample> samples = benchmark.run(tempDir, command);
+
+        assertEquals(1, samples.size());
+        assertTrue(samples.get(0).timedOut());
+    }
+
+    private void compileClass(File dir, String className, String source) throws IOException {
+        File sourceFile = new File(dir, className + ".java");
+        Files.writeString(sourceFile.toPath(), source, UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        compiler.run(null, null, null, "-d", dir.getAbsolutePath(), sourceFile.getAbsolutePath());
+    }
+
+    private List<String> getCommand(File dir, File markerJar, String mainClass) {
+        String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        String classPath = markerJar.getAbsolutePath() + File.pathSeparator + dir.getAbsolutePath();
+        return List.of(java, "-Djava.awt.headless=true", "-cp", classPath, "StartupMarker", mainClass);
+    }
+}
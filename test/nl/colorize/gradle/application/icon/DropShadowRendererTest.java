@@ -0,0 +1,131 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.icon;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+
+import static java.awt.RenderingHints.KEY_ANTIALIASING;
+import static java.awt.RenderingHints.VALUE_ANTIALIAS_ON;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DropShadowRendererTest {
+
+    private static final Color SHADOW_COLOR = new Color(0, 0, 0, 80);
+    private static final int TOLERANCE = 2;
+
+    @Test
+    void matchConvolveOpWithinTolerance() {
+        DropShadowRenderer renderer = new DropShadowRenderer(SHADOW_COLOR, 1, 4);
+
+        for (int size : new int[] {16, 32, 48, 64, 192, 256, 512, 1024}) {
+            BufferedImage expected = applyConvolveOpShadow(createMaskIcon(size));
+            BufferedImage actual = renderer.apply(createMaskIcon(size));
+
+            int diff = calculateMaxDifference(expected, actual, 4);
+            assertTrue(diff <= TOLERANCE, "Difference for size " + size + ": " + diff);
+        }
+    }
+
+    @Test
+    void drawShadowOutsideImage() {
+        BufferedImage image = createMaskIcon(64);
+        new DropShadowRenderer(SHADOW_COLOR, 1, 4).apply(image);
+
+        assertEquals(0, image.getRGB(0, 0) >>> 24);
+        assertEquals(255, image.getRGB(32, 32) >>> 24);
+        assertTrue((image.getRGB(58, 58) >>> 24) > 0);
+        assertEquals(0, image.getRGB(58, 58) & 0xFFFFFF);
+    }
+
+    private BufferedImage createMaskIcon(int size) {
+        float factor = size / 512f;
+        int inset = Math.round(50 * factor);
+        int inner = Math.round(412 * factor);
+        int radius = Math.round(128 * factor);
+
+        BufferedImage image = new BufferedImage(size, size, TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
+        g2.setColor(new Color(220, 90, 40));
+        g2.fillRoundRect(inset, inset, inner, inner, radius, radius);
+        g2.dispose();
+        return image;
+    }
+
+    /**
+     * Returns the largest difference between the premultiplied channels of
+     * both images. The edges are excluded, since {@code ConvolveOp} does not
+     * blur pixels that are closer to the edge than the blur radius.
+     */
+    private int calculateMaxDifference(BufferedImage a, BufferedImage b, int border) {
+        int max = 0;
+        for (int y = border; y < a.getHeight() - border; y++) {
+            for (int x = border; x < a.getWidth() - border; x++) {
+                int pixelA = a.getRGB(x, y);
+                int pixelB = b.getRGB(x, y);
+                for (int shift = 0; shift <= 24; shift += 8) {
+                    int diff = Math.abs(premultiply(pixelA, shift) - premultiply(pixelB, shift));
+                    max = Math.max(max, diff);
+                }
+            }
+        }
+        return max;
+    }
+
+    private int premultiply(int pixel, int shift) {
+        int alpha = pixel >>> 24;
+        int value = (pixel >> shift) & 0xFF;
+        return shift == 24 ? alpha : Math.round(value * alpha / 255f);
+    }
+
+    /**
+     * Reference implementation using two {@code ConvolveOp} passes, which
+     * was used to generate icons before the dedicated shadow renderer.
+     */
+    private BufferedImage applyConvolveOpShadow(BufferedImage image) {
+        BufferedImage shadow = new BufferedImage(image.getWidth(), image.getHeight(), TYPE_INT_ARGB);
+        Graphics2D shadowG2 = shadow.createGraphics();
+        shadowG2.drawImage(image, 1, 1, null);
+        shadowG2.setComposite(AlphaComposite.SrcIn);
+        shadowG2.setColor(SHADOW_COLOR);
+        shadowG2.fillRect(0, 0, shadow.getWidth(), shadow.getHeight());
+        shadowG2.dispose();
+
+        float[] data = new float[9];
+        float sigma = 4 / 3f;
+        float sigmaTwoSquared = 2f * sigma * sigma;
+        float sigmaRoot = (float) Math.sqrt(sigmaTwoSquared * Math.PI);
+        float total = 0f;
+        for (int i = -4; i <= 4; i++) {
+            data[i + 4] = (float) Math.exp(-(i * i) / sigmaTwoSquared / sigmaRoot);
+            total += data[i + 4];
+        }
+        for (int i = 0; i < data.length; i++) {
+            data[i] /= total;
+        }
+
+        ConvolveOp horizontal = new ConvolveOp(new Kernel(9, 1, data), ConvolveOp.EDGE_NO_OP, null);
+        ConvolveOp vertical = new ConvolveOp(new Kernel(1, 9, data), ConvolveOp.EDGE_NO_OP, null);
+        BufferedImage combined = horizontal.filter(shadow, new BufferedImage(image.getWidth(),
+            image.getHeight(), TYPE_INT_ARGB));
+        combined = vertical.filter(combined, null);
+
+        Graphics2D combinedG2 = combined.createGraphics();
+        combinedG2.drawImage(image, 0, 0, null);
+        combinedG2.dispose();
+        return combined;
+    }
+}
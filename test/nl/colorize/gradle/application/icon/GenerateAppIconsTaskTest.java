@@ -12,8 +12,11 @@ import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import javax.imageio.ImageIO;
 import java.io.File;
+import java.io.IOException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GenerateAppIconsTaskTest {
@@ -33,6 +36,22 @@ class GenerateAppIconsTaskTest {
         assertTrue(new File(outputDir, "icons/icon-192.png").exists());
     }
 
+    @Test
+    void generateIconsWithRequestedSize(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        AppIconExt config = new AppIconExt();
+        config.setOriginal(new File("resources/icon.png").getAbsolutePath());
+
+        GenerateAppIconsTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        assertEquals(32, ImageIO.read(new File(outputDir, "icons/favicon.png")).getWidth());
+        assertEquals(48, ImageIO.read(new File(outputDir, "icons/icon-48.png")).getWidth());
+        assertEquals(512, ImageIO.read(new File(outputDir, "icons/icon-512.png")).getHeight());
+        assertEquals(167, ImageIO.read(new File(outputDir,
+            "icons/AppIcon.appiconset/icon-167.png")).getWidth());
+    }
+
     private GenerateAppIconsTask prepare(File inputDir, File outputDir) {
         Project project = ProjectBuilder.builder().withProjectDir(inputDir).build();
         project.setBuildDir(outputDir);
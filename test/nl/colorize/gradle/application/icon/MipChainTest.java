@@ -0,0 +1,33 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.icon;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MipChainTest {
+
+    @Test
+    void halveUntilSinglePixel() {
+        MipChain mipChain = new MipChain(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB));
+
+        assertEquals(7, mipChain.getLevelCount());
+    }
+
+    @Test
+    void scaleToRequestedSize() {
+        MipChain mipChain = new MipChain(new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB));
+        BufferedImage result = mipChain.scale(30, 10);
+
+        assertEquals(30, result.getWidth());
+        assertEquals(10, result.getHeight());
+        assertEquals(6, mipChain.getLevelCount());
+    }
+}
@@ -13,8 +13,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CreateApplicationBundleTaskTest {
@@ -67,4 +71,28 @@ class CreateApplicationBundleTaskTest {
         assertTrue(new File(jdkDir, "Contents/MacOS").exists());
         assertTrue(new File(jdkDir, "Contents/MacOS/libjli.dylib").exists());
     }
+
+    @Test
+    void classPathIsSortedByName(@TempDir File tempDir) throws IOException {
+        File contentDir = new File(tempDir, "libs");
+        contentDir.mkdir();
+        for (String name : List.of("b.jar", "example.jar", "a.jar", "example-sources.jar", "readme.txt")) {
+            Files.writeString(new File(contentDir, name).toPath(), "", UTF_8);
+        }
+
+        Project project = ProjectBuilder.builder()
+            .withProjectDir(tempDir)
+            .build();
+
+        ApplicationPlugin plugin = new ApplicationPlugin();
+        plugin.apply(project);
+
+        MacApplicationBundleExt config = new MacApplicationBundleExt();
+        config.setContentDir(contentDir.getAbsolutePath());
+
+        CreateApplicationBundleTask task = (CreateApplicationBundleTask) project.getTasks()
+            .getByName("createApplicationBundle");
+
+        assertEquals(List.of("a.jar", "b.jar", "example.jar"), task.getClassPath(config));
+    }
 }
@@ -13,14 +13,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PackageApplicationBundleTaskTest {
 
     @Test
-    void runJPackage(@TempDir File tempDir) {
+    void createAppImage(@TempDir File tempDir) {
         Project project = ProjectBuilder.builder()
             .withProjectDir(tempDir)
             .build();
@@ -43,24 +47,26 @@ class PackageApplicationBundleTaskTest {
 
         PackageApplicationBundleTask task = (PackageApplicationBundleTask) project.getTasks()
             .getByName("packageApplicationBundle");
-        List<String> command = task.getCommand("dmg", config);
+        String identity = "3rd Party Mac Developer Application: Colorize (F9TKFY3EK3)";
+        List<String> command = task.getAppImageCommand(config, new File(tempDir, "build/mac-app-image"),
+            identity, new File("entitlements-1234.plist"));
 
         String expected = """
             jpackage
             --type
-            dmg
+            app-image
             --app-version
             1.0
             --copyright
             Copyright 2026
             --description
             ?
-            --icon
-            icon.icns
             --name
             Example
+            --icon
+            icon.icns
             --dest
-            mac
+            mac-app-image
             --add-modules
             java.base,java.desktop,java.logging,java.net.http,java.sql,jdk.crypto.ec
             --main-class
@@ -83,4 +89,60 @@ class PackageApplicationBundleTaskTest {
 
         assertEquals(expected.trim(), cleanCommand.trim());
     }
+
+    @Test
+    void createInstallersFromAppImageInParallel(@TempDir File tempDir) throws IOException {
+        Project project = ProjectBuilder.builder()
+            .withProjectDir(tempDir)
+            .build();
+
+        ApplicationPlugin plugin = new ApplicationPlugin();
+        plugin.apply(project);
+
+        File log = new File(tempDir, "jpackage.log");
+        File jpackage = new File(tempDir, "jpackage");
+        Files.writeString(jpackage.toPath(), """
+            #!/bin/sh
+            while [ $# -gt 0 ]; do
+                case "$1" in
+                    --type) type="$2"; shift ;;
+                    --dest) dest="$2"; shift ;;
+                    --name) name="$2"; shift ;;
+                    --app-image) appimage="$2"; shift ;;
+                esac
+                shift
+            done
+            if [ "$type" = "app-image" ]; then
+                mkdir -p "$dest/$name.app/Contents/app"
+                echo "app-image" >> "%s"
+            else
+                test -d "$appimage" || exit 1
+                echo "start $type" >> "%s"
+                sleep 1
+                touch "$dest/$name.$type"
+                echo "end $type" >> "%s"
+            fi
+            """.formatted(log, log, log), UTF_8);
+        jpackage.setExecutable(true);
+
+        MacApplicationBundleExt config = new MacApplicationBundleExt();
+        config.setName("Example");
+        config.setIdentifier("com.example");
+        config.setMainJarName("example.jar");
+        config.setMainClassName("HelloWorld.Main");
+        config.setContentDir("resources");
+        config.setJpackagePath(jpackage.getAbsolutePath());
+
+        PackageApplicationBundleTask task = (PackageApplicationBundleTask) project.getTasks()
+            .getByName("packageApplicationBundle");
+        task.packageApplication(config, "Test");
+
+        List<String> events = Files.readAllLines(log.toPath(), UTF_8);
+
+        assertEquals(5, events.size());
+        assertEquals("app-image", events.get(0));
+        assertTrue(events.get(1).startsWith("start ") && events.get(2).startsWith("start "));
+        assertTrue(new File(tempDir, "build/mac/Example.dmg").exists());
+        assertTrue(new File(tempDir, "build/mac/Example.pkg").exists());
+    }
 }
@@ -0,0 +1,76 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.macapplicationbundle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeImageCacheTest {
+
+    private static final List<String> ARGS = List.of("--compress=2");
+
+    @Test
+    void reuseRuntimeImage(@TempDir File tempDir) throws IOException {
+        File jdk = prepareJDK(tempDir);
+        RuntimeImageCache cache = new RuntimeImageCache(new File(tempDir, "cache"));
+        AtomicInteger counter = new AtomicInteger();
+
+        File first = new File(tempDir, "first");
+        File second = new File(tempDir, "second");
+        cache.copyRuntime(jdk, List.of("java.base"), ARGS, first, dir -> fakeJLink(dir, counter));
+        cache.copyRuntime(jdk, List.of("java.base"), ARGS, second, dir -> fakeJLink(dir, counter));
+
+        assertEquals(1, counter.get());
+        assertEquals("libjli", Files.readString(new File(second, "jdk/Contents/MacOS/libjli.dylib").toPath(),
+            UTF_8));
+        assertTrue(Files.isSymbolicLink(new File(second, "jdk/Contents/Home/legal/LICENSE").toPath()));
+    }
+
+    @Test
+    void createNewRuntimeImageWhenInputsChange(@TempDir File tempDir) throws IOException {
+        File jdk = prepareJDK(tempDir);
+        RuntimeImageCache cache = new RuntimeImageCache(new File(tempDir, "cache"));
+        String key = cache.getKey(jdk, List.of("java.base", "java.desktop"), ARGS);
+
+        assertEquals(key, cache.getKey(jdk, List.of("java.desktop", "java.base"), ARGS));
+        assertNotEquals(key, cache.getKey(jdk, List.of("java.base"), ARGS));
+        assertNotEquals(key, cache.getKey(jdk, List.of("java.base", "java.desktop"), List.of()));
+
+        Files.writeString(new File(jdk, "release").toPath(), "JAVA_VERSION=\"26\"", UTF_8);
+
+        assertNotEquals(key, cache.getKey(jdk, List.of("java.base", "java.desktop"), ARGS));
+    }
+
+    private File prepareJDK(File tempDir) throws IOException {
+        File jdk = new File(tempDir, "jdk/Contents/Home");
+        jdk.mkdirs();
+        Files.writeString(new File(jdk, "release").toPath(), "JAVA_VERSION=\"25\"", UTF_8);
+        return jdk;
+    }
+
+    private void fakeJLink(File plugInsDir, AtomicInteger counter) throws IOException {
+        File runtime = new File(plugInsDir, "jdk/Contents");
+        new File(runtime, "MacOS").mkdirs();
+        new File(runtime, "Home/legal").mkdirs();
+        Files.writeString(new File(runtime, "MacOS/libjli.dylib").toPath(), "libjli", UTF_8);
+        Files.writeString(new File(runtime, "Home/LICENSE").toPath(), "license", UTF_8);
+        Files.createSymbolicLink(new File(runtime, "Home/legal/LICENSE").toPath(), Path.of("../LICENSE"));
+        counter.incrementAndGet();
+    }
+}
@@ -14,7 +14,12 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SignApplicationBundleTaskTest {
@@ -79,4 +84,112 @@ class SignApplicationBundleTaskTest {
         assertTrue(new File(bundle, "Contents/MacOS").exists());
         assertTrue(new File(bundle, "Contents/MacOS/native.dylib").exists());
     }
+
+    @Test
+    void signNativeBinariesBeforeBundle(@TempDir File tempDir) throws IOException {
+        File log = new File(tempDir, "codesign.log");
+        MacApplicationBundleExt config = createFakeBundle(tempDir, log, "native.dylib", "jspawnhelper");
+        SignApplicationBundleTask signTask = prepare(tempDir);
+
+        File appBundle = new File(tempDir, "build/mac/Example.app");
+        File embeddedJDK = new File(appBundle, "Contents/PlugIns/jdk-21");
+        signTask.signApplicationBundle(config, appBundle, embeddedJDK, "Test");
+
+        List<String> signed = Files.readAllLines(log.toPath(), UTF_8);
+
+        assertEquals(Integer.valueOf(5), Integer.valueOf(signed.size()));
+        assertTrue(signed.subList(0, 3).stream().allMatch(file -> file.endsWith("dylib") ||
+            file.endsWith("jspawnhelper")));
+        assertEquals(embeddedJDK.getAbsolutePath(), signed.get(3));
+        assertEquals(appBundle.getAbsolutePath(), signed.get(4));
+    }
+
+    @Test
+    void reuseSignedBinariesFromCache(@TempDir File tempDir) throws IOException {
+        File log = new File(tempDir, "codesign.log");
+        MacApplicationBundleExt config = createFakeBundle(tempDir, log, "native.dylib");
+        SignApplicationBundleTask signTask = prepare(tempDir);
+
+        File appBundle = new File(tempDir, "build/mac/Example.app");
+        File embeddedJDK = new File(appBundle, "Contents/PlugIns/jdk-21");
+        File dylib = new File(appBundle, "Contents/MacOS/native.dylib");
+        signTask.signApplicationBundle(config, appBundle, embeddedJDK, "Test");
+        String signed = Files.readString(dylib.toPath(), UTF_8);
+
+        Files.writeString(dylib.toPath(), "native.dylib", UTF_8);
+        signTask.signApplicationBundle(config, appBundle, embeddedJDK, "Test");
+
+        assertEquals(signed, Files.readString(dylib.toPath(), UTF_8));
+        assertEquals(Integer.valueOf(6), Integer.valueOf(Files.readAllLines(log.toPath(), UTF_8).size()));
+
+        signTask.signApplicationBundle(config, appBundle, embeddedJDK, "Other");
+
+        assertEquals(Integer.valueOf(10), Integer.valueOf(Files.readAllLines(log.toPath(), UTF_8).size()));
+    }
+
+    @Test
+    void reportAllSigningFailures(@TempDir File tempDir) throws IOException {
+        File log = new File(tempDir, "codesign.log");
+        MacApplicationBundleExt config = createFakeBundle(tempDir, log, "broken1.dylib", "broken2.dylib");
+        SignApplicationBundleTask signTask = prepare(tempDir);
+
+        File appBundle = new File(tempDir, "build/mac/Example.app");
+        File embeddedJDK = new File(appBundle, "Contents/PlugIns/jdk-21");
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+            () -> signTask.signApplicationBundle(config, appBundle, embeddedJDK, "Test"));
+
+        assertTrue(error.getMessage().startsWith("2 of 3 failed:"));
+        assertTrue(error.getMessage().contains("broken1.dylib"));
+        assertTrue(error.getMessage().contains("broken2.dylib"));
+        assertEquals(Integer.valueOf(1), Integer.valueOf(Files.readAllLines(log.toPath(), UTF_8).size()));
+    }
+
+    private SignApplicationBundleTask prepare(File tempDir) {
+        Project project = ProjectBuilder.builder()
+            .withProjectDir(tempDir)
+            .build();
+
+        ApplicationPlugin plugin = new ApplicationPlugin();
+        plugin.apply(project);
+
+        return (SignApplicationBundleTask) project.getTasks().getByName("signApplicationBundle");
+    }
+
+    /**
+     * Creates an application bundle with the same structure as the bundle
+     * created by {@link CreateApplicationBundleTask}, and a script that
+     * stands in for {@code codesign}. The script logs the files it signs,
+     * appends a fake signature to them, and fails for files with "broken"
+     * in the name.
+     */
+    private MacApplicationBundleExt createFakeBundle(File tempDir, File log, String... binaries)
+            throws IOException {
+        File appBundle = new File(tempDir, "build/mac/Example.app");
+        File jdkLibDir = new File(appBundle, "Contents/PlugIns/jdk-21/Contents/Home/lib");
+        File nativesDir = new File(appBundle, "Contents/MacOS");
+        jdkLibDir.mkdirs();
+        nativesDir.mkdirs();
+
+        Files.writeString(new File(jdkLibDir, "libjava.dylib").toPath(), "libjava", UTF_8);
+        for (String binary : binaries) {
+            Files.writeString(new File(nativesDir, binary).toPath(), binary, UTF_8);
+        }
+
+        File codesign = new File(tempDir, "codesign.sh");
+        Files.writeString(codesign.toPath(), """
+            #!/bin/sh
+            for target; do :; done
+            case "$target" in *broken*) exit 1 ;; esac
+            echo "$target" >> "%s"
+            if [ -f "$target" ]; then echo "signed" >> "$target"; fi
+            """.formatted(log.getAbsolutePath()), UTF_8);
+        codesign.setExecutable(true);
+
+        MacApplicationBundleExt config = new MacApplicationBundleExt();
+        config.setName("Example");
+        config.setCodesignPath(codesign.getAbsolutePath());
+        config.setSignWorkers(2);
+        return config;
+    }
 }
@@ -0,0 +1,118 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.macapplicationbundle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignatureCacheTest {
+
+    @Test
+    void restoreSignedBinary(@TempDir File tempDir) throws IOException {
+        File binary = createFile(tempDir, "lib.dylib", "original");
+        File entitlements = createFile(tempDir, "entitlements.plist", "<plist/>");
+        SignatureCache cache = new SignatureCache(new File(tempDir, "cache"));
+        AtomicInteger counter = new AtomicInteger();
+
+        assertTrue(cache.sign(binary, "Test", entitlements, file -> fakeSign(file, counter)));
+        Files.writeString(binary.toPath(), "original", UTF_8);
+        assertFalse(cache.sign(binary, "Test", entitlements, file -> fakeSign(file, counter)));
+
+        assertEquals("original\nsigned", Files.readString(binary.toPath(), UTF_8));
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    void skipAlreadySignedBinary(@TempDir File tempDir) throws IOException {
+        File binary = createFile(tempDir, "lib.dylib", "original");
+        File entitlements = createFile(tempDir, "entitlements.plist", "<plist/>");
+        SignatureCache cache = new SignatureCache(new File(tempDir, "cache"));
+        AtomicInteger counter = new AtomicInteger();
+
+        cache.sign(binary, "Test", entitlements, file -> fakeSign(file, counter));
+        cache.sign(binary, "Test", entitlements, file -> fakeSign(file, counter));
+
+        assertEquals("original\nsigned", Files.readString(binary.toPath(), UTF_8));
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    void signAgainForDifferentIdentityOrEntitlements(@TempDir File tempDir) throws IOException {
+        File binary = createFile(tempDir, "lib.dylib", "original");
+        File entitlements = createFile(tempDir, "entitlements.plist", "<plist/>");
+        SignatureCache cache = new SignatureCache(new File(tempDir, "cache"));
+        AtomicInteger counter = new AtomicInteger();
+
+        cache.sign(binary, "Test", entitlements, file -> fakeSign(file, counter));
+        Files.writeString(binary.toPath(), "original", UTF_8);
+        cache.sign(binary, "Other", entitlements, file -> fakeSign(file, counter));
+        Files.writeString(binary.toPath(), "original", UTF_8);
+        Files.writeString(entitlements.toPath(), "<plist></plist>", UTF_8);
+        cache.sign(binary, "Test", entitlements, file -> fakeSign(file, counter));
+
+        assertEquals(3, counter.get());
+    }
+
+    @Test
+    void extractNativeLibrariesOnlyWhenChanged(@TempDir File tempDir) throws IOException {
+        File jarFile = new File(tempDir, "app.jar");
+        createJar(jarFile, "a");
+        SignatureCache cache = new SignatureCache(new File(tempDir, "cache"));
+
+        File first = cache.extractNativeLibraries(jarFile, name -> name.endsWith(".dylib"));
+        File second = cache.extractNativeLibraries(jarFile, name -> name.endsWith(".dylib"));
+        createJar(jarFile, "b");
+        File third = cache.extractNativeLibraries(jarFile, name -> name.endsWith(".dylib"));
+
+        assertEquals(first, second);
+        assertNotEquals(first, third);
+        assertEquals(1, first.listFiles().length);
+        assertEquals("a", Files.readString(new File(first, "native.dylib").toPath(), UTF_8));
+        assertEquals("b", Files.readString(new File(third, "native.dylib").toPath(), UTF_8));
+    }
+
+    private File createFile(File dir, String name, String contents) throws IOException {
+        File file = new File(dir, name);
+        Files.writeString(file.toPath(), contents, UTF_8);
+        return file;
+    }
+
+    private void fakeSign(File file, AtomicInteger counter) {
+        try {
+            Files.writeString(file.toPath(), Files.readString(file.toPath(), UTF_8) + "\nsigned", UTF_8);
+            counter.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void createJar(File jarFile, String dylibContents) throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            jar.putNextEntry(new JarEntry("natives/native.dylib"));
+            jar.write(dylibContents.getBytes(UTF_8));
+            jar.closeEntry();
+            jar.putNextEntry(new JarEntry("Main.class"));
+            jar.write(new byte[] { 1, 2, 3 });
+            jar.closeEntry();
+        }
+    }
+}
@@ -6,6 +6,7 @@
 
 package nl.colorize.gradle.application.pwa;
 
+import nl.colorize.gradle.application.AppHelper;
 import nl.colorize.gradle.application.ApplicationPlugin;
 import org.gradle.api.Project;
 import org.gradle.testfixtures.ProjectBuilder;
@@ -15,10 +16,13 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GeneratePwaTaskTest {
@@ -73,6 +77,41 @@ class GeneratePwaTaskTest {
         assertTrue(new File(tempDir, "build/pwa/service-worker.js").exists());
     }
 
+    @Test
+    void minifyHTML(@TempDir File tempDir) throws IOException {
+        String html = """
+            <html>
+                <head>
+                    <title>Test</title>
+                </head>
+                <body>
+                    <!-- Comment -->
+                    <p>Hello world!</p>
+                </body>
+            </html>
+            """;
+
+        Files.writeString(new File(tempDir, "manifest.json").toPath(), "{}", UTF_8);
+        Files.writeString(new File(tempDir, "index.html").toPath(), html, UTF_8);
+
+        PwaExt config = new PwaExt();
+        config.setWebAppDir(tempDir.getAbsolutePath());
+        config.setManifest(new File(tempDir, "manifest.json").getAbsolutePath());
+        config.setCacheName("test");
+        config.setMinify(true);
+
+        Project project = initProject(tempDir);
+        GeneratePwaTask task = (GeneratePwaTask) project.getTasks().getByName("generatePWA");
+        task.run(config);
+
+        String output = readOutput(tempDir, "build/pwa/index.html");
+
+        assertTrue(output.startsWith("<html><head><title>Test</title><link rel=\"manifest\""), output);
+        assertTrue(output.contains("<body><p>Hello world!</p>"), output);
+        assertTrue(output.contains("<script>const serviceWorkerSupported=typeof"), output);
+        assertFalse(output.contains("Comment"));
+    }
+
     @Test
     void generateServiceWorker(@TempDir File tempDir) throws IOException {
         Files.writeString(new File(tempDir, "manifest.json").toPath(), "{}", UTF_8);
@@ -88,37 +127,105 @@ class GeneratePwaTaskTest {
         task.run(config);
 
         String expected = """
-            //-----------------------------------------------------------------------------
-            // File generated by Colorize Gradle application plugin
-            //-----------------------------------------------------------------------------
-            
-            const CACHE_NAME = "test";
-                        
-            const RESOURCE_FILES = [
-                "/",
-                "/index.html",
-            "/manifest.json",
-                        
+            const PRECACHE_MANIFEST = [
+                {url: "/index.html", revision: "%s"},
+                {url: "/manifest.json", revision: "%s"}
             ];
-                        
-            self.addEventListener("install", event => {
-                event.waitUntil(
-                    caches.open(CACHE_NAME).then(cache => {
-                        return cache.addAll(RESOURCE_FILES);
-                    })
-                );
-            });
-                        
-            self.addEventListener("fetch", event => {
-                event.respondWith(
-                    fetch(event.request).catch(() => {
-                        return caches.match(event.request);
-                    })
-                );
-            });
-            """;
+            """.formatted(revision(tempDir, "build/pwa/index.html"),
+                revision(tempDir, "build/pwa/manifest.json"));
+
+        String serviceWorker = readOutput(tempDir, "build/pwa/service-worker.js");
 
-        assertEquals(expected, readOutput(tempDir, "build/pwa/service-worker.js"));
+        assertTrue(serviceWorker.contains(expected));
+        assertTrue(serviceWorker.contains("const CACHE_NAME = \"test\";"));
+    }
+
+    @Test
+    void changeRevisionWhenFileChanges(@TempDir File tempDir) throws IOException {
+        Files.writeString(new File(tempDir, "manifest.json").toPath(), "{}", UTF_8);
+        Files.writeString(new File(tempDir, "index.html").toPath(), "<head></head><body></body>", UTF_8);
+        Files.writeString(new File(tempDir, "app.js").toPath(), "console.log(1);", UTF_8);
+
+        PwaExt config = new PwaExt();
+        config.setWebAppDir(tempDir.getAbsolutePath());
+        config.setManifest(new File(tempDir, "manifest.json").getAbsolutePath());
+        config.setCacheName("test");
+
+        Project project = initProject(tempDir);
+        GeneratePwaTask task = (GeneratePwaTask) project.getTasks().getByName("generatePWA");
+        task.run(config);
+        String first = readOutput(tempDir, "build/pwa/service-worker.js");
+
+        Files.writeString(new File(tempDir, "app.js").toPath(), "console.log(2);", UTF_8);
+        task.run(config);
+        String second = readOutput(tempDir, "build/pwa/service-worker.js");
+
+        String indexEntry = "{url: \"/index.html\", revision: \"" +
+            revision(tempDir, "build/pwa/index.html") + "\"}";
+        String appEntry = "{url: \"/app.js\", revision: \"" +
+            revision(tempDir, "build/pwa/app.js") + "\"}";
+
+        assertTrue(first.contains(indexEntry));
+        assertTrue(second.contains(indexEntry));
+        assertFalse(first.contains(appEntry));
+        assertTrue(second.contains(appEntry));
+    }
+
+    @Test
+    void compileCacheRoutes(@TempDir File tempDir) throws IOException {
+        Files.writeString(new File(tempDir, "manifest.json").toPath(), "{}", UTF_8);
+        Files.writeString(new File(tempDir, "index.html").toPath(), "<head></head><body></body>", UTF_8);
+
+        PwaExt config = new PwaExt();
+        config.setWebAppDir(tempDir.getAbsolutePath());
+        config.setManifest(new File(tempDir, "manifest.json").getAbsolutePath());
+        config.setCacheName("test");
+        config.route(Map.of("pattern", "/api/", "strategy", "network-first", "timeout", 3));
+        config.route(Map.of("pattern", "\\.png$", "strategy", "cache-first", "maxEntries", 50,
+            "maxAge", 3600));
+
+        Project project = initProject(tempDir);
+        GeneratePwaTask task = (GeneratePwaTask) project.getTasks().getByName("generatePWA");
+        task.run(config);
+
+        String serviceWorker = readOutput(tempDir, "build/pwa/service-worker.js");
+
+        assertTrue(serviceWorker.contains("pattern: new RegExp(\"/api/\"), strategy: \"network-first\", " +
+            "maxEntries: 0, maxAge: 0, timeout: 3}"));
+        assertTrue(serviceWorker.contains("pattern: new RegExp(\"\\\\.png$\"), strategy: \"cache-first\", " +
+            "maxEntries: 50, maxAge: 3600, timeout: 0}"));
+    }
+
+    @Test
+    void rejectInvalidCacheRoute(@TempDir File tempDir) throws IOException {
+        Files.writeString(new File(tempDir, "index.html").toPath(), "<html />", UTF_8);
+
+        PwaExt config = new PwaExt();
+        config.setWebAppDir(tempDir.getAbsolutePath());
+        config.setManifest(new File(tempDir, "manifest.json").getAbsolutePath());
+        config.setCacheName("test");
+        config.validate();
+        config.route(Map.of("pattern", "/media/", "strategy", "cache-first", "timeout", 3));
+
+        assertThrows(IllegalArgumentException.class, config::validate);
+        assertThrows(IllegalArgumentException.class, () -> new CacheRoute(Map.of("size", 1)));
+    }
+
+    @Test
+    void rejectCacheRoutePatternsNotSupportedByJavaScript() {
+        List<String> valid = List.of("/api/", "\\.(png|mp4)$", "^https://[^/]+/(?:a|b)\\d+", "(?<id>\\w+)",
+            "[a-z\\]]+?", "x{2,3}", "(?<=/)api(?!/v1)");
+        List<String> invalid = List.of("a++", "(?>a)", "(?i)api", "\\Qa.b\\E", "\\p{L}", "\\Aapi",
+            "[a-z&&[^c]]", "[]a]", "\\x{41}", "a{2}+");
+
+        for (String pattern : valid) {
+            new CacheRoute(Map.of("pattern", pattern, "strategy", "cache-first")).validate();
+        }
+
+        for (String pattern : invalid) {
+            CacheRoute route = new CacheRoute(Map.of("pattern", pattern, "strategy", "cache-first"));
+            assertThrows(IllegalArgumentException.class, route::validate);
+        }
     }
 
     @Test
@@ -154,6 +261,10 @@ class GeneratePwaTaskTest {
         return project;
     }
 
+    private String revision(File tempDir, String name) throws IOException {
+        return AppHelper.hash(new File(tempDir, name)).substring(0, 16);
+    }
+
     private String readOutput(File tempDir, String name) throws IOException {
         return Files.readString(new File(tempDir, name).toPath(), UTF_8);
     }
@@ -6,15 +6,25 @@
 
 package nl.colorize.gradle.application.staticsite;
 
+import nl.colorize.gradle.application.AppHelper;
 import nl.colorize.gradle.application.ApplicationPlugin;
 import org.gradle.api.Project;
 import org.gradle.testfixtures.ProjectBuilder;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -138,6 +148,33 @@ class GenerateStaticSiteTaskTest {
         assertEquals(html, readFile(outputDir, "a.html"));
     }
 
+    @Test
+    void preserveWhitespaceInCodeBlocks(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.md", "# Test\n\n```java\nint a;\n    if (x) {\n}\n```\n\ntext");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        String html = """
+            <html>
+                <head></head>
+                <body>
+                    <h1>Test</h1>
+                    <pre><code class="language-java">int a;
+                if (x) {
+            }
+            </code></pre>
+                    <p>text</p>
+                </body>
+            </html>""";
+
+        assertEquals(html, readFile(outputDir, "a.html"));
+    }
+
     @Test
     void copyNonArticleFiles(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
         createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
@@ -192,6 +229,444 @@ class GenerateStaticSiteTaskTest {
         assertThrows(IllegalStateException.class, () -> task.run(config));
     }
 
+    @Test
+    void incrementalBuildSkipsUnchangedPages(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+        createFile(inputDir, "b.html", "<div>B</div>");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setIncremental(true);
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+        createFile(outputDir, "staticsite/a.html", "unchanged");
+        createFile(inputDir, "b.html", "<div>B2</div>");
+        task.run(config);
+
+        assertEquals("unchanged", readFile(outputDir, "a.html"));
+        assertTrue(readFile(outputDir, "b.html").contains("B2"));
+        assertTrue(new File(outputDir, "staticsite-manifest.txt").exists());
+    }
+
+    @Test
+    void incrementalBuildRendersPagesAffectedByTemplate(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+        new File(inputDir, "b").mkdir();
+        createFile(inputDir, "b/template.html", "<h1>B</h1><clrz-content></clrz-content>");
+        createFile(inputDir, "b/b.html", "<div>B</div>");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setIncremental(true);
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+        createFile(outputDir, "staticsite/a.html", "unchanged");
+        createFile(inputDir, "b/template.html", "<h1>Changed</h1><clrz-content></clrz-content>");
+        task.run(config);
+
+        assertEquals("unchanged", readFile(outputDir, "a.html"));
+        assertTrue(readFile(outputDir, "b/b.html").contains("Changed"));
+    }
+
+    @Test
+    void incrementalBuildDeletesRemovedPages(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "a.md", "# A");
+        new File(inputDir, "b").mkdir();
+        createFile(inputDir, "b/b.txt", "B");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setIncremental(true);
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+        new File(inputDir, "a.md").delete();
+        new File(inputDir, "b/b.txt").delete();
+        new File(inputDir, "b").delete();
+        task.run(config);
+
+        assertFalse(doesFileExist(outputDir, "a.html"));
+        assertFalse(doesFileExist(outputDir, "b/b.txt"));
+        assertFalse(doesFileExist(outputDir, "b"));
+    }
+
+    @Test
+    void minifyGeneratedFiles(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        createFile(inputDir, "template.html",
+            "<html>\n<!-- Test -->\n<clrz-content></clrz-content>\n</html>");
+        createFile(inputDir, "a.html", "<div>\n    <p>Hello world</p>\n</div>");
+        createFile(inputDir, "style.css", "p {\n    color: red;\n}\n");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setMinify(true);
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        assertEquals("<html><head></head><body><div><p>Hello world</p></div></body></html>",
+            readFile(outputDir, "a.html"));
+        assertEquals("p{color:red}", readFile(outputDir, "style.css"));
+    }
+
+    @Test
+    void generateResponsiveImages(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "png",
+            new File(inputDir, "photo.png"));
+        createFile(inputDir, "a.html", "<img src=\"photo.png\" alt=\"Photo\">");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setIncremental(true);
+        config.setImageWidths(List.of(400));
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        assertTrue(doesFileExist(outputDir, "photo.png"));
+        assertTrue(doesFileExist(outputDir, "photo-400w.png"));
+        assertTrue(readFile(outputDir, "a.html").contains("srcset=\"photo-400w.png 400w, photo.png 800w\""));
+
+        ImageIO.write(new BufferedImage(1000, 600, BufferedImage.TYPE_INT_RGB), "png",
+            new File(inputDir, "photo.png"));
+        task.run(config);
+
+        assertTrue(readFile(outputDir, "a.html").contains("srcset=\"photo-400w.png 400w, photo.png 1000w\""));
+
+        new File(inputDir, "photo.png").delete();
+        task.run(config);
+
+        assertFalse(doesFileExist(outputDir, "photo-400w.png"));
+    }
+
+    @Test
+    void precompressGeneratedFiles(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        createFile(inputDir, "a.md", "# A\n\n" + "Some text.\n".repeat(200));
+        createFile(inputDir, "b.md", "# B");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setIncremental(true);
+        config.setPrecompress(List.of("gzip"));
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        assertTrue(doesFileExist(outputDir, "a.html.gz"));
+        assertFalse(doesFileExist(outputDir, "b.html.gz"));
+
+        new File(inputDir, "a.md").delete();
+        task.run(config);
+
+        assertFalse(doesFileExist(outputDir, "a.html"));
+        assertFalse(doesFileExist(outputDir, "a.html.gz"));
+    }
+
+    @Test
+    void renderPagesInParallel(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        for (int i = 0; i < 20; i++) {
+            new File(inputDir, "dir" + i).mkdir();
+            createFile(inputDir, "dir" + i + "/page.html", "<p>Page " + i + "</p>");
+        }
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setWorkers(4);
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(readFile(outputDir, "dir" + i + "/page.html").contains("Page " + i));
+        }
+    }
+
+    @Test
+    void streamingGeneratesSameSite(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<p>A</p>");
+        createFile(inputDir, "style.css", "p { color: red; }");
+        for (int i = 0; i < 10; i++) {
+            new File(inputDir, "dir" + i + "/sub").mkdirs();
+            createFile(inputDir, "dir" + i + "/template.html", "<div><clrz-content></clrz-content></div>");
+            createFile(inputDir, "dir" + i + "/sub/page.html", "<p>Page " + i + "</p>");
+        }
+        new File(inputDir, "empty").mkdir();
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+        config.setWorkers(3);
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+        Map<String, String> expected = readAll(new File(outputDir, "staticsite"));
+
+        config.setStreaming(true);
+        task.run(config);
+
+        assertEquals(expected, readAll(new File(outputDir, "staticsite")));
+        assertTrue(doesFileExist(outputDir, "empty"));
+        assertTrue(readFile(outputDir, "dir3/sub/page.html").contains("<div>"));
+    }
+
+    @Test
+    void renderTemplateWithMultipleContentTags(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html",
+            "<html><div><clrz-content></clrz-content></div><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "Hello");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+        task.run(config);
+
+        String html = readFile(outputDir, "a.html");
+
+        assertEquals(2, html.split("Hello", -1).length - 1);
+        assertFalse(html.contains("clrz"));
+    }
+
+    @Test
+    void updateOnlyRendersAffectedPages(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+        createFile(inputDir, "b.md", "B");
+
+        File siteDir = new File(outputDir, "staticsite");
+        StaticSiteGenerator generator = new StaticSiteGenerator(inputDir, siteDir, "template.html", 2);
+        generator.generate(new File(outputDir, "manifest.txt"), false);
+
+        createFile(inputDir, "b.md", "Changed");
+        createFile(inputDir, "c.html", "<div>C</div>");
+        Files.delete(new File(inputDir, "a.html").toPath());
+
+        List<String> affected = generator.update(List.of(new File(inputDir, "a.html"),
+            new File(inputDir, "b.md"), new File(inputDir, "c.html")));
+
+        assertEquals(List.of("a.html", "b.html", "c.html"), affected);
+        assertFalse(doesFileExist(outputDir, "a.html"));
+        assertTrue(readFile(outputDir, "b.html").contains("Changed"));
+        assertTrue(readFile(outputDir, "c.html").contains("<div>C</div>"));
+    }
+
+    @Test
+    void updateTemplateRendersPagesInDirectory(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+
+        File siteDir = new File(outputDir, "staticsite");
+        StaticSiteGenerator generator = new StaticSiteGenerator(inputDir, siteDir, "template.html", 2);
+        generator.generate(new File(outputDir, "manifest.txt"), false);
+
+        createFile(inputDir, "template.html", "<html><p>Changed</p><clrz-content></clrz-content></html>");
+        List<String> affected = generator.update(List.of(new File(inputDir, "template.html")));
+
+        assertEquals(List.of("a.html"), affected);
+        assertTrue(readFile(outputDir, "a.html").contains("<p>Changed</p>"));
+        assertFalse(doesFileExist(outputDir, "template.html"));
+    }
+
+    @Test
+    void updateTemplateOnlyRendersDependentPages(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+        new File(inputDir, "b").mkdir();
+        createFile(inputDir, "b/template.html", "<h1>B</h1><clrz-content></clrz-content>");
+        createFile(inputDir, "b/b.html", "<div>B</div>");
+        new File(inputDir, "b/c").mkdir();
+        createFile(inputDir, "b/c/c.html", "<div>C</div>");
+
+        File siteDir = new File(outputDir, "staticsite");
+        StaticSiteGenerator generator = new StaticSiteGenerator(inputDir, siteDir, "template.html", 2);
+        generator.generate(new File(outputDir, "manifest.txt"), false);
+
+        createFile(inputDir, "b/template.html", "<h1>Changed</h1><clrz-content></clrz-content>");
+        List<String> affected = generator.update(List.of(new File(inputDir, "b/template.html")));
+
+        assertEquals(List.of("b/b.html", "b/c/c.html"), affected);
+        assertTrue(readFile(outputDir, "b/c/c.html").contains("<h1>Changed</h1>"));
+    }
+
+    @Test
+    void updateRemovesPagesFromTemplateDependents(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+        new File(inputDir, "b").mkdir();
+        createFile(inputDir, "b/template.html", "<h1>B</h1><clrz-content></clrz-content>");
+        createFile(inputDir, "b/b.html", "<div>B</div>");
+
+        File siteDir = new File(outputDir, "staticsite");
+        StaticSiteGenerator generator = new StaticSiteGenerator(inputDir, siteDir, "template.html", 2);
+        generator.generate(new File(outputDir, "manifest.txt"), false);
+
+        File rootTemplate = new File(inputDir, "template.html");
+        File nestedTemplate = new File(inputDir, "b/template.html");
+        File page = new File(inputDir, "b/b.html");
+
+        Files.delete(new File(inputDir, "a.html").toPath());
+        generator.update(List.of(new File(inputDir, "a.html")));
+
+        assertEquals(Set.of(page), generator.getDependentPages(rootTemplate));
+        assertEquals(Set.of(page), generator.getDependentPages(nestedTemplate));
+
+        Files.delete(nestedTemplate.toPath());
+        generator.update(List.of(nestedTemplate));
+
+        assertEquals(Set.of(page), generator.getDependentPages(rootTemplate));
+        assertEquals(Set.of(), generator.getDependentPages(nestedTemplate));
+    }
+
+    @Test
+    void dryRunReportsPagesWithoutRendering(@TempDir File inputDir, @TempDir File outputDir)
+            throws IOException {
+        createFile(inputDir, "template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(inputDir, "a.html", "<div>A</div>");
+        new File(inputDir, "b").mkdir();
+        createFile(inputDir, "b/template.html", "<h1>B</h1><clrz-content></clrz-content>");
+        createFile(inputDir, "b/b.html", "<div>B</div>");
+        createFile(inputDir, "c.html", "<div>C</div>");
+
+        File siteDir = new File(outputDir, "staticsite");
+        File manifestFile = new File(outputDir, "manifest.txt");
+        StaticSiteGenerator generator = new StaticSiteGenerator(inputDir, siteDir, "template.html", 2);
+        generator.generate(manifestFile, true);
+
+        createFile(inputDir, "b/template.html", "<h1>Changed</h1><clrz-content></clrz-content>");
+        Files.delete(new File(inputDir, "c.html").toPath());
+
+        generator = new StaticSiteGenerator(inputDir, siteDir, "template.html", 2);
+        StaticSiteGenerator.DryRunReport report = generator.dryRun(manifestFile, true);
+
+        assertEquals(List.of("b/b.html"), report.render());
+        assertEquals(List.of("c.html"), report.remove());
+        assertTrue(readFile(outputDir, "b/b.html").contains("<h1>B</h1>"));
+        assertTrue(doesFileExist(outputDir, "c.html"));
+    }
+
+    @Test
+    void dryRunTask(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        createFile(inputDir, "a.html", "<div>A</div>");
+
+        StaticSiteExt config = new StaticSiteExt();
+        config.setContentDir(".");
+
+        Project project = ProjectBuilder.builder().withProjectDir(inputDir).build();
+        project.setBuildDir(outputDir);
+        new ApplicationPlugin().apply(project);
+
+        DryRunStaticSiteTask task = (DryRunStaticSiteTask) project.getTasks().getByName("dryRunStaticSite");
+        task.run(config);
+
+        assertFalse(doesFileExist(outputDir, "a.html"));
+        assertTrue(task.getOutputs().getFiles().isEmpty());
+    }
+
+    @Test
+    void renderChangedPagesAfterDryRun(@TempDir File projectDir) throws IOException {
+        createFile(projectDir, "settings.gradle", "rootProject.name = \"example\"");
+        createFile(projectDir, "build.gradle", """
+            plugins {
+                id "nl.colorize.gradle.application"
+            }
+
+            staticSite {
+                contentDir = "site"
+            }
+            """);
+        new File(projectDir, "site").mkdir();
+        createFile(projectDir, "site/template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(projectDir, "site/a.html", "<div>A</div>");
+
+        runGradle(projectDir, "generateStaticSite");
+        createFile(projectDir, "site/a.html", "<div>Changed</div>");
+        BuildResult dryRun = runGradle(projectDir, "dryRunStaticSite");
+        BuildResult result = runGradle(projectDir, "generateStaticSite");
+
+        assertTrue(dryRun.getOutput().contains("Pages that would be rendered: 1\n    a.html"));
+        assertEquals(TaskOutcome.SUCCESS, result.task(":generateStaticSite").getOutcome());
+        assertTrue(readFile(new File(projectDir, "build"), "a.html").contains("Changed"));
+    }
+
+    @Test
+    void precompressWithConfigurationCache(@TempDir File projectDir) throws IOException {
+        createFile(projectDir, "settings.gradle", "rootProject.name = \"example\"");
+        createFile(projectDir, "build.gradle", """
+            plugins {
+                id "nl.colorize.gradle.application"
+            }
+
+            staticSite {
+                contentDir = "site"
+                precompress = ["gzip"]
+            }
+            """);
+        new File(projectDir, "site").mkdir();
+        createFile(projectDir, "site/template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(projectDir, "site/a.html", "<p>Hello world</p>\n".repeat(100));
+
+        runGradle(projectDir, "generateStaticSite", "--configuration-cache");
+        BuildResult result = runGradle(projectDir, "generateStaticSite", "--configuration-cache");
+
+        assertTrue(result.getOutput().contains("Configuration cache entry reused"));
+        assertEquals(TaskOutcome.UP_TO_DATE, result.task(":generateStaticSite").getOutcome());
+        assertTrue(new File(projectDir, "build/staticsite/a.html.gz").exists());
+    }
+
+    @Test
+    void reportMissingBrotliTool(@TempDir File projectDir, @TempDir File emptyDir) throws IOException {
+        createFile(projectDir, "settings.gradle", "rootProject.name = \"example\"");
+        createFile(projectDir, "build.gradle", """
+            plugins {
+                id "nl.colorize.gradle.application"
+            }
+
+            staticSite {
+                contentDir = "site"
+                precompress = ["brotli"]
+            }
+            """);
+        new File(projectDir, "site").mkdir();
+        createFile(projectDir, "site/template.html", "<html><clrz-content></clrz-content></html>");
+        createFile(projectDir, "site/a.html", "<div>A</div>");
+
+        BuildResult result = GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withEnvironment(Map.of("PATH", emptyDir.getAbsolutePath(),
+                "JAVA_HOME", System.getProperty("java.home")))
+            .withArguments("generateStaticSite", "--configuration-cache")
+            .buildAndFail();
+
+        assertTrue(result.getOutput().contains(
+            "staticSite.precompress contains brotli, but the brotli command line tool is not available"));
+    }
+
+    @Test
+    void declareInputsAndOutputs(@TempDir File inputDir, @TempDir File outputDir) throws IOException {
+        new File(inputDir, "content").mkdir();
+        createFile(inputDir, "content/a.html", "<div>A</div>");
+
+        GenerateStaticSiteTask task = prepare(inputDir, outputDir);
+
+        assertTrue(task.getInputs().getFiles().contains(new File(inputDir, "content/a.html")));
+        assertTrue(task.getOutputs().getFiles().contains(new File(outputDir, "staticsite")));
+        assertEquals("template.html", task.getInputs().getProperties().get("templateFileName"));
+    }
+
     private GenerateStaticSiteTask prepare(File inputDir, File outputDir) {
         Project project = ProjectBuilder.builder().withProjectDir(inputDir).build();
         project.setBuildDir(outputDir);
@@ -201,6 +676,14 @@ class GenerateStaticSiteTaskTest {
         return (GenerateStaticSiteTask) project.getTasks().getByName("generateStaticSite");
     }
 
+    private BuildResult runGradle(File projectDir, String... args) {
+        return GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withArguments(args)
+            .build();
+    }
+
     private void createFile(File inputDir, String filePath, String content) throws IOException {
         File file = new File(inputDir.getAbsolutePath() + "/" + filePath);
         Files.writeString(file.toPath(), content, UTF_8);
@@ -214,6 +697,15 @@ class GenerateStaticSiteTaskTest {
         return Files.readString(file.toPath(), UTF_8);
     }
 
+    private Map<String, String> readAll(File dir) throws IOException {
+        Map<String, String> contents = new TreeMap<>();
+        for (File file : AppHelper.walk(dir, File::isFile)) {
+            String path = dir.toPath().relativize(file.toPath()).toString();
+            contents.put(path, Files.readString(file.toPath(), UTF_8));
+        }
+        return contents;
+    }
+
     private boolean doesFileExist(File outputDir, String filePath) {
         File file = new File(outputDir.getAbsolutePath() + "/staticsite/" + filePath);
         return file.exists();
@@ -0,0 +1,132 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponsiveImagesTest {
+
+    @Test
+    void createDerivativesSmallerThanOriginal(@TempDir File tempDir) throws IOException {
+        File image = createImage(tempDir, "photo.png", 800, 400);
+        File outputDir = new File(tempDir, "output");
+        outputDir.mkdir();
+
+        ResponsiveImages responsiveImages = new ResponsiveImages(new File(tempDir, "cache"),
+            List.of(1000, 200, 400), "100vw");
+        List<String> derivatives = responsiveImages.process(image, "photo.png",
+            new File(outputDir, "photo.png"));
+
+        assertEquals(List.of("photo-200w.png", "photo-400w.png"), derivatives);
+        assertEquals(200, ImageIO.read(new File(outputDir, "photo-200w.png")).getWidth());
+        assertEquals(100, ImageIO.read(new File(outputDir, "photo-200w.png")).getHeight());
+        assertEquals(400, ImageIO.read(new File(outputDir, "photo-400w.png")).getWidth());
+        assertFalse(new File(outputDir, "photo-1000w.png").exists());
+    }
+
+    @Test
+    void reuseCachedDerivatives(@TempDir File tempDir) throws IOException {
+        File image = createImage(tempDir, "photo.jpg", 800, 400);
+        File cacheDir = new File(tempDir, "cache");
+        File outputDir = new File(tempDir, "output");
+        outputDir.mkdir();
+
+        new ResponsiveImages(cacheDir, List.of(200), "100vw")
+            .process(image, "photo.jpg", new File(outputDir, "photo.jpg"));
+        File[] cached = cacheDir.listFiles();
+        long lastModified = cached[0].lastModified();
+
+        new File(outputDir, "photo-200w.jpg").delete();
+        new ResponsiveImages(cacheDir, List.of(200), "100vw")
+            .process(image, "photo.jpg", new File(outputDir, "photo.jpg"));
+
+        assertEquals(2, cached.length);
+        assertEquals(lastModified, cached[0].lastModified());
+        assertTrue(new File(outputDir, "photo-200w.jpg").exists());
+    }
+
+    @Test
+    void replaceStaleDerivativeWithSameSize(@TempDir File tempDir) throws IOException {
+        File image = createImage(tempDir, "photo.png", 800, 400);
+        File outputDir = new File(tempDir, "output");
+        outputDir.mkdir();
+
+        ResponsiveImages responsiveImages = new ResponsiveImages(new File(tempDir, "cache"),
+            List.of(200), "100vw");
+        responsiveImages.process(image, "photo.png", new File(outputDir, "photo.png"));
+        File derivative = new File(outputDir, "photo-200w.png");
+        byte[] expected = Files.readAllBytes(derivative.toPath());
+        Files.write(derivative.toPath(), new byte[expected.length]);
+
+        responsiveImages.process(image, "photo.png", new File(outputDir, "photo.png"));
+
+        assertArrayEquals(expected, Files.readAllBytes(derivative.toPath()));
+    }
+
+    @Test
+    void rewriteImagesInCompleteDocument(@TempDir File tempDir) throws IOException {
+        File image = createImage(tempDir, "photo.png", 800, 400);
+        File outputDir = new File(tempDir, "output");
+        outputDir.mkdir();
+
+        ResponsiveImages responsiveImages = new ResponsiveImages(new File(tempDir, "cache"),
+            List.of(400), "50vw");
+        responsiveImages.process(image, "photo.png", new File(outputDir, "photo.png"));
+
+        String html = "<html><head><title>Test</title></head><body><img src=\"photo.png\"></body></html>";
+        String expected = "<html><head><title>Test</title></head><body><img src=\"photo.png\" " +
+            "srcset=\"photo-400w.png 400w, photo.png 800w\" sizes=\"50vw\"></body></html>";
+
+        assertEquals(expected, responsiveImages.rewriteImages(html, "index.html"));
+    }
+
+    @Test
+    void rewriteImageTags(@TempDir File tempDir) throws IOException {
+        new File(tempDir, "images").mkdir();
+        File image = createImage(tempDir, "images/photo.png", 800, 400);
+        File outputDir = new File(tempDir, "output");
+        new File(outputDir, "images").mkdirs();
+
+        ResponsiveImages responsiveImages = new ResponsiveImages(new File(tempDir, "cache"),
+            List.of(400), "50vw");
+        responsiveImages.process(image, "images/photo.png", new File(outputDir, "images/photo.png"));
+
+        String html = """
+            <p>Test</p>
+            <img src="../images/photo.png" alt="a">
+            <img src="other.png">""";
+
+        String expected = """
+            <p>Test</p>
+            <img src="../images/photo.png" alt="a" srcset="../images/photo-400w.png 400w, \
+            ../images/photo.png 800w" sizes="50vw">
+            <img src="other.png">""";
+
+        assertEquals(expected, responsiveImages.rewriteImages(html, "blog/post.md"));
+        assertEquals("<p>No images</p>", responsiveImages.rewriteImages("<p>No images</p>", "a.md"));
+    }
+
+    private File createImage(File dir, String name, int width, int height) throws IOException {
+        File file = new File(dir, name);
+        String format = name.endsWith(".png") ? "png" : "jpg";
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, file);
+        return file;
+    }
+}
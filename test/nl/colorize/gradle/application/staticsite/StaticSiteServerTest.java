@@ -0,0 +1,114 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.staticsite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticSiteServerTest {
+
+    @Test
+    void serveFileWithReloadScript(@TempDir File outputDir) throws Exception {
+        Files.writeString(new File(outputDir, "index.html").toPath(),
+            "<html><body><p>Test</p></body></html>", UTF_8);
+
+        StaticSiteServer server = new StaticSiteServer(outputDir);
+        server.start(0);
+
+        try {
+            HttpResponse<String> response = request(server, "/");
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().startsWith("<html><body><p>Test</p><script>"));
+            assertTrue(response.body().contains("new EventSource(\"/_reload\")"));
+            assertTrue(response.body().endsWith("</script>\n</body></html>"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void injectReloadScriptIgnoringCase(@TempDir File outputDir) throws Exception {
+        Files.writeString(new File(outputDir, "index.html").toPath(),
+            "<HTML><BODY><P>İstanbul</P></BODY></HTML>", UTF_8);
+
+        StaticSiteServer server = new StaticSiteServer(outputDir);
+        server.start(0);
+
+        try {
+            HttpResponse<String> response = request(server, "/");
+
+            assertTrue(response.body().startsWith("<HTML><BODY><P>İstanbul</P><script>"));
+            assertTrue(response.body().endsWith("</script>\n</BODY></HTML>"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void missingFileReturnsNotFound(@TempDir File outputDir) throws Exception {
+        StaticSiteServer server = new StaticSiteServer(outputDir);
+        server.start(0);
+
+        try {
+            assertEquals(404, request(server, "/missing.html").statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void sendReloadEvent(@TempDir File outputDir) throws Exception {
+        StaticSiteServer server = new StaticSiteServer(outputDir);
+        server.start(0);
+
+        HttpClient client = HttpClient.newHttpClient();
+
+        try {
+            HttpRequest request = HttpRequest.newBuilder(getURI(server, "/_reload")).build();
+            HttpResponse<Stream<String>> response = client.send(request,
+                HttpResponse.BodyHandlers.ofLines());
+            server.reload(List.of("a.html", "b.html"));
+
+            Iterator<String> lines = response.body().iterator();
+            assertEquals(": connected", lines.next());
+            assertEquals("", lines.next());
+            assertEquals("event: reload", lines.next());
+            assertEquals("data: a.html b.html", lines.next());
+        } finally {
+            server.stop();
+            client.shutdownNow();
+        }
+    }
+
+    private HttpResponse<String> request(StaticSiteServer server, String path)
+            throws IOException, InterruptedException {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(getURI(server, path)).build();
+            return client.send(request, HttpResponse.BodyHandlers.ofString(UTF_8));
+        }
+    }
+
+    private URI getURI(StaticSiteServer server, String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,74 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.windowsexe;
+
+import nl.colorize.gradle.application.AppHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class RuntimeFragmentCacheTest {
+
+    @Test
+    void reuseFragmentForSameRuntime(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        File cacheDir = new File(tempDir, "cache");
+
+        RuntimeFragmentCache cache = new RuntimeFragmentCache(cacheDir, 6, 2);
+        File first = cache.getFragment(runtime);
+        first.setLastModified(1000L);
+        File second = cache.getFragment(runtime);
+
+        assertEquals(first, second);
+        assertEquals(1000L, second.lastModified());
+        assertEquals(1, cacheDir.listFiles().length);
+
+        try (ZipFile zip = new ZipFile(second)) {
+            assertEquals("@echo off", new String(zip.getInputStream(zip.getEntry("bin/java.bat"))
+                .readAllBytes(), UTF_8));
+        }
+    }
+
+    @Test
+    void createNewFragmentWhenRuntimeChanges(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        RuntimeFragmentCache cache = new RuntimeFragmentCache(new File(tempDir, "cache"), 6, 2);
+        File first = cache.getFragment(runtime);
+
+        Files.writeString(new File(runtime, "release").toPath(), "JAVA_VERSION=\"26\"", UTF_8);
+        File second = cache.getFragment(runtime);
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void createNewFragmentForDifferentCompressionLevel(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        File cacheDir = new File(tempDir, "cache");
+
+        File first = new RuntimeFragmentCache(cacheDir, 6, 2).getFragment(runtime);
+        File second = new RuntimeFragmentCache(cacheDir, 9, 2).getFragment(runtime);
+
+        assertNotEquals(first, second);
+    }
+
+    private File prepareRuntime(File tempDir) throws IOException {
+        File runtime = AppHelper.mkdir(new File(tempDir, "runtime"));
+        AppHelper.mkdir(new File(runtime, "bin"));
+        Files.writeString(new File(runtime, "bin/java.bat").toPath(), "@echo off", UTF_8);
+        Files.writeString(new File(runtime, "release").toPath(), "JAVA_VERSION=\"25\"", UTF_8);
+        return runtime;
+    }
+}
@@ -0,0 +1,239 @@
+//-----------------------------------------------------------------------------
+// Gradle Application Plugin
+// Copyright 2010-2026 Colorize
+// Apache license (http://www.apache.org/licenses/LICENSE-2.0)
+//-----------------------------------------------------------------------------
+
+package nl.colorize.gradle.application.windowsexe;
+
+import nl.colorize.gradle.application.AppHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZipPackagerTest {
+
+    @Test
+    void packageDirectory(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        File zipFile = new File(tempDir, "test.zip");
+
+        ZipPackager packager = new ZipPackager(6, 4);
+        packager.add("app.jar", new File(runtime, "lib/app.jar"));
+        packager.addDirectory(runtime);
+        packager.write(zipFile);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            List<String> names = zip.stream().map(ZipEntry::getName).toList();
+
+            assertEquals(List.of("app.jar", "bin/java.dll", "empty.txt", "lib/app.jar",
+                "lib/modules", "release"), names);
+            assertEquals(ZipEntry.STORED, zip.getEntry("app.jar").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("lib/modules").getMethod());
+
+            for (String name : names.subList(1, names.size())) {
+                byte[] expected = Files.readAllBytes(new File(runtime, name).toPath());
+                assertArrayEquals(expected, zip.getInputStream(zip.getEntry(name)).readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void readWithZipInputStream(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        File zipFile = new File(tempDir, "test.zip");
+
+        ZipPackager packager = new ZipPackager(9, 2);
+        packager.addDirectory(runtime);
+        packager.write(zipFile);
+
+        List<String> names = new ArrayList<>();
+
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream(zipFile))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                byte[] expected = Files.readAllBytes(new File(runtime, entry.getName()).toPath());
+                assertArrayEquals(expected, zip.readAllBytes());
+                names.add(entry.getName());
+            }
+        }
+
+        assertEquals(5, names.size());
+    }
+
+    @Test
+    void producesSameFileEveryTime(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        File first = new File(tempDir, "first.zip");
+        File second = new File(tempDir, "second.zip");
+
+        ZipPackager firstPackager = new ZipPackager(6, 1);
+        firstPackager.addDirectory(runtime);
+        firstPackager.write(first);
+
+        ZipPackager secondPackager = new ZipPackager(6, 8);
+        secondPackager.addDirectory(runtime);
+        secondPackager.write(second);
+
+        assertEquals(AppHelper.hash(first), AppHelper.hash(second));
+    }
+
+    @Test
+    void copyEntriesFromFragment(@TempDir File tempDir) throws IOException {
+        File runtime = prepareRuntime(tempDir);
+        File jarFile = new File("example/resources/example.jar");
+        File fragment = new File(tempDir, "fragment.zip");
+        File expected = new File(tempDir, "expected.zip");
+        File actual = new File(tempDir, "actual.zip");
+
+        ZipPackager fragmentPackager = new ZipPackager(6, 4);
+        fragmentPackager.addDirectory(runtime);
+        fragmentPackager.write(fragment);
+
+        ZipPackager expectedPackager = new ZipPackager(6, 4);
+        expectedPackager.add("example.jar", jarFile);
+        expectedPackager.addDirectory(runtime);
+        expectedPackager.write(expected);
+
+        ZipPackager actualPackager = new ZipPackager(6, 4);
+        actualPackager.add("example.jar", jarFile);
+        actualPackager.addFragment(fragment);
+        actualPackager.write(actual);
+
+        assertEquals(AppHelper.hash(expected), AppHelper.hash(actual));
+    }
+
+    @Test
+    void writeMaximumNumberOfEntries(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "empty.txt");
+        Files.writeString(file.toPath(), "", UTF_8);
+        File zipFile = new File(tempDir, "test.zip");
+
+        ZipPackager packager = new ZipPackager(6, 4);
+        for (int i = 0; i < 65535; i++) {
+            packager.add("file" + i + ".txt", file);
+        }
+        packager.write(zipFile);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            assertEquals(65535, zip.size());
+            assertEquals(0L, zip.getEntry("file65534.txt").getSize());
+        }
+
+        ZipPackager tooManyPackager = new ZipPackager(6, 4);
+        for (int i = 0; i < 65536; i++) {
+            tooManyPackager.add("file" + i + ".txt", file);
+        }
+        File tooManyZipFile = new File(tempDir, "too-many.zip");
+
+        assertThrows(IllegalArgumentException.class, () -> tooManyPackager.write(tooManyZipFile));
+        assertFalse(tooManyZipFile.exists());
+    }
+
+    @Test
+    void writeLongEntryNames(@TempDir File tempDir) throws IOException {
+        File file = new File(tempDir, "a.txt");
+        Files.writeString(file.toPath(), "test", UTF_8);
+        File zipFile = new File(tempDir, "test.zip");
+        String name = "a".repeat(65535);
+
+        ZipPackager packager = new ZipPackager(6, 4);
+        packager.add(name, file);
+        packager.write(zipFile);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            assertEquals("test", new String(zip.getInputStream(zip.getEntry(name)).readAllBytes(), UTF_8));
+        }
+
+        ZipPackager tooLongPackager = new ZipPackager(6, 4);
+        tooLongPackager.add(name + "a", file);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> tooLongPackager.write(new File(tempDir, "too-long.zip")));
+    }
+
+    @Test
+    void deleteZipFileWhenSizeLimitIsExceeded(@TempDir File tempDir) throws IOException {
+        List<File> files = new ArrayList<>();
+        Random random = new Random(1234);
+        for (int i = 0; i < 10; i++) {
+            byte[] data = new byte[1000];
+            random.nextBytes(data);
+            File file = new File(tempDir, "file" + i + ".zip");
+            Files.write(file.toPath(), data);
+            files.add(file);
+        }
+
+        File zipFile = new File(tempDir, "test.zip");
+        writeZipFile(files, zipFile, Long.MAX_VALUE);
+        long centralDirectoryOffset = readCentralDirectoryOffset(zipFile);
+
+        File limitedZipFile = new File(tempDir, "limited.zip");
+        writeZipFile(files, limitedZipFile, centralDirectoryOffset);
+
+        try (ZipFile zip = new ZipFile(limitedZipFile)) {
+            assertEquals(10, zip.size());
+            assertEquals(1000L, zip.getEntry("file9.zip").getSize());
+        }
+
+        File exceededZipFile = new File(tempDir, "exceeded.zip");
+
+        assertThrows(IllegalArgumentException.class,
+            () -> writeZipFile(files, exceededZipFile, centralDirectoryOffset - 1));
+        assertFalse(exceededZipFile.exists());
+    }
+
+    private void writeZipFile(List<File> files, File zipFile, long maxSize) throws IOException {
+        ZipPackager packager = new ZipPackager(6, 4, maxSize);
+        for (File file : files) {
+            packager.add(file.getName(), file);
+        }
+        packager.write(zipFile);
+    }
+
+    private long readCentralDirectoryOffset(File zipFile) throws IOException {
+        byte[] contents = Files.readAllBytes(zipFile.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN);
+        return Integer.toUnsignedLong(buffer.getInt(contents.length - 6));
+    }
+
+    private File prepareRuntime(File tempDir) throws IOException {
+        File runtime = AppHelper.mkdir(new File(tempDir, "runtime"));
+        AppHelper.mkdir(new File(runtime, "bin"));
+        AppHelper.mkdir(new File(runtime, "lib"));
+
+        Random random = new Random(1234);
+        byte[] binary = new byte[3 * 1024 * 1024 + 123];
+        random.nextBytes(binary);
+        for (int i = 0; i < binary.length; i += 7) {
+            binary[i] = 0;
+        }
+
+        Files.write(new File(runtime, "lib/modules").toPath(), binary);
+        Files.copy(new File("example/resources/example.jar").toPath(),
+            new File(runtime, "lib/app.jar").toPath());
+        Files.writeString(new File(runtime, "release").toPath(), "JAVA_VERSION=\"25\"\n".repeat(100), UTF_8);
+        Files.writeString(new File(runtime, "bin/java.dll").toPath(), "dll", UTF_8);
+        Files.writeString(new File(runtime, "empty.txt").toPath(), "", UTF_8);
+        Files.writeString(new File(runtime, ".DS_Store").toPath(), "x", UTF_8);
+        return runtime;
+    }
+}
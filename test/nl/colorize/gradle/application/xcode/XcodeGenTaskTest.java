@@ -31,10 +31,11 @@ class XcodeGenTaskTest {
         config.setAppName("Example App");
         config.setBundleVersion("1.0");
         config.setIcon("resources/icon.png");
+        config.setResourcesDir("resources");
 
-        XcodeGenTask task = prepareTask(tempDir);
+        XcodeGenTask task = prepareTask(tempDir, config);
         File specFile = new File(tempDir, "spec.yml");
-        task.generateSpecFile(config, specFile);
+        task.generateSpecFile(specFile);
 
         String expected = """
             name: "Example App"
@@ -87,8 +88,8 @@ class XcodeGenTaskTest {
         config.setIcon(new File("resources/icon.png").getAbsolutePath());
         config.setResourcesDir("resources");
 
-        XcodeGenTask task = prepareTask(tempDir);
-        task.generateProjectStructure(config, tempDir);
+        XcodeGenTask task = prepareTask(tempDir, config);
+        task.generateProjectStructure(tempDir);
 
         assertTrue(new File(tempDir, "example").exists());
         assertTrue(new File(tempDir, "HybridResources").exists());
@@ -106,8 +107,8 @@ class XcodeGenTaskTest {
         config.setIcon(new File("resources/icon.png").getAbsolutePath());
         config.setResourcesDir("resources");
 
-        XcodeGenTask task = prepareTask(tempDir);
-        task.generateProjectStructure(config, tempDir);
+        XcodeGenTask task = prepareTask(tempDir, config);
+        task.generateProjectStructure(tempDir);
 
         File iconDir = new File(tempDir, "example/Assets.xcassets/AppIcon.appiconset");
         File index = new File(iconDir, "Contents.json");
@@ -163,7 +164,7 @@ class XcodeGenTaskTest {
         assertEquals(expected, Files.readString(index.toPath(), UTF_8));
     }
 
-    private XcodeGenTask prepareTask(File tempDir) {
+    private XcodeGenTask prepareTask(File tempDir, XcodeGenExt config) {
         Project project = ProjectBuilder.builder()
             .withProjectDir(tempDir)
             .build();
@@ -171,6 +172,8 @@ class XcodeGenTaskTest {
         ApplicationPlugin plugin = new ApplicationPlugin();
         plugin.apply(project);
 
-        return (XcodeGenTask) project.getTasks().getByName("xcodeGen");
+        XcodeGenTask task = (XcodeGenTask) project.getTasks().getByName("xcodeGen");
+        task.configure(project, config);
+        return task;
     }
 }